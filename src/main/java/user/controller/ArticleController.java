@@ -2,7 +2,9 @@ package user.controller;
 
 import com.medium_clone.user.dto.CreateArticleRequest;
 import com.medium_clone.user.dto.ArticleResponse;
+import com.medium_clone.user.dto.ArticleSliceResponse;
 import com.medium_clone.user.dto.ArticleVersionResponse;
+import com.medium_clone.user.dto.ArticleVersionSummary;
 import com.medium_clone.user.dto.UpdateArticleRequest;
 import com.medium_clone.user.service.ArticleService;
 import user.config.JwtUtil;
@@ -10,19 +12,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/articles")
 @Validated
 public class ArticleController {
 
+    // Largest page of version history served at once
+    private static final int MAX_VERSION_PAGE_SIZE = 100;
+
     private final ArticleService articleService;
     private final JwtUtil jwtUtil;
 
@@ -68,6 +73,13 @@ public class ArticleController {
         return articleService.getArticlesByAuthor(username, pageable);
     }
 
+    @GetMapping("/author/{username}/cursor")
+    public ArticleSliceResponse getArticlesByAuthor(@PathVariable String username,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "10") int size) {
+        return articleService.getArticlesByAuthor(username, cursor, size);
+    }
+
     @GetMapping
     public Page<ArticleResponse> getPublishedArticles(@RequestParam(defaultValue = "0") int page,
                                                      @RequestParam(defaultValue = "10") int size) {
@@ -75,6 +87,12 @@ public class ArticleController {
         return articleService.getPublishedArticles(pageable);
     }
 
+    @GetMapping("/cursor")
+    public ArticleSliceResponse getPublishedArticles(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "10") int size) {
+        return articleService.getPublishedArticles(cursor, size);
+    }
+
     @GetMapping("/tag/{tag}")
     public Page<ArticleResponse> getArticlesByTag(@PathVariable String tag,
                                                  @RequestParam(defaultValue = "0") int page,
@@ -119,9 +137,17 @@ public class ArticleController {
     }
 
     // Versioning endpoints
+    // Metadata only, newest first; content of a version comes from /{id}/versions/{versionNumber}
     @GetMapping("/{id}/versions")
-    public List<ArticleVersionResponse> getArticleVersions(@PathVariable Long id) {
-        return articleService.getArticleVersions(id);
+    public Page<ArticleVersionSummary> getArticleVersions(@PathVariable Long id,
+                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Page must not be negative and size must be positive");
+        }
+        Pageable pageable = PageRequest.of(page, Math.min(size, MAX_VERSION_PAGE_SIZE),
+                Sort.by(Sort.Direction.DESC, "versionNumber"));
+        return articleService.getArticleVersions(id, pageable);
     }
 
     @GetMapping("/{id}/versions/{versionNumber}")
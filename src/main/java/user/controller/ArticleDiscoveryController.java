@@ -2,8 +2,10 @@ package user.controller;
 
 import com.medium_clone.user.dto.ArticleResponse;
 import com.medium_clone.user.dto.ArticleSearchRequest;
+import com.medium_clone.user.dto.ArticleSliceResponse;
 import com.medium_clone.user.dto.PersonalizedFeedRequest;
 import user.service.ArticleDiscoveryService;
+import user.service.EngagementIngestionPipeline;
 import user.config.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -13,6 +15,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -30,20 +33,38 @@ public class ArticleDiscoveryController {
         this.jwtUtil = jwtUtil;
     }
 
-    // Personalized feed for logged-in users
+    // Personalized feed for logged-in users, newest first; pass nextCursor back as cursor for the next page
     @PostMapping("/feed")
-    public Page<ArticleResponse> getPersonalizedFeed(@Valid @RequestBody PersonalizedFeedRequest request,
+    public ArticleSliceResponse getPersonalizedFeed(@Valid @RequestBody PersonalizedFeedRequest request,
                                                     @RequestHeader("Authorization") String authHeader) {
         String token = authHeader.replace("Bearer ", "");
         String email = jwtUtil.extractEmail(token);
         return discoveryService.getPersonalizedFeed(email, request);
     }
 
-    // Trending articles (public)
+    // Home timeline for logged-in users: followed authors, newest first, cursor-paginated
+    @GetMapping("/feed")
+    public ArticleSliceResponse getHomeFeed(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "10") int size,
+                                            @RequestHeader("Authorization") String authHeader) {
+        String token = authHeader.replace("Bearer ", "");
+        String email = jwtUtil.extractEmail(token);
+        return discoveryService.getPersonalizedFeed(email, cursor, size);
+    }
+
+    // Trending articles (public); window=hour|day|week ranks by engagement within that window
     @GetMapping("/trending")
-    public Page<ArticleResponse> getTrendingArticles(@RequestParam(defaultValue = "0") int page,
+    public Page<ArticleResponse> getTrendingArticles(@RequestParam(required = false) String window,
+                                                    @RequestParam(defaultValue = "0") int page,
                                                     @RequestParam(defaultValue = "10") int size) {
-        return discoveryService.getTrendingArticles(page, size);
+        return discoveryService.getTrendingArticles(window, page, size);
+    }
+
+    // Trending articles, cursor-paginated (public)
+    @GetMapping("/trending/cursor")
+    public ArticleSliceResponse getTrendingArticles(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "10") int size) {
+        return discoveryService.getTrendingArticles(cursor, size);
     }
 
     // Advanced search (public)
@@ -52,12 +73,13 @@ public class ArticleDiscoveryController {
         return discoveryService.advancedSearch(request);
     }
 
-    // Search by tags (public)
+    // Search by tags (public); matchAll=false returns articles with any of the tags
     @PostMapping("/search/tags")
     public Page<ArticleResponse> searchByTags(@RequestBody Set<String> tags,
+                                             @RequestParam(defaultValue = "true") boolean matchAll,
                                              @RequestParam(defaultValue = "0") int page,
                                              @RequestParam(defaultValue = "10") int size) {
-        return discoveryService.searchByTags(tags, page, size);
+        return discoveryService.searchByTags(tags, matchAll, page, size);
     }
 
     // Recent articles (public)
@@ -67,6 +89,13 @@ public class ArticleDiscoveryController {
         return discoveryService.getRecentArticles(page, size);
     }
 
+    // Recent articles, cursor-paginated (public)
+    @GetMapping("/recent/cursor")
+    public ArticleSliceResponse getRecentArticles(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "10") int size) {
+        return discoveryService.getRecentArticles(cursor, size);
+    }
+
     // Track engagement (requires authentication)
     @PostMapping("/articles/{articleId}/engage")
     public ResponseEntity<String> trackEngagement(@PathVariable Long articleId,
@@ -84,6 +113,20 @@ public class ArticleDiscoveryController {
         return discoveryService.getArticleEngagementStats(articleId);
     }
 
+    // Get engagement statistics for several articles (public)
+    @PostMapping("/articles/engagement")
+    public Map<Long, Map<String, Long>> getArticleEngagementStats(@RequestBody List<Long> articleIds) {
+        return discoveryService.getArticleEngagementStats(articleIds);
+    }
+
+    // Engagement ingestion pipeline metrics (admins only)
+    @GetMapping("/engagement/metrics")
+    public Map<String, Object> getIngestionMetrics(@RequestHeader("Authorization") String authHeader) {
+        String token = authHeader.replace("Bearer ", "");
+        String email = jwtUtil.extractEmail(token);
+        return discoveryService.getIngestionMetrics(email);
+    }
+
     // Quick search by keywords (public)
     @GetMapping("/search/quick")
     public Page<ArticleResponse> quickSearch(@RequestParam String q,
@@ -144,6 +187,12 @@ public class ArticleDiscoveryController {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
     }
 
+    @ExceptionHandler(EngagementIngestionPipeline.QueueFullException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<String> handleQueueFullException(EngagementIngestionPipeline.QueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ResponseEntity<String> handleException(Exception ex) {
@@ -3,6 +3,7 @@ package user.controller;
 import com.medium_clone.user.dto.ArticleResponse;
 import user.service.ArticleService;
 import user.service.ArticleDiscoveryService;
+import user.service.ArticleDisplayService;
 import user.util.ArticleUtils;
 import user.config.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,14 +20,17 @@ public class ArticleDisplayController {
 
     private final ArticleService articleService;
     private final ArticleDiscoveryService discoveryService;
+    private final ArticleDisplayService displayService;
     private final JwtUtil jwtUtil;
 
     @Autowired
     public ArticleDisplayController(ArticleService articleService, 
                                   ArticleDiscoveryService discoveryService,
+                                  ArticleDisplayService displayService,
                                   JwtUtil jwtUtil) {
         this.articleService = articleService;
         this.discoveryService = discoveryService;
+        this.displayService = displayService;
         this.jwtUtil = jwtUtil;
     }
 
@@ -60,6 +64,7 @@ public class ArticleDisplayController {
             response.put("article", article);
             response.put("engagement", engagementStats);
             response.put("displayInfo", createDisplayInfo(article, engagementStats));
+            response.putAll(displayService.getRenderedContent(article));
             
             return ResponseEntity.ok(response);
             
@@ -161,17 +166,7 @@ public class ArticleDisplayController {
     public ResponseEntity<Map<String, Object>> getRelatedArticles(@PathVariable String slug,
                                                                  @RequestParam(defaultValue = "5") int limit) {
         try {
-            ArticleResponse article = articleService.getArticleBySlug(slug);
-            
-            // This would typically use a more sophisticated algorithm
-            // For now, we'll return a simple response
-            Map<String, Object> related = new HashMap<>();
-            related.put("articleId", article.getId());
-            related.put("tags", article.getTags());
-            related.put("author", article.getAuthorUsername());
-            related.put("message", "Related articles would be fetched based on tags and author");
-            
-            return ResponseEntity.ok(related);
+            return ResponseEntity.ok(displayService.getRelatedArticles(slug, limit));
             
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
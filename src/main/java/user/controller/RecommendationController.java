@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/recommendations")
@@ -40,4 +41,10 @@ public class RecommendationController {
         recommendationService.generateRecommendationsForAllUsers();
         return ResponseEntity.ok("Recommendations generated for all users");
     }
+
+    // Progress, throughput and checkpoint of the current or last generate-all run
+    @GetMapping("/generate-all/status")
+    public Map<String, Object> getGenerationStatus() {
+        return recommendationService.getGenerationStatus();
+    }
 } 
\ No newline at end of file
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -18,6 +19,8 @@ public class ArticleDisplayResponse {
     private Long id;
     private String title;
     private String content;
+    private String html; // Sanitized rendering of content
+    private List<TableOfContentsEntry> tableOfContents;
     private String summary;
     private Set<String> tags;
     private String coverImageUrl;
@@ -0,0 +1,23 @@
+package com.medium_clone.user.dto;
+
+import com.medium_clone.user.entity.ContentMetrics;
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+/**
+ * What the stats and reading-progress endpoints need of an article, selected
+ * by slug in one constructor expression without the content column.
+ * contentMetrics is null for rows written before metrics were stored.
+ * Field order must match ArticleRepository.findPublishedMetricsBySlug.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArticleMetricsView {
+
+    private Long id;
+    private Integer readTime;
+    private Integer viewCount;
+    private ContentMetrics contentMetrics;
+}
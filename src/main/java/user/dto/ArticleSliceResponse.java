@@ -0,0 +1,24 @@
+package com.medium_clone.user.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated article list. Pass nextCursor back to get the
+ * following page; it is null when there are no more articles.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArticleSliceResponse {
+
+    private List<ArticleResponse> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
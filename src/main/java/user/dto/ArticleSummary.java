@@ -0,0 +1,33 @@
+package com.medium_clone.user.dto;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Content-free projection of an article used by list queries.
+ * Selected with a JPQL constructor expression, so the content TEXT column is
+ * never read; tags are attached afterwards with one batched query.
+ * Field order must match ArticleRepository.SUMMARY_SELECT.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArticleSummary {
+
+    private Long id;
+    private String title;
+    private String summary;
+    private String coverImageUrl;
+    private String slug;
+    private boolean published;
+    private String authorUsername;
+    private String authorImage;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime publishedAt;
+    private Integer readTime;
+    private Integer viewCount;
+}
@@ -0,0 +1,29 @@
+package com.medium_clone.user.dto;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Content-free projection of an article version used by the history list.
+ * Selected with a JPQL constructor expression, so no content or delta column
+ * is read; the content of one version comes from the version endpoint.
+ * Field order must match ArticleVersionRepository.findByArticleId.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArticleVersionSummary {
+
+    private Long id;
+    private Integer versionNumber;
+    private String title;
+    private String changeDescription;
+    private String editorEmail;
+    private LocalDateTime createdAt;
+    private Integer contentLength; // Null for versions saved before sizes were recorded
+    private Integer charsAdded;
+    private Integer charsRemoved;
+}
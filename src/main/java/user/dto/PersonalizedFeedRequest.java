@@ -5,7 +5,7 @@ import lombok.Data;
 @Data
 public class PersonalizedFeedRequest {
     
-    private int page = 0;
+    private String cursor; // nextCursor of the previous page; null for the first page
     
     private int size = 10;
     
@@ -15,7 +15,7 @@ public class PersonalizedFeedRequest {
     
     private boolean includeTrending = true; // Include trending articles
     
-    private String sortBy = "publishedAt"; // publishedAt, trending, relevance
+    private String sortBy = "publishedAt"; // only publishedAt is supported
     
-    private String sortOrder = "desc"; // asc, desc
+    private String sortOrder = "desc"; // only desc is supported
 } 
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.medium_clone.user.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TableOfContentsEntry {
+
+    private int level;
+    private String title;
+    private String anchor; // Fragment linking to the heading in the rendered HTML
+}
@@ -1 +1,20 @@
- 
\ No newline at end of file
+package com.medium_clone.user.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TagResponse {
+
+    private Long id;
+    private String name;
+    private Long usageCount;
+    private LocalDateTime lastUsedAt;
+}
@@ -2,6 +2,7 @@ package com.medium_clone.user.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -11,7 +12,15 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "articles")
+@Table(name = "articles", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_articles_slug", columnNames = "slug") // See SlugAllocator
+}, indexes = {
+        // Keyset pagination seeks on these column orders
+        @Index(name = "idx_articles_published_at", columnList = "published, publishedAt, id"),
+        @Index(name = "idx_articles_view_count", columnList = "published, viewCount, id"),
+        @Index(name = "idx_articles_author", columnList = "author_id, id")
+})
+@NamedEntityGraph(name = "Article.author", attributeNodes = @NamedAttributeNode("author"))
 @EntityListeners(AuditingEntityListener.class)
 @Getter
 @Setter
@@ -27,13 +36,15 @@ public class Article {
     @Column(nullable = false, length = 255)
     private String title;
 
+    @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "TEXT")
-    private String content; // Rich text content (Markdown/HTML)
+    private String content; // Rich text content (Markdown/HTML), loaded on first access
 
     @Column(columnDefinition = "TEXT")
     private String summary; // Article summary/excerpt
 
     @ElementCollection
+    @BatchSize(size = 50) // Tags of a page of articles load in one IN query, not one per article
     @CollectionTable(name = "article_tags", joinColumns = @JoinColumn(name = "article_id"))
     @Column(name = "tag")
     private Set<String> tags = new HashSet<>();
@@ -64,6 +75,12 @@ public class Article {
     @Column
     private Integer readTime; // Estimated reading time in minutes
 
+    @Embedded
+    private ContentMetrics contentMetrics; // Structure metrics, recomputed whenever content is written
+
+    @Column(length = 64)
+    private String contentHash; // SHA-256 of content, hex; keys the cached HTML rendering
+
     @Column
     private Integer viewCount = 0;
 
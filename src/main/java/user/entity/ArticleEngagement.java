@@ -37,6 +37,9 @@ public class ArticleEngagement {
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
+    @Column
+    private LocalDateTime lastEngagedAt; // Latest repeat of this engagement; createdAt keeps the first
+
     @Column(nullable = true)
     private Integer count; // For CLAP type: number of claps by this user on this article
 
@@ -0,0 +1,25 @@
+package com.medium_clone.user.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+/**
+ * One table of contents entry of a rendered article
+ */
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleHeading {
+
+    @Column(nullable = false)
+    private int level;
+
+    @Column(nullable = false, length = 500)
+    private String title;
+
+    @Column(nullable = false, length = 500)
+    private String anchor; // id attribute of the heading in the rendered HTML
+}
@@ -0,0 +1,46 @@
+package com.medium_clone.user.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sanitized HTML of an article, rendered once from its markdown.
+ * Keyed by article id plus a hash of the content it was rendered from, so a
+ * rendering can never be served for content it does not match.
+ */
+@Entity
+@Table(name = "article_renderings", uniqueConstraints =
+        @UniqueConstraint(name = "uk_article_renderings_article_hash", columnNames = {"article_id", "content_hash"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArticleRendering {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "article_id", nullable = false)
+    private Long articleId;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash; // SHA-256 of the rendered content, hex
+
+    @Column(columnDefinition = "TEXT")
+    private String html;
+
+    @ElementCollection
+    @CollectionTable(name = "article_rendering_headings", joinColumns = @JoinColumn(name = "rendering_id"))
+    @OrderColumn(name = "position")
+    @Builder.Default
+    private List<ArticleHeading> headings = new ArrayList<>(); // Table of contents, in document order
+
+    @Column(nullable = false)
+    private LocalDateTime renderedAt;
+}
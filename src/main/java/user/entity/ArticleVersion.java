@@ -10,7 +10,11 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "article_versions")
+@Table(name = "article_versions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_article_versions_number", columnNames = {"article_id", "versionNumber"})
+}, indexes = {
+        @Index(name = "idx_article_versions_content_hash", columnList = "article_id, contentHash")
+})
 @EntityListeners(AuditingEntityListener.class)
 @Getter
 @Setter
@@ -34,7 +38,29 @@ public class ArticleVersion {
     private String title;
 
     @Column(columnDefinition = "TEXT")
-    private String content;
+    private String content; // Only on rows written before delta storage; see ArticleVersionStore
+
+    @Column(length = 64)
+    private String contentHash; // SHA-256 of the full content, hex
+
+    @Column
+    private Integer baseVersionNumber; // Version the delta applies to; null for keyframes
+
+    @Column
+    private Integer chainLength; // Deltas between this version and its keyframe
+
+    @Basic(fetch = FetchType.LAZY)
+    @Column(length = 16_777_216)
+    private byte[] contentDelta; // TextDelta against the base; null when content equals the base's
+
+    @Column
+    private Integer contentLength; // Characters of content
+
+    @Column
+    private Integer charsAdded; // Change against the previous version
+
+    @Column
+    private Integer charsRemoved;
 
     @Column(columnDefinition = "TEXT")
     private String summary;
@@ -0,0 +1,52 @@
+package com.medium_clone.user.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+/**
+ * Structure metrics of an article's markdown content.
+ * Computed once by ContentAnalyzer whenever the content is written and stored
+ * with the article, so display and stats endpoints never rescan the content.
+ */
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContentMetrics {
+
+    @Column
+    private Integer wordCount;
+
+    @Column
+    private Integer sentenceCount;
+
+    @Column
+    private Integer syllableCount;
+
+    @Column
+    private Integer paragraphCount;
+
+    @Column
+    private Integer headerCount;
+
+    @Column
+    private Integer imageCount;
+
+    @Column
+    private Integer codeBlockCount;
+
+    @Column
+    private Integer linkCount;
+
+    @Column
+    private Integer listCount;
+
+    @Column
+    private Integer formattingCount; // Emphasis spans (*text*, **text**, _text_)
+
+    @Column
+    private Boolean hasTableOfContents;
+}
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,12 +22,39 @@ public interface ArticleEngagementRepository extends JpaRepository<ArticleEngage
     // Count engagements by type for an article
     Long countByArticleIdAndType(Long articleId, ArticleEngagement.EngagementType type);
     
+    // Count engagements grouped by type for several articles: articleId, type, count
+    @Query("SELECT ae.article.id, ae.type, COUNT(ae) FROM ArticleEngagement ae " +
+           "WHERE ae.article.id IN :articleIds " +
+           "GROUP BY ae.article.id, ae.type")
+    List<Object[]> countByTypeForArticles(@Param("articleIds") Collection<Long> articleIds);
+    
     // Get user's engagements
     List<ArticleEngagement> findByUserId(Long userId);
     
     // Get article's engagements
     List<ArticleEngagement> findByArticleId(Long articleId);
     
+    // Engagement rows on published articles active since a point in time: articleId, type, latest engagement time, count
+    @Query("SELECT ae.article.id, ae.type, COALESCE(ae.lastEngagedAt, ae.createdAt), ae.count FROM ArticleEngagement ae " +
+           "WHERE COALESCE(ae.lastEngagedAt, ae.createdAt) >= :since AND ae.article.published = true")
+    List<Object[]> findPublishedEngagementsSince(@Param("since") LocalDateTime since);
+    
+    // Engagement rows on published articles in id order, for the similarity build: id, userId, articleId, type
+    @Query("SELECT ae.id, ae.user.id, ae.article.id, ae.type FROM ArticleEngagement ae " +
+           "WHERE ae.id > :afterId AND ae.article.published = true " +
+           "ORDER BY ae.id")
+    List<Object[]> findEngagementPairsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // A user's most recently active engagements first: articleId, type
+    @Query("SELECT ae.article.id, ae.type FROM ArticleEngagement ae " +
+           "WHERE ae.user.id = :userId " +
+           "ORDER BY COALESCE(ae.lastEngagedAt, ae.createdAt) DESC, ae.id DESC")
+    List<Object[]> findUserEngagements(@Param("userId") Long userId, Pageable pageable);
+    
+    // Every article a user engaged with
+    @Query("SELECT DISTINCT ae.article.id FROM ArticleEngagement ae WHERE ae.user.id = :userId")
+    List<Long> findEngagedArticleIds(@Param("userId") Long userId);
+    
     // Get trending articles (high engagement in recent time)
     @Query("SELECT ae.article.id, COUNT(ae) as engagementCount " +
            "FROM ArticleEngagement ae " +
@@ -60,4 +88,4 @@ public interface ArticleEngagementRepository extends JpaRepository<ArticleEngage
     // Sum all claps for an article
     @Query("SELECT COALESCE(SUM(ae.count), 0) FROM ArticleEngagement ae WHERE ae.article.id = :articleId AND ae.type = 'CLAP'")
     Long sumClapsByArticleId(@Param("articleId") Long articleId);
-} 
\ No newline at end of file
+}
@@ -0,0 +1,23 @@
+package user.repository;
+
+import com.medium_clone.user.entity.ArticleRendering;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArticleRenderingRepository extends JpaRepository<ArticleRendering, Long> {
+
+    // Rendering of the article's current content, matched on the hash stored with the article
+    @EntityGraph(attributePaths = "headings")
+    @Query("SELECT r FROM ArticleRendering r, Article a " +
+           "WHERE a.id = :articleId AND r.articleId = a.id AND r.contentHash = a.contentHash")
+    Optional<ArticleRendering> findCurrent(@Param("articleId") Long articleId);
+
+    List<ArticleRendering> findByArticleId(Long articleId);
+}
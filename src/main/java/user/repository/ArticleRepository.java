@@ -1,14 +1,20 @@
 package user.repository;
 
+import com.medium_clone.user.dto.ArticleMetricsView;
+import com.medium_clone.user.dto.ArticleSummary;
 import com.medium_clone.user.entity.Article;
+import com.medium_clone.user.entity.ContentMetrics;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -16,26 +22,53 @@ import java.util.Set;
 @Repository
 public interface ArticleRepository extends JpaRepository<Article, Long> {
     
+    // List queries select this content-free projection instead of whole entities
+    String SUMMARY_SELECT = "SELECT new com.medium_clone.user.dto.ArticleSummary(" +
+            "a.id, a.title, a.summary, a.coverImageUrl, a.slug, a.published, u.username, u.image, " +
+            "a.createdAt, a.updatedAt, a.publishedAt, a.readTime, a.viewCount) " +
+            "FROM Article a JOIN a.author u ";
+    
+    @EntityGraph("Article.author")
     Optional<Article> findBySlug(String slug);
     
+    // Which of these exact slugs are taken; an IN lookup on the unique index, so no pattern escaping or prefix scans
+    @Query("SELECT a.slug FROM Article a WHERE a.slug IN :slugs")
+    List<String> findSlugsIn(@Param("slugs") Collection<String> slugs);
+    
+    @EntityGraph("Article.author")
+    List<Article> findByIdInAndPublishedTrue(Collection<Long> ids);
+    
+    boolean existsByIdAndPublishedTrue(Long id);
+    
+    @EntityGraph("Article.author")
     Page<Article> findByAuthorUsername(String username, Pageable pageable);
     
+    @EntityGraph("Article.author")
     Page<Article> findByAuthorUsernameIn(List<String> usernames, Pageable pageable);
     
+    @EntityGraph("Article.author")
+    Page<Article> findByAuthorUsernameInAndPublishedTrue(List<String> usernames, Pageable pageable);
+    
+    @EntityGraph("Article.author")
     Page<Article> findByPublishedTrue(Pageable pageable);
     
+    @EntityGraph("Article.author")
     @Query("SELECT a FROM Article a WHERE a.published = true AND :tag MEMBER OF a.tags")
     Page<Article> findByTag(@Param("tag") String tag, Pageable pageable);
     
+    @EntityGraph("Article.author")
     @Query("SELECT a FROM Article a WHERE a.published = true AND " +
            "LOWER(a.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(a.content) LIKE LOWER(CONCAT('%', :search, '%'))")
     Page<Article> searchArticles(@Param("search") String search, Pageable pageable);
     
+    @EntityGraph("Article.author")
     List<Article> findByAuthorIdAndPublishedFalse(Long authorId);
+    @EntityGraph("Article.author")
     List<Article> findByAuthorIdAndPublishedTrue(Long authorId);
     
     // Advanced search with multiple filters
+    @EntityGraph("Article.author")
     @Query("SELECT a FROM Article a " +
            "WHERE (:keywords IS NULL OR " +
            "LOWER(a.title) LIKE LOWER(CONCAT('%', :keywords, '%')) OR " +
@@ -62,14 +95,170 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
                                     Pageable pageable);
     
     // Get trending articles by view count
+    @EntityGraph("Article.author")
     @Query("SELECT a FROM Article a " +
            "WHERE a.published = true " +
            "ORDER BY a.viewCount DESC, a.publishedAt DESC")
     Page<Article> findTrendingByViews(Pageable pageable);
     
     // Get recent articles
+    @EntityGraph("Article.author")
     @Query("SELECT a FROM Article a " +
            "WHERE a.published = true " +
            "ORDER BY a.publishedAt DESC")
     Page<Article> findRecentArticles(Pageable pageable);
-} 
\ No newline at end of file
+    
+    // Search index rebuild: the indexed fields of articles after an id, in id order
+    // (id, title, summary, content, authorId, authorUsername, published, publishedAt, updatedAt)
+    @Query("SELECT a.id, a.title, a.summary, a.content, u.id, u.username, a.published, a.publishedAt, a.updatedAt " +
+           "FROM Article a JOIN a.author u " +
+           "WHERE a.id > :afterId " +
+           "ORDER BY a.id")
+    List<Object[]> findSearchRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Articles created or modified since the search index was last flushed
+    @EntityGraph("Article.author")
+    @Query("SELECT a FROM Article a " +
+           "WHERE a.id > :maxId OR a.updatedAt > :since")
+    List<Article> findChangedSince(@Param("maxId") Long maxId,
+                                   @Param("since") LocalDateTime since);
+    
+    // Keyset pagination: seek past the last row seen instead of using an offset,
+    // and return a Slice so no COUNT query is issued. Published rows without a
+    // publishedAt come after all dated ones, newest id first.
+    @Query(SUMMARY_SELECT +
+           "WHERE a.published = true " +
+           "ORDER BY a.publishedAt DESC NULLS LAST, a.id DESC")
+    Slice<ArticleSummary> findPublishedFirstSlice(Pageable pageable);
+    
+    @Query(SUMMARY_SELECT +
+           "WHERE a.published = true " +
+           "AND (a.publishedAt < :publishedAt OR (a.publishedAt = :publishedAt AND a.id < :id) " +
+           "OR a.publishedAt IS NULL) " +
+           "ORDER BY a.publishedAt DESC NULLS LAST, a.id DESC")
+    Slice<ArticleSummary> findPublishedSliceAfter(@Param("publishedAt") LocalDateTime publishedAt,
+                                                  @Param("id") Long id,
+                                                  Pageable pageable);
+    
+    @Query(SUMMARY_SELECT +
+           "WHERE a.published = true AND a.publishedAt IS NULL AND a.id < :id " +
+           "ORDER BY a.id DESC")
+    Slice<ArticleSummary> findUndatedPublishedSliceAfter(@Param("id") Long id, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT +
+           "WHERE a.published = true " +
+           "ORDER BY a.viewCount DESC, a.id DESC")
+    Slice<ArticleSummary> findTrendingFirstSlice(Pageable pageable);
+    
+    @Query(SUMMARY_SELECT +
+           "WHERE a.published = true " +
+           "AND (a.viewCount < :viewCount OR (a.viewCount = :viewCount AND a.id < :id)) " +
+           "ORDER BY a.viewCount DESC, a.id DESC")
+    Slice<ArticleSummary> findTrendingSliceAfter(@Param("viewCount") Integer viewCount,
+                                                 @Param("id") Long id,
+                                                 Pageable pageable);
+    
+    @Query(SUMMARY_SELECT +
+           "WHERE u.username = :username " +
+           "ORDER BY a.id DESC")
+    Slice<ArticleSummary> findByAuthorFirstSlice(@Param("username") String username, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT +
+           "WHERE u.username = :username AND a.id < :id " +
+           "ORDER BY a.id DESC")
+    Slice<ArticleSummary> findByAuthorSliceAfter(@Param("username") String username,
+                                                 @Param("id") Long id,
+                                                 Pageable pageable);
+    
+    // Content-free list queries (see ArticleSummary)
+    @Query(value = SUMMARY_SELECT + "WHERE a.id IN :ids")
+    List<ArticleSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE a.id IN :ids AND a.published = true")
+    List<ArticleSummary> findPublishedSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE a.slug = :slug AND a.published = true")
+    Optional<ArticleSummary> findPublishedSummaryBySlug(@Param("slug") String slug);
+    
+    @Query("SELECT a.content FROM Article a WHERE a.id = :id")
+    String findContentById(@Param("id") Long id);
+    
+    // Stored structure metrics only; null for rows written before metrics existed
+    @Query("SELECT a.contentMetrics FROM Article a WHERE a.id = :id")
+    ContentMetrics findContentMetricsById(@Param("id") Long id);
+    
+    @Query("SELECT new com.medium_clone.user.dto.ArticleMetricsView(a.id, a.readTime, a.viewCount, a.contentMetrics) " +
+           "FROM Article a WHERE a.slug = :slug AND a.published = true")
+    Optional<ArticleMetricsView> findPublishedMetricsBySlug(@Param("slug") String slug);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE a.published = true",
+           countQuery = "SELECT COUNT(a) FROM Article a WHERE a.published = true")
+    Page<ArticleSummary> findPublishedSummaries(Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE u.username = :username",
+           countQuery = "SELECT COUNT(a) FROM Article a WHERE a.author.username = :username")
+    Page<ArticleSummary> findSummariesByAuthorUsername(@Param("username") String username, Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE a.published = true AND :tag MEMBER OF a.tags",
+           countQuery = "SELECT COUNT(a) FROM Article a WHERE a.published = true AND :tag MEMBER OF a.tags")
+    Page<ArticleSummary> findSummariesByTag(@Param("tag") String tag, Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE a.published = true ORDER BY a.viewCount DESC, a.publishedAt DESC",
+           countQuery = "SELECT COUNT(a) FROM Article a WHERE a.published = true")
+    Page<ArticleSummary> findTrendingSummaries(Pageable pageable);
+    
+    // Home timeline entries (id, publishedAt) of the given authors, newest first
+    @Query("SELECT a.id, a.publishedAt FROM Article a " +
+           "WHERE a.author.id IN :authorIds AND a.published = true " +
+           "ORDER BY a.publishedAt DESC, a.id DESC")
+    List<Object[]> findTimelineEntries(@Param("authorIds") Collection<Long> authorIds, Pageable pageable);
+    
+    @Query("SELECT a.id, a.publishedAt FROM Article a " +
+           "WHERE a.author.id IN :authorIds AND a.published = true " +
+           "AND (a.publishedAt < :publishedAt OR (a.publishedAt = :publishedAt AND a.id < :id)) " +
+           "ORDER BY a.publishedAt DESC, a.id DESC")
+    List<Object[]> findTimelineEntriesAfter(@Param("authorIds") Collection<Long> authorIds,
+                                            @Param("publishedAt") LocalDateTime publishedAt,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+    
+    // Every article id of an author, published or not
+    @Query("SELECT a.id FROM Article a WHERE a.author.id = :authorId")
+    List<Long> findIdsByAuthorId(@Param("authorId") Long authorId);
+    
+    // Feed entries (id, publishedAt) over all published articles, newest first
+    @Query("SELECT a.id, a.publishedAt FROM Article a " +
+           "WHERE a.published = true " +
+           "ORDER BY a.publishedAt DESC, a.id DESC")
+    List<Object[]> findPublishedEntries(Pageable pageable);
+    
+    @Query("SELECT a.id, a.publishedAt FROM Article a " +
+           "WHERE a.published = true " +
+           "AND (a.publishedAt < :publishedAt OR (a.publishedAt = :publishedAt AND a.id < :id)) " +
+           "ORDER BY a.publishedAt DESC, a.id DESC")
+    List<Object[]> findPublishedEntriesAfter(@Param("publishedAt") LocalDateTime publishedAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+    
+    @Query("SELECT a.id, a.publishedAt FROM Article a WHERE a.id IN :ids AND a.published = true")
+    List<Object[]> findPublishedEntriesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Published article ids in publishedAt order, for the tag bitmap index
+    @Query("SELECT a.id, a.publishedAt FROM Article a " +
+           "WHERE a.published = true " +
+           "ORDER BY a.publishedAt ASC, a.id ASC")
+    List<Object[]> findPublishedOrdering();
+    
+    // (article id, tag, publishedAt) rows of articles published since the given time, for seeding trending tags
+    @Query("SELECT a.id, t, a.publishedAt FROM Article a JOIN a.tags t " +
+           "WHERE a.published = true AND a.publishedAt >= :since")
+    List<Object[]> findTagPublicationsSince(@Param("since") LocalDateTime since);
+    
+    // (articleId, tag) rows of every published article
+    @Query("SELECT a.id, t FROM Article a JOIN a.tags t WHERE a.published = true")
+    List<Object[]> findPublishedArticleTags();
+    
+    // Tags of several articles in one query, as (articleId, tag) rows
+    @Query("SELECT a.id, t FROM Article a JOIN a.tags t WHERE a.id IN :ids")
+    List<Object[]> findTagsByArticleIds(@Param("ids") Collection<Long> ids);
+}
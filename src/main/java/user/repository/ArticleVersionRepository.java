@@ -1,9 +1,12 @@
 package user.repository;
 
+import com.medium_clone.user.dto.ArticleVersionSummary;
 import com.medium_clone.user.entity.ArticleVersion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,11 +15,28 @@ import java.util.Optional;
 @Repository
 public interface ArticleVersionRepository extends JpaRepository<ArticleVersion, Long> {
     
-    List<ArticleVersion> findByArticleIdOrderByVersionNumberDesc(Long articleId);
-    
     Optional<ArticleVersion> findByArticleIdAndVersionNumber(Long articleId, Integer versionNumber);
     
-    Page<ArticleVersion> findByArticleId(Long articleId, Pageable pageable);
+    Optional<ArticleVersion> findFirstByArticleIdOrderByVersionNumberDesc(Long articleId);
+    
+    // Latest version with exactly this content, to store a new one as a reference instead of a copy
+    Optional<ArticleVersion> findFirstByArticleIdAndContentHashOrderByVersionNumberDesc(Long articleId, String contentHash);
+    
+    // Versions whose delta applies to the given one
+    List<ArticleVersion> findByArticleIdAndBaseVersionNumber(Long articleId, Integer baseVersionNumber);
+    
+    // The next version takes MAX + 1: numbers below the latest are never reused, but deleting
+    // the latest version hands its number to the next save
+    @Query("SELECT COALESCE(MAX(v.versionNumber), 0) FROM ArticleVersion v WHERE v.article.id = :articleId")
+    int findMaxVersionNumber(@Param("articleId") Long articleId);
+    
+    // History page without content (see ArticleVersionSummary)
+    @Query(value = "SELECT new com.medium_clone.user.dto.ArticleVersionSummary(" +
+            "v.id, v.versionNumber, v.title, v.changeDescription, v.editorEmail, v.createdAt, " +
+            "v.contentLength, v.charsAdded, v.charsRemoved) " +
+            "FROM ArticleVersion v WHERE v.article.id = :articleId",
+            countQuery = "SELECT COUNT(v) FROM ArticleVersion v WHERE v.article.id = :articleId")
+    Page<ArticleVersionSummary> findByArticleId(@Param("articleId") Long articleId, Pageable pageable);
     
     Integer countByArticleId(Long articleId);
     
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +14,12 @@ import java.util.Optional;
 public interface TagRepository extends JpaRepository<Tag, Long> {
     Optional<Tag> findByNameIgnoreCase(String name);
 
+    // Tag sync: resolve a whole tag set in one IN query (names are stored lower-case)
+    @Query("SELECT t.name FROM Tag t WHERE t.name IN :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
+    List<Tag> findByNameIn(Collection<String> names);
+
     // Auto-complete: find tags starting with query
     List<Tag> findTop10ByNameStartingWithIgnoreCaseOrderByUsageCountDesc(String prefix);
 
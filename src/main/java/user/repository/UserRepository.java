@@ -2,8 +2,12 @@ package user.repository;
 
 import com.medium_clone.user.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +16,27 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
+    List<User> findByEmailIn(Collection<String> emails);
+
+    // Recipients of the daily recommendation run, in id pages
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId AND u.active = true " +
+           "AND u.receiveRecommendationNotifications = true ORDER BY u.id")
+    List<Long> findRecommendationRecipientIdsAfter(@Param("afterId") Long afterId,
+                                                   org.springframework.data.domain.Pageable pageable);
+
+    // Follow graph as ids, for home timeline fan-out and assembly
+    @Query("SELECT f.id FROM User u JOIN u.followers f WHERE u.id = :userId")
+    List<Long> findFollowerIds(@Param("userId") Long userId);
+
+    @Query("SELECT f.id FROM User u JOIN u.following f WHERE u.id = :userId")
+    List<Long> findFollowingIds(@Param("userId") Long userId);
+
+    @Query("SELECT COUNT(f) FROM User u JOIN u.followers f WHERE u.id = :userId")
+    long countFollowers(@Param("userId") Long userId);
+
+    // Authors among the given users with at least minFollowers followers
+    @Query("SELECT u.id FROM User u JOIN u.followers f WHERE u.id IN :userIds " +
+           "GROUP BY u.id HAVING COUNT(f) >= :minFollowers")
+    List<Long> findIdsWithFollowersAtLeast(@Param("userIds") Collection<Long> userIds,
+                                           @Param("minFollowers") long minFollowers);
 }
\ No newline at end of file
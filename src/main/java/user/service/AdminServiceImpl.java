@@ -8,6 +8,7 @@ import user.repository.CommentRepository;
 import user.repository.ArticleRepository;
 import user.repository.ArticleEngagementRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -22,14 +23,17 @@ public class AdminServiceImpl implements AdminService {
     private final CommentRepository commentRepository;
     private final ArticleRepository articleRepository;
     private final ArticleEngagementRepository engagementRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public AdminServiceImpl(UserRepository userRepository, CommentRepository commentRepository, 
-                          ArticleRepository articleRepository, ArticleEngagementRepository engagementRepository) {
+                          ArticleRepository articleRepository, ArticleEngagementRepository engagementRepository,
+                          ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.commentRepository = commentRepository;
         this.articleRepository = articleRepository;
         this.engagementRepository = engagementRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // User Management
@@ -128,8 +132,10 @@ public class AdminServiceImpl implements AdminService {
     public void rejectArticle(Long articleId) {
         Article article = articleRepository.findById(articleId)
                 .orElseThrow(() -> new IllegalArgumentException("Article not found"));
+        boolean wasPublished = article.isPublished();
         article.setPublished(false);
         articleRepository.save(article);
+        eventPublisher.publishEvent(ArticleChangedEvent.saved(article, wasPublished));
     }
 
     @Override
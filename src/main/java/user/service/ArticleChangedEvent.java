@@ -0,0 +1,62 @@
+package user.service;
+
+import com.medium_clone.user.entity.Article;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Published by the article write paths so in-memory indexes can follow changes.
+ * Carries a detached snapshot of the article, so listeners running after commit
+ * never need to touch the persistence context.
+ */
+public record ArticleChangedEvent(ChangeType changeType, ArticleSnapshot article, boolean previouslyPublished) {
+
+    public enum ChangeType {
+        SAVED,   // Created, updated, published, unpublished or restored
+        DELETED  // Removed from the database
+    }
+
+    public record ArticleSnapshot(Long id,
+                                  String title,
+                                  String summary,
+                                  String content,
+                                  Set<String> tags,
+                                  Long authorId,
+                                  String authorUsername,
+                                  boolean published,
+                                  LocalDateTime publishedAt,
+                                  LocalDateTime updatedAt) {
+
+        public static ArticleSnapshot of(Article article) {
+            return new ArticleSnapshot(
+                    article.getId(),
+                    article.getTitle(),
+                    article.getSummary(),
+                    article.getContent(),
+                    article.getTags() != null ? new HashSet<>(article.getTags()) : new HashSet<>(),
+                    article.getAuthor().getId(),
+                    article.getAuthor().getUsername(),
+                    article.isPublished(),
+                    article.getPublishedAt(),
+                    article.getUpdatedAt());
+        }
+    }
+
+    public static ArticleChangedEvent saved(Article article, boolean previouslyPublished) {
+        return new ArticleChangedEvent(ChangeType.SAVED, ArticleSnapshot.of(article), previouslyPublished);
+    }
+
+    public static ArticleChangedEvent deleted(Article article) {
+        return new ArticleChangedEvent(ChangeType.DELETED, ArticleSnapshot.of(article), article.isPublished());
+    }
+
+    public boolean isDeleted() {
+        return changeType == ChangeType.DELETED;
+    }
+
+    public boolean isNewlyPublished() {
+        return changeType == ChangeType.SAVED && article.published() && !previouslyPublished;
+    }
+}
@@ -0,0 +1,55 @@
+package user.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated article list: the sort key of the last
+ * article returned (publishedAt or viewCount) plus its id as tie-breaker.
+ * A publishedAt cursor without a date points into the tail of published
+ * articles that have none, which is ordered by id alone.
+ * Clients only ever see the opaque, URL-safe encoded form.
+ */
+public record ArticleCursor(LocalDateTime publishedAt, Integer viewCount, Long id) {
+
+    public static ArticleCursor byPublishedAt(LocalDateTime publishedAt, Long id) {
+        return new ArticleCursor(publishedAt, null, id);
+    }
+
+    public static ArticleCursor byViewCount(Integer viewCount, Long id) {
+        return new ArticleCursor(null, viewCount != null ? viewCount : 0, id);
+    }
+
+    public static ArticleCursor byId(Long id) {
+        return new ArticleCursor(null, null, id);
+    }
+
+    public String encode() {
+        String raw = (publishedAt != null ? publishedAt.toString() : "") + "|"
+                + (viewCount != null ? viewCount : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor received from a client; null or blank means the first page
+     */
+    public static ArticleCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new ArticleCursor(
+                    parts[0].isEmpty() ? null : LocalDateTime.parse(parts[0]),
+                    parts[1].isEmpty() ? null : Integer.valueOf(parts[1]),
+                    Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -2,29 +2,50 @@ package user.service;
 
 import com.medium_clone.user.dto.ArticleResponse;
 import com.medium_clone.user.dto.ArticleSearchRequest;
+import com.medium_clone.user.dto.ArticleSliceResponse;
 import com.medium_clone.user.dto.PersonalizedFeedRequest;
 import org.springframework.data.domain.Page;
 
 public interface ArticleDiscoveryService {
     
     // Personalized feed based on user's following and preferences
-    Page<ArticleResponse> getPersonalizedFeed(String userEmail, PersonalizedFeedRequest request);
+    ArticleSliceResponse getPersonalizedFeed(String userEmail, PersonalizedFeedRequest request);
+    
+    // Home timeline of articles from followed authors, newest first, cursor-paginated
+    ArticleSliceResponse getPersonalizedFeed(String userEmail, String cursor, int size);
     
     // Trending articles by engagement
     Page<ArticleResponse> getTrendingArticles(int page, int size);
     
+    // Trending articles by weighted engagement within the last hour, day or week
+    Page<ArticleResponse> getTrendingArticles(String window, int page, int size);
+    
     // Advanced search with multiple filters
     Page<ArticleResponse> advancedSearch(ArticleSearchRequest request);
     
     // Search by multiple tags
     Page<ArticleResponse> searchByTags(java.util.Set<String> tags, int page, int size);
     
+    // Articles carrying all (matchAll) or any of the tags, newest first
+    Page<ArticleResponse> searchByTags(java.util.Set<String> tags, boolean matchAll, int page, int size);
+    
     // Recent articles
     Page<ArticleResponse> getRecentArticles(int page, int size);
     
+    // Cursor-paginated trending and recent articles (no count query)
+    ArticleSliceResponse getTrendingArticles(String cursor, int size);
+    
+    ArticleSliceResponse getRecentArticles(String cursor, int size);
+    
     // Track article engagement (view, like, bookmark, share)
     void trackEngagement(String userEmail, Long articleId, String engagementType);
     
     // Get engagement statistics for an article
     java.util.Map<String, Long> getArticleEngagementStats(Long articleId);
+    
+    // Get engagement statistics for several articles in one round trip
+    java.util.Map<Long, java.util.Map<String, Long>> getArticleEngagementStats(java.util.List<Long> articleIds);
+    
+    // Queue depth, shed/rejected counts and batch latency of the engagement ingestion pipeline (admins only)
+    java.util.Map<String, Object> getIngestionMetrics(String userEmail);
 } 
\ No newline at end of file
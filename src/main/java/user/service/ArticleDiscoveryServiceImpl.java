@@ -2,17 +2,19 @@ package user.service;
 
 import com.medium_clone.user.dto.ArticleResponse;
 import com.medium_clone.user.dto.ArticleSearchRequest;
+import com.medium_clone.user.dto.ArticleSliceResponse;
+import com.medium_clone.user.dto.ArticleSummary;
 import com.medium_clone.user.dto.PersonalizedFeedRequest;
 import com.medium_clone.user.entity.Article;
 import com.medium_clone.user.entity.ArticleEngagement;
 import com.medium_clone.user.entity.User;
-import user.repository.ArticleEngagementRepository;
 import user.repository.ArticleRepository;
 import user.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,71 +26,180 @@ import java.util.stream.Collectors;
 @Service
 public class ArticleDiscoveryServiceImpl implements ArticleDiscoveryService {
 
+    // Top trending articles mixed into the personalized feed, whichever page is read
+    private static final int FEED_TRENDING_LIMIT = 100;
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+
     private final ArticleRepository articleRepository;
-    private final ArticleEngagementRepository engagementRepository;
     private final UserRepository userRepository;
-    private final NotificationService notificationService;
+    private final ArticleViewCounter viewCounter;
+    private final EngagementIngestionPipeline ingestionPipeline;
+    private final ClapAccumulator clapAccumulator;
+    private final EngagementStatsCache statsCache;
+    private final ArticleSearchIndex searchIndex;
+    private final ArticleSummaryLoader summaryLoader;
+    private final TagBitmapIndex tagIndex;
+    private final ArticleTrendingEngine trendingEngine;
+    private final HomeTimelineService homeTimeline;
+    private final FeedComposer feedComposer;
 
     @Autowired
     public ArticleDiscoveryServiceImpl(ArticleRepository articleRepository,
-                                     ArticleEngagementRepository engagementRepository,
                                      UserRepository userRepository,
-                                     NotificationService notificationService) {
+                                     ArticleViewCounter viewCounter,
+                                     EngagementIngestionPipeline ingestionPipeline,
+                                     ClapAccumulator clapAccumulator,
+                                     EngagementStatsCache statsCache,
+                                     ArticleSearchIndex searchIndex,
+                                     ArticleSummaryLoader summaryLoader,
+                                     TagBitmapIndex tagIndex,
+                                     ArticleTrendingEngine trendingEngine,
+                                     HomeTimelineService homeTimeline,
+                                     FeedComposer feedComposer) {
         this.articleRepository = articleRepository;
-        this.engagementRepository = engagementRepository;
         this.userRepository = userRepository;
-        this.notificationService = notificationService;
+        this.viewCounter = viewCounter;
+        this.ingestionPipeline = ingestionPipeline;
+        this.clapAccumulator = clapAccumulator;
+        this.statsCache = statsCache;
+        this.searchIndex = searchIndex;
+        this.summaryLoader = summaryLoader;
+        this.tagIndex = tagIndex;
+        this.trendingEngine = trendingEngine;
+        this.homeTimeline = homeTimeline;
+        this.feedComposer = feedComposer;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<ArticleResponse> getPersonalizedFeed(String userEmail, PersonalizedFeedRequest request) {
+    public ArticleSliceResponse getPersonalizedFeed(String userEmail, PersonalizedFeedRequest request) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        // The merged feed is ordered by date only; any other order would need a different merge
+        if (!"publishedAt".equals(request.getSortBy()) || !"desc".equalsIgnoreCase(request.getSortOrder())) {
+            throw new IllegalArgumentException("Personalized feed can only be sorted by publishedAt desc");
+        }
+        if (request.getSize() <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        int size = Math.min(request.getSize(), MAX_FEED_PAGE_SIZE);
 
-        Pageable pageable = createPageable(request.getSortBy(), request.getSortOrder(), request.getPage(), request.getSize());
-        
-        List<Article> personalizedArticles = new ArrayList<>();
+        ArticleCursor after = ArticleCursor.decode(request.getCursor());
+        List<FeedComposer.FeedSource> sources = new ArrayList<>();
 
-        // Get articles from followed authors
+        // Articles from followed authors, from the home timeline
         if (request.isIncludeFollowedAuthors()) {
-            Page<Article> followedAuthorArticles = articleRepository.findByAuthorUsernameInAndPublishedTrue(
-                user.getFollowing().stream().map(User::getUsername).collect(Collectors.toList()),
-                pageable
-            );
-            personalizedArticles.addAll(followedAuthorArticles.getContent());
+            Long userId = user.getId();
+            sources.add((cursor, limit) -> homeTimeline.read(userId, cursor, limit));
         }
 
-        // Get articles with followed tags
+        // Articles with followed tags
         if (request.isIncludeFollowedTags()) {
-            // This would need a more complex query to get articles with tags that user follows
-            // For now, we'll get articles with popular tags
-            Page<Article> taggedArticles = articleRepository.findByPublishedTrue(pageable);
-            personalizedArticles.addAll(taggedArticles.getContent());
+            // This would need the tags a user follows, which are not modelled yet
+            // For now, we'll page through all published articles
+            sources.add(this::publishedEntries);
         }
 
-        // Include trending articles
+        // Include trending articles: the top of the ranking is a bounded set, merged by date
         if (request.isIncludeTrending()) {
-            Page<Article> trendingArticles = getTrendingArticles(request.getPage(), request.getSize());
-            personalizedArticles.addAll(trendingArticles.getContent());
+            List<Long> trendingIds = trendingEngine.top(0, FEED_TRENDING_LIMIT);
+            List<HomeTimelineService.TimelineEntry> trending = trendingIds.isEmpty() ? new ArrayList<>()
+                    : articleRepository.findPublishedEntriesByIdIn(trendingIds).stream()
+                            .map(HomeTimelineService.TimelineEntry::of)
+                            .collect(Collectors.toList());
+            sources.add(FeedComposer.fixed(trending));
         }
 
-        // Remove duplicates and sort
-        List<Article> uniqueArticles = personalizedArticles.stream()
-                .distinct()
-                .sorted(Comparator.comparing(Article::getPublishedAt).reversed())
-                .collect(Collectors.toList());
+        // Newest first across all sources, de-duplicated; one extra entry tells whether there is more
+        List<HomeTimelineService.TimelineEntry> entries = feedComposer.merge(sources, after, size + 1);
+        boolean hasNext = entries.size() > size;
+        if (hasNext) {
+            entries = entries.subList(0, size);
+        }
+        // The feed cannot seek past an undated entry, so it ends there
+        ArticleCursor next = hasNext ? entries.get(entries.size() - 1).cursor() : null;
+        if (next != null && next.publishedAt() == null) {
+            hasNext = false;
+            next = null;
+        }
+        List<ArticleResponse> content = summaryLoader.loadPublishedInOrder(entries.stream()
+                .map(HomeTimelineService.TimelineEntry::articleId)
+                .collect(Collectors.toList()));
+        return ArticleSliceResponse.builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(next != null ? next.encode() : null)
+                .build();
+    }
 
-        // Convert to Page<ArticleResponse>
-        return createArticleResponsePage(uniqueArticles, pageable);
+    private List<HomeTimelineService.TimelineEntry> publishedEntries(ArticleCursor after, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        List<Object[]> rows = after == null || after.publishedAt() == null
+                ? articleRepository.findPublishedEntries(pageable)
+                : articleRepository.findPublishedEntriesAfter(after.publishedAt(), after.id(), pageable);
+        return rows.stream().map(HomeTimelineService.TimelineEntry::of).collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ArticleSliceResponse getPersonalizedFeed(String userEmail, String cursor, int size) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        size = Math.min(size, MAX_FEED_PAGE_SIZE);
+        // Read the precomputed home timeline; one extra entry tells whether there is a next page
+        List<HomeTimelineService.TimelineEntry> entries = homeTimeline.read(user.getId(), ArticleCursor.decode(cursor), size + 1);
+        boolean hasNext = entries.size() > size;
+        if (hasNext) {
+            entries = entries.subList(0, size);
+        }
+        List<ArticleResponse> content = summaryLoader.loadPublishedInOrder(entries.stream()
+                .map(HomeTimelineService.TimelineEntry::articleId)
+                .collect(Collectors.toList()));
+        return ArticleSliceResponse.builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? entries.get(entries.size() - 1).cursor().encode() : null)
+                .build();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ArticleResponse> getTrendingArticles(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "viewCount", "publishedAt"));
-        Page<Article> trendingArticles = articleRepository.findTrendingByViewsAndPublishedTrue(pageable);
-        return trendingArticles.map(this::mapToArticleResponse);
+        Pageable pageable = PageRequest.of(page, size);
+        // Ranked in memory by decayed engagement; only the page itself is loaded
+        if (trendingEngine.size() > 0) {
+            List<Long> ids = trendingEngine.top((int) pageable.getOffset(), size);
+            return new org.springframework.data.domain.PageImpl<>(summaryLoader.loadInOrder(ids), pageable, trendingEngine.size());
+        }
+        // No recent engagement at all (e.g. a fresh install): fall back to lifetime views
+        Page<ArticleSummary> trendingArticles = articleRepository.findTrendingSummaries(pageable);
+        // Persisted order may lag behind unflushed views, so re-rank the page on merged counts
+        List<ArticleResponse> content = summaryLoader.toResponses(trendingArticles.getContent()).stream()
+                .sorted(Comparator.comparing(ArticleResponse::getViewCount).reversed())
+                .collect(Collectors.toList());
+        return new org.springframework.data.domain.PageImpl<>(content, pageable, trendingArticles.getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ArticleResponse> getTrendingArticles(String window, int page, int size) {
+        if (window == null || window.isBlank()) {
+            return getTrendingArticles(page, size);
+        }
+        ArticleTrendingEngine.Window trendingWindow;
+        try {
+            trendingWindow = ArticleTrendingEngine.Window.valueOf(window.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid trending window: " + window);
+        }
+        Pageable pageable = PageRequest.of(page, size);
+        List<Long> ids = trendingEngine.top(trendingWindow, (int) pageable.getOffset(), size);
+        return new org.springframework.data.domain.PageImpl<>(summaryLoader.loadInOrder(ids), pageable, trendingEngine.size(trendingWindow));
     }
 
     @Override
@@ -96,6 +207,14 @@ public class ArticleDiscoveryServiceImpl implements ArticleDiscoveryService {
     public Page<ArticleResponse> advancedSearch(ArticleSearchRequest request) {
         Pageable pageable = createPageable(request.getSortBy(), request.getSortOrder(), request.getPage(), request.getSize());
         
+        // Keyword searches are answered by the in-memory index, ranked by relevance
+        if (request.getKeywords() != null && !request.getKeywords().trim().isEmpty()) {
+            Page<Long> ids = searchIndex.search(request.getKeywords(), request.getAuthorUsername(), request.getTags(),
+                    request.getFromDate(), request.getToDate(), request.isPublishedOnly(),
+                    PageRequest.of(request.getPage(), request.getSize()));
+            return new org.springframework.data.domain.PageImpl<>(summaryLoader.loadInOrder(ids.getContent()), pageable, ids.getTotalElements());
+        }
+
         Page<Article> articles = articleRepository.advancedSearchAndPublished(
             request.getKeywords(),
             request.getAuthorUsername(),
@@ -111,28 +230,55 @@ public class ArticleDiscoveryServiceImpl implements ArticleDiscoveryService {
     @Override
     @Transactional(readOnly = true)
     public Page<ArticleResponse> searchByTags(Set<String> tags, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "publishedAt"));
-        Page<Article> articles = articleRepository.findByMultipleTagsAndPublishedTrue(tags, (long) tags.size(), pageable);
-        return articles.map(this::mapToArticleResponse);
+        return searchByTags(tags, true, page, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ArticleResponse> searchByTags(Set<String> tags, boolean matchAll, int page, int size) {
+        // Tag intersections/unions come from the in-memory bitmaps, already newest first
+        Page<Long> ids = tagIndex.find(tags, matchAll, PageRequest.of(page, size));
+        return new org.springframework.data.domain.PageImpl<>(summaryLoader.loadInOrder(ids.getContent()), ids.getPageable(), ids.getTotalElements());
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ArticleResponse> getRecentArticles(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "publishedAt"));
-        Page<Article> recentArticles = articleRepository.findRecentArticlesAndPublishedTrue(pageable);
-        return recentArticles.map(this::mapToArticleResponse);
+        return summaryLoader.toPage(articleRepository.findPublishedSummaries(pageable));
     }
 
     @Override
-    @Transactional
-    public void trackEngagement(String userEmail, Long articleId, String engagementType) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+    @Transactional(readOnly = true)
+    public ArticleSliceResponse getTrendingArticles(String cursor, int size) {
+        // Seeks on the persisted view count so the order stays stable between pages
+        ArticleCursor after = ArticleCursor.decode(cursor);
+        Pageable pageable = PageRequest.of(0, size);
+        Slice<ArticleSummary> articles = after == null || after.viewCount() == null
+                ? articleRepository.findTrendingFirstSlice(pageable)
+                : articleRepository.findTrendingSliceAfter(after.viewCount(), after.id(), pageable);
+        return summaryLoader.toSliceResponse(articles, article -> ArticleCursor.byViewCount(article.getViewCount(), article.getId()));
+    }
 
-        Article article = articleRepository.findByIdAndPublishedTrue(articleId)
-                .orElseThrow(() -> new IllegalArgumentException("Article not found"));
+    @Override
+    @Transactional(readOnly = true)
+    public ArticleSliceResponse getRecentArticles(String cursor, int size) {
+        ArticleCursor after = ArticleCursor.decode(cursor);
+        Pageable pageable = PageRequest.of(0, size);
+        Slice<ArticleSummary> articles;
+        if (after == null) {
+            articles = articleRepository.findPublishedFirstSlice(pageable);
+        } else if (after.publishedAt() != null) {
+            articles = articleRepository.findPublishedSliceAfter(after.publishedAt(), after.id(), pageable);
+        } else {
+            // The last page ended in the undated tail
+            articles = articleRepository.findUndatedPublishedSliceAfter(after.id(), pageable);
+        }
+        return summaryLoader.toSliceResponse(articles, article -> ArticleCursor.byPublishedAt(article.getPublishedAt(), article.getId()));
+    }
 
+    @Override
+    public void trackEngagement(String userEmail, Long articleId, String engagementType) {
         ArticleEngagement.EngagementType type;
         try {
             type = ArticleEngagement.EngagementType.valueOf(engagementType.toUpperCase());
@@ -140,76 +286,42 @@ public class ArticleDiscoveryServiceImpl implements ArticleDiscoveryService {
             throw new IllegalArgumentException("Invalid engagement type: " + engagementType);
         }
 
+        // Claps are capped and aggregated in memory, then flushed in batches
         if (type == ArticleEngagement.EngagementType.CLAP) {
-            // Medium-style claps: increment up to 50 per user per article
-            Optional<ArticleEngagement> existingClap = engagementRepository
-                    .findByArticleIdAndUserIdAndTypeAndPublishedTrue(articleId, user.getId(), type);
-            int maxClaps = 50;
-            if (existingClap.isPresent()) {
-                ArticleEngagement engagement = existingClap.get();
-                int current = engagement.getCount() != null ? engagement.getCount() : 0;
-                if (current < maxClaps) {
-                    engagement.setCount(Math.min(current + 1, maxClaps));
-                    engagement.setCreatedAt(LocalDateTime.now());
-                    engagementRepository.save(engagement);
-                }
-            } else {
-                ArticleEngagement engagement = ArticleEngagement.builder()
-                        .article(article)
-                        .user(user)
-                        .type(type)
-                        .count(1)
-                        .build();
-                engagementRepository.save(engagement);
-            }
-            // Notify article author if not clapping own article
-            if (!article.getAuthor().getId().equals(user.getId())) {
-                notificationService.notifyClap(article.getAuthor(), user, article);
-            }
+            clapAccumulator.clap(userEmail, articleId);
             return;
         }
 
-        // Check if engagement already exists (for other types)
-        Optional<ArticleEngagement> existingEngagement = engagementRepository
-                .findByArticleIdAndUserIdAndTypeAndPublishedTrue(articleId, user.getId(), type);
-
-        if (existingEngagement.isPresent()) {
-            // Update existing engagement timestamp
-            ArticleEngagement engagement = existingEngagement.get();
-            engagement.setCreatedAt(LocalDateTime.now());
-            engagementRepository.save(engagement);
-        } else {
-            // Create new engagement
-            ArticleEngagement engagement = ArticleEngagement.builder()
-                    .article(article)
-                    .user(user)
-                    .type(type)
-                    .build();
-            engagementRepository.save(engagement);
-        }
+        // User/article resolution and the upsert happen in batches on the ingestion consumer
+        ingestionPipeline.submit(new EngagementIngestionPipeline.EngagementEvent(
+                userEmail, articleId, type, LocalDateTime.now()));
+    }
 
-        // Update article view count if it's a view
-        if (type == ArticleEngagement.EngagementType.VIEW) {
-            article.setViewCount(article.getViewCount() + 1);
-            articleRepository.save(article);
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getIngestionMetrics(String userEmail) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        if (!user.isAdmin()) {
+            throw new IllegalArgumentException("Admin access required");
         }
+        return ingestionPipeline.getMetrics();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Map<String, Long> getArticleEngagementStats(Long articleId) {
-        Map<String, Long> stats = new HashMap<>();
-        
-        for (ArticleEngagement.EngagementType type : ArticleEngagement.EngagementType.values()) {
-            Long count = engagementRepository.countByArticleIdAndTypeAndPublishedTrue(articleId, type);
-            stats.put(type.name().toLowerCase(), count);
-        }
-        
-        return stats;
+        return statsCache.getStats(articleId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Map<String, Long>> getArticleEngagementStats(List<Long> articleIds) {
+        return statsCache.getStats(articleIds);
     }
 
     public Long getTotalClaps(Long articleId) {
-        return engagementRepository.sumClapsByArticleIdAndPublishedTrue(articleId);
+        return clapAccumulator.getTotalClaps(articleId);
     }
 
     private Pageable createPageable(String sortBy, String sortOrder, int page, int size) {
@@ -220,23 +332,11 @@ public class ArticleDiscoveryServiceImpl implements ArticleDiscoveryService {
         return PageRequest.of(page, size, sort);
     }
 
-    private Page<ArticleResponse> createArticleResponsePage(List<Article> articles, Pageable pageable) {
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), articles.size());
-        
-        List<ArticleResponse> content = articles.subList(start, end)
-                .stream()
-                .map(this::mapToArticleResponse)
-                .collect(Collectors.toList());
-        
-        return new org.springframework.data.domain.PageImpl<>(content, pageable, articles.size());
-    }
-
+    // List item mapping: content is only served by the single-article endpoints
     private ArticleResponse mapToArticleResponse(Article article) {
         return ArticleResponse.builder()
                 .id(article.getId())
                 .title(article.getTitle())
-                .content(article.getContent())
                 .summary(article.getSummary())
                 .tags(article.getTags())
                 .coverImageUrl(article.getCoverImageUrl())
@@ -248,7 +348,7 @@ public class ArticleDiscoveryServiceImpl implements ArticleDiscoveryService {
                 .updatedAt(article.getUpdatedAt())
                 .publishedAt(article.getPublishedAt())
                 .readTime(article.getReadTime())
-                .viewCount(article.getViewCount())
+                .viewCount(viewCounter.mergedViewCount(article.getId(), article.getViewCount()))
                 .build();
     }
 } 
\ No newline at end of file
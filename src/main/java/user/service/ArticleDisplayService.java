@@ -12,6 +12,11 @@ public interface ArticleDisplayService {
      */
     ArticleDisplayResponse getArticleForDisplay(String slug, String userEmail);
     
+    /**
+     * Get pre-rendered HTML and table of contents of an article
+     */
+    Map<String, Object> getRenderedContent(ArticleResponse article);
+    
     /**
      * Get article preview without tracking
      */
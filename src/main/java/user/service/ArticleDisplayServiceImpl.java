@@ -1,28 +1,53 @@
 package user.service;
 
 import com.medium_clone.user.dto.ArticleDisplayResponse;
+import com.medium_clone.user.dto.ArticleMetricsView;
 import com.medium_clone.user.dto.ArticleResponse;
+import com.medium_clone.user.dto.ArticleSummary;
+import com.medium_clone.user.dto.TableOfContentsEntry;
+import com.medium_clone.user.entity.Article;
+import com.medium_clone.user.entity.ContentMetrics;
+import user.repository.ArticleRepository;
 import user.util.ArticleUtils;
+import user.util.ContentAnalyzer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class ArticleDisplayServiceImpl implements ArticleDisplayService {
 
     private final ArticleService articleService;
     private final ArticleDiscoveryService discoveryService;
+    private final ArticleRelatedIndex relatedIndex;
+    private final ArticleSummaryLoader summaryLoader;
+    private final ArticleRepository articleRepository;
+    private final ArticleHtmlCache htmlCache;
+    private final ArticleViewCounter viewCounter;
 
     @Autowired
-    public ArticleDisplayServiceImpl(ArticleService articleService, ArticleDiscoveryService discoveryService) {
+    public ArticleDisplayServiceImpl(ArticleService articleService,
+                                     ArticleDiscoveryService discoveryService,
+                                     ArticleRelatedIndex relatedIndex,
+                                     ArticleSummaryLoader summaryLoader,
+                                     ArticleRepository articleRepository,
+                                     ArticleHtmlCache htmlCache,
+                                     ArticleViewCounter viewCounter) {
         this.articleService = articleService;
         this.discoveryService = discoveryService;
+        this.relatedIndex = relatedIndex;
+        this.summaryLoader = summaryLoader;
+        this.articleRepository = articleRepository;
+        this.htmlCache = htmlCache;
+        this.viewCounter = viewCounter;
     }
 
     @Override
@@ -43,10 +68,19 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
         return buildArticleDisplayResponse(article, engagementStats, userEmail);
     }
 
+    @Override
+    public Map<String, Object> getRenderedContent(ArticleResponse article) {
+        ArticleHtmlCache.RenderedContent rendered = htmlCache.htmlFor(article.getId(), article.getContent());
+        Map<String, Object> content = new HashMap<>();
+        content.put("html", rendered.html());
+        content.put("tableOfContents", tableOfContents(rendered));
+        return content;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public ArticleDisplayResponse getArticlePreview(String slug) {
-        ArticleResponse article = articleService.getArticleBySlug(slug);
+        ArticleResponse article = articleService.previewArticleBySlug(slug);
         Map<String, Long> engagementStats = discoveryService.getArticleEngagementStats(article.getId());
         
         return buildArticleDisplayResponse(article, engagementStats, null);
@@ -55,17 +89,20 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
     @Override
     @Transactional(readOnly = true)
     public Map<String, Object> getArticleStats(String slug) {
-        ArticleResponse article = articleService.getArticleBySlug(slug);
+        ArticleMetricsView article = publishedMetricsOf(slug);
         Map<String, Long> engagementStats = discoveryService.getArticleEngagementStats(article.getId());
+        // Views not yet flushed to the row count too
+        int viewCount = viewCounter.mergedViewCount(article.getId(), article.getViewCount());
         
         Map<String, Object> stats = new HashMap<>();
-        stats.put("viewCount", article.getViewCount());
-        stats.put("formattedViewCount", ArticleUtils.formatViewCount(article.getViewCount()));
+        stats.put("viewCount", viewCount);
+        stats.put("formattedViewCount", ArticleUtils.formatViewCount(viewCount));
         stats.put("readTime", article.getReadTime());
         stats.put("engagement", engagementStats);
-        stats.put("engagementRate", calculateEngagementRate(article.getViewCount(), engagementStats));
-        stats.put("contentQuality", calculateContentQualityScore(article.getContent()));
-        stats.put("readingLevel", assessReadingLevel(article.getContent()));
+        stats.put("engagementRate", calculateEngagementRate(viewCount, engagementStats));
+        ContentMetrics metrics = metricsOf(article);
+        stats.put("contentQuality", qualityScore(metrics));
+        stats.put("readingLevel", readingLevel(metrics));
         
         return stats;
     }
@@ -73,7 +110,7 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
     @Override
     @Transactional
     public Map<String, Object> trackReadingProgress(String slug, String userEmail, int scrollPercentage) {
-        ArticleResponse article = articleService.getArticleBySlug(slug);
+        ArticleMetricsView article = publishedMetricsOf(slug);
         
         // Track reading progress
         if (scrollPercentage > 50 && userEmail != null) {
@@ -96,14 +133,14 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
     @Override
     @Transactional(readOnly = true)
     public Map<String, Object> getRelatedArticles(String slug, int limit) {
-        ArticleResponse article = articleService.getArticleBySlug(slug);
+        ArticleResponse article = summaryLoader.toResponses(List.of(publishedSummaryOf(slug))).get(0);
         
         Map<String, Object> related = new HashMap<>();
         related.put("articleId", article.getId());
         related.put("tags", article.getTags());
         related.put("author", article.getAuthorUsername());
         related.put("limit", limit);
-        related.put("message", "Related articles would be fetched based on tags and author");
+        related.put("articles", summaryLoader.loadPublishedInOrder(relatedIndex.related(article.getId(), limit)));
         
         return related;
     }
@@ -113,42 +150,7 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
         if (content == null || content.trim().isEmpty()) {
             return 0.0;
         }
-
-        double score = 0.0;
-        
-        // Word count (0-25 points)
-        int wordCount = content.split("\\s+").length;
-        score += Math.min(25, wordCount / 10);
-        
-        // Paragraph count (0-15 points)
-        int paragraphCount = content.split("\n\n").length;
-        score += Math.min(15, paragraphCount * 2);
-        
-        // Headers (0-15 points)
-        int headerCount = countOccurrences(content, "\n#");
-        score += Math.min(15, headerCount * 3);
-        
-        // Images (0-10 points)
-        int imageCount = countOccurrences(content, "![");
-        score += Math.min(10, imageCount * 2);
-        
-        // Code blocks (0-10 points)
-        int codeBlockCount = countOccurrences(content, "```") / 2;
-        score += Math.min(10, codeBlockCount * 2);
-        
-        // Links (0-10 points)
-        int linkCount = countOccurrences(content, "](http");
-        score += Math.min(10, linkCount * 2);
-        
-        // Lists (0-10 points)
-        int listCount = countOccurrences(content, "\n- ") + countOccurrences(content, "\n* ");
-        score += Math.min(10, listCount);
-        
-        // Bold/italic text (0-5 points)
-        int formattingCount = countOccurrences(content, "**") + countOccurrences(content, "*");
-        score += Math.min(5, formattingCount / 2);
-        
-        return Math.min(100, score);
+        return qualityScore(ContentAnalyzer.analyze(content));
     }
 
     @Override
@@ -176,25 +178,10 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
 
     @Override
     public Map<String, Object> analyzeContentStructure(String content) {
-        Map<String, Object> structure = new HashMap<>();
-        
         if (content == null || content.trim().isEmpty()) {
-            return structure;
+            return new HashMap<>();
         }
-        
-        structure.put("wordCount", content.split("\\s+").length);
-        structure.put("paragraphCount", content.split("\n\n").length);
-        structure.put("sentenceCount", content.split("[.!?]+").length);
-        structure.put("headerCount", countOccurrences(content, "\n#"));
-        structure.put("imageCount", countOccurrences(content, "!["));
-        structure.put("codeBlockCount", countOccurrences(content, "```") / 2);
-        structure.put("linkCount", countOccurrences(content, "](http"));
-        structure.put("listCount", countOccurrences(content, "\n- ") + countOccurrences(content, "\n* "));
-        structure.put("hasTableOfContents", content.contains("## Table of Contents") || content.contains("## Contents"));
-        structure.put("averageWordsPerParagraph", calculateAverageWordsPerParagraph(content));
-        structure.put("readingComplexity", assessReadingLevel(content));
-        
-        return structure;
+        return structureOf(ContentAnalyzer.analyze(content));
     }
 
     @Override
@@ -202,25 +189,7 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
         if (content == null || content.trim().isEmpty()) {
             return "Unknown";
         }
-
-        // Simple Flesch Reading Ease calculation
-        int sentences = content.split("[.!?]+").length;
-        int words = content.split("\\s+").length;
-        int syllables = countSyllables(content);
-        
-        if (sentences == 0 || words == 0) {
-            return "Unknown";
-        }
-        
-        double fleschScore = 206.835 - (1.015 * (words / (double) sentences)) - (84.6 * (syllables / (double) words));
-        
-        if (fleschScore >= 90) return "Very Easy";
-        else if (fleschScore >= 80) return "Easy";
-        else if (fleschScore >= 70) return "Fairly Easy";
-        else if (fleschScore >= 60) return "Standard";
-        else if (fleschScore >= 50) return "Fairly Difficult";
-        else if (fleschScore >= 30) return "Difficult";
-        else return "Very Difficult";
+        return readingLevel(ContentAnalyzer.analyze(content));
     }
 
     @Override
@@ -240,18 +209,21 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
     @Override
     @Transactional(readOnly = true)
     public Map<String, Object> getPerformanceInsights(String slug) {
-        ArticleResponse article = articleService.getArticleBySlug(slug);
+        ArticleSummary summary = publishedSummaryOf(slug);
+        ArticleResponse article = summaryLoader.toResponses(List.of(summary)).get(0);
         Map<String, Long> engagementStats = discoveryService.getArticleEngagementStats(article.getId());
+        int viewCount = viewCounter.mergedViewCount(summary.getId(), summary.getViewCount());
         
         Map<String, Object> insights = new HashMap<>();
-        insights.put("viewCount", article.getViewCount());
+        insights.put("viewCount", viewCount);
         insights.put("readTime", article.getReadTime());
-        insights.put("engagementRate", calculateEngagementRate(article.getViewCount(), engagementStats));
-        insights.put("contentQuality", calculateContentQualityScore(article.getContent()));
-        insights.put("readingLevel", assessReadingLevel(article.getContent()));
-        insights.put("isPopular", article.getViewCount() > 1000);
-        insights.put("isTrending", article.getViewCount() > 5000);
-        insights.put("optimizationScore", calculateOptimizationScore(article));
+        insights.put("engagementRate", calculateEngagementRate(viewCount, engagementStats));
+        ContentMetrics metrics = metricsOf(article.getId());
+        insights.put("contentQuality", qualityScore(metrics));
+        insights.put("readingLevel", readingLevel(metrics));
+        insights.put("isPopular", viewCount > 1000);
+        insights.put("isTrending", viewCount > 5000);
+        insights.put("optimizationScore", calculateOptimizationScore(article, metrics));
         
         return insights;
     }
@@ -274,7 +246,8 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
     @Override
     @Transactional(readOnly = true)
     public Map<String, Object> validateArticle(String slug) {
-        ArticleResponse article = articleService.getArticleBySlug(slug);
+        ArticleResponse article = articleService.previewArticleBySlug(slug);
+        ContentMetrics metrics = metricsOf(article);
         
         Map<String, Object> validation = new HashMap<>();
         validation.put("isValid", true);
@@ -293,17 +266,17 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
         }
         
         // Check for images
-        if (!article.getContent().contains("![") && article.getCoverImageUrl() == null) {
+        if (metrics.getImageCount() == 0 && article.getCoverImageUrl() == null) {
             ((Map<String, String>) validation.get("suggestions")).put("images", "Consider adding images to make your article more engaging");
         }
         
         // Check for headers
-        if (!article.getContent().contains("\n#")) {
+        if (metrics.getHeaderCount() == 0) {
             ((Map<String, String>) validation.get("suggestions")).put("headers", "Consider adding headers to structure your content");
         }
         
-        validation.put("qualityScore", calculateContentQualityScore(article.getContent()));
-        validation.put("readingLevel", assessReadingLevel(article.getContent()));
+        validation.put("qualityScore", qualityScore(metrics));
+        validation.put("readingLevel", readingLevel(metrics));
         
         return validation;
     }
@@ -313,10 +286,14 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
     private ArticleDisplayResponse buildArticleDisplayResponse(ArticleResponse article, 
                                                              Map<String, Long> engagementStats, 
                                                              String userEmail) {
+        ContentMetrics metrics = metricsOf(article);
+        ArticleHtmlCache.RenderedContent rendered = htmlCache.htmlFor(article.getId(), article.getContent());
         return ArticleDisplayResponse.builder()
                 .id(article.getId())
                 .title(article.getTitle())
                 .content(article.getContent())
+                .html(rendered.html())
+                .tableOfContents(tableOfContents(rendered))
                 .summary(article.getSummary())
                 .tags(article.getTags())
                 .coverImageUrl(article.getCoverImageUrl())
@@ -338,21 +315,31 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
                 .metaDescription(generateMetaDescription(article))
                 .ogImage(article.getCoverImageUrl())
                 .canonicalUrl("/articles/" + article.getSlug())
-                .hasImages(article.getContent().contains("![") || article.getCoverImageUrl() != null)
-                .hasCodeBlocks(article.getContent().contains("```"))
-                .hasLinks(article.getContent().contains("](http"))
-                .wordCount(article.getContent().split("\\s+").length)
-                .paragraphCount(article.getContent().split("\n\n").length)
+                .hasImages(metrics.getImageCount() > 0 || article.getCoverImageUrl() != null)
+                .hasCodeBlocks(metrics.getCodeBlockCount() > 0)
+                .hasLinks(metrics.getLinkCount() > 0)
+                .wordCount(metrics.getWordCount())
+                .paragraphCount(metrics.getParagraphCount())
                 .shareCount(engagementStats.getOrDefault("share", 0L).intValue())
                 .bookmarkCount(engagementStats.getOrDefault("bookmark", 0L).intValue())
                 .commentCount(engagementStats.getOrDefault("comment", 0L).intValue())
                 .publicationStatus(article.isPublished() ? "Published" : "Draft")
                 .lastModified(article.getUpdatedAt())
-                .readingLevel(assessReadingLevel(article.getContent()))
+                .readingLevel(readingLevel(metrics))
                 .language("en")
                 .build();
     }
 
+    private List<TableOfContentsEntry> tableOfContents(ArticleHtmlCache.RenderedContent rendered) {
+        return rendered.headings().stream()
+                .map(heading -> TableOfContentsEntry.builder()
+                        .level(heading.getLevel())
+                        .title(heading.getTitle())
+                        .anchor(heading.getAnchor())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
     private String formatReadTime(int minutes) {
         if (minutes < 1) {
             return "Less than 1 min read";
@@ -376,48 +363,91 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
         return (int) Math.ceil((totalMinutes * remainingPercentage) / 100.0);
     }
 
-    private int countOccurrences(String text, String substring) {
-        if (text == null || substring == null) {
-            return 0;
-        }
-        
-        int count = 0;
-        int lastIndex = 0;
-        
-        while (lastIndex != -1) {
-            lastIndex = text.indexOf(substring, lastIndex);
-            if (lastIndex != -1) {
-                count++;
-                lastIndex += substring.length();
-            }
-        }
-        
-        return count;
+    // For endpoints that are not a read of the article: no view is counted and the content is not loaded
+    private ArticleSummary publishedSummaryOf(String slug) {
+        return articleRepository.findPublishedSummaryBySlug(slug)
+                .orElseThrow(() -> new IllegalArgumentException("Article not found"));
     }
 
-    private double calculateAverageWordsPerParagraph(String content) {
-        String[] paragraphs = content.split("\n\n");
-        if (paragraphs.length == 0) return 0;
-        
-        int totalWords = content.split("\\s+").length;
-        return (double) totalWords / paragraphs.length;
+    // Id, read time, views and stored metrics in one query
+    private ArticleMetricsView publishedMetricsOf(String slug) {
+        return articleRepository.findPublishedMetricsBySlug(slug)
+                .orElseThrow(() -> new IllegalArgumentException("Article not found"));
     }
 
-    private int countSyllables(String text) {
-        // Simple syllable counting - count vowel groups
-        String lowerText = text.toLowerCase();
-        int syllables = 0;
-        boolean prevVowel = false;
-        
-        for (char c : lowerText.toCharArray()) {
-            boolean isVowel = "aeiouy".indexOf(c) >= 0;
-            if (isVowel && !prevVowel) {
-                syllables++;
-            }
-            prevVowel = isVowel;
+    // Metrics stored at write time; computed here only for rows written before they existed.
+    // The article was loaded by this transaction, so findById is served from the
+    // persistence context and costs no query.
+    private ContentMetrics metricsOf(ArticleResponse article) {
+        ContentMetrics metrics = articleRepository.findById(article.getId())
+                .map(Article::getContentMetrics)
+                .orElse(null);
+        return metrics != null ? metrics : ContentAnalyzer.analyze(article.getContent());
+    }
+
+    private ContentMetrics metricsOf(ArticleMetricsView article) {
+        ContentMetrics metrics = article.getContentMetrics();
+        return metrics != null ? metrics : ContentAnalyzer.analyze(articleRepository.findContentById(article.getId()));
+    }
+
+    private ContentMetrics metricsOf(Long articleId) {
+        ContentMetrics metrics = articleRepository.findContentMetricsById(articleId);
+        return metrics != null ? metrics : ContentAnalyzer.analyze(articleRepository.findContentById(articleId));
+    }
+
+    private double qualityScore(ContentMetrics metrics) {
+        if (metrics.getWordCount() == 0) {
+            return 0.0;
         }
-        
-        return Math.max(1, syllables);
+
+        double score = 0.0;
+        score += Math.min(25, metrics.getWordCount() / 10);          // Word count (0-25 points)
+        score += Math.min(15, metrics.getParagraphCount() * 2);      // Paragraphs (0-15 points)
+        score += Math.min(15, metrics.getHeaderCount() * 3);         // Headers (0-15 points)
+        score += Math.min(10, metrics.getImageCount() * 2);          // Images (0-10 points)
+        score += Math.min(10, metrics.getCodeBlockCount() * 2);      // Code blocks (0-10 points)
+        score += Math.min(10, metrics.getLinkCount() * 2);           // Links (0-10 points)
+        score += Math.min(10, metrics.getListCount());               // Lists (0-10 points)
+        score += Math.min(5, metrics.getFormattingCount());          // Bold/italic text (0-5 points)
+
+        return Math.min(100, score);
+    }
+
+    private String readingLevel(ContentMetrics metrics) {
+        int sentences = metrics.getSentenceCount();
+        int words = metrics.getWordCount();
+        if (sentences == 0 || words == 0) {
+            return "Unknown";
+        }
+
+        // Simple Flesch Reading Ease calculation
+        int syllables = Math.max(1, metrics.getSyllableCount());
+        double fleschScore = 206.835 - (1.015 * (words / (double) sentences)) - (84.6 * (syllables / (double) words));
+
+        if (fleschScore >= 90) return "Very Easy";
+        else if (fleschScore >= 80) return "Easy";
+        else if (fleschScore >= 70) return "Fairly Easy";
+        else if (fleschScore >= 60) return "Standard";
+        else if (fleschScore >= 50) return "Fairly Difficult";
+        else if (fleschScore >= 30) return "Difficult";
+        else return "Very Difficult";
+    }
+
+    private Map<String, Object> structureOf(ContentMetrics metrics) {
+        Map<String, Object> structure = new HashMap<>();
+        structure.put("wordCount", metrics.getWordCount());
+        structure.put("paragraphCount", metrics.getParagraphCount());
+        structure.put("sentenceCount", metrics.getSentenceCount());
+        structure.put("headerCount", metrics.getHeaderCount());
+        structure.put("imageCount", metrics.getImageCount());
+        structure.put("codeBlockCount", metrics.getCodeBlockCount());
+        structure.put("linkCount", metrics.getLinkCount());
+        structure.put("listCount", metrics.getListCount());
+        structure.put("hasTableOfContents", metrics.getHasTableOfContents());
+        structure.put("averageWordsPerParagraph", metrics.getParagraphCount() == 0 ? 0.0
+                : (double) metrics.getWordCount() / metrics.getParagraphCount());
+        structure.put("readingComplexity", readingLevel(metrics));
+        return structure;
     }
 
     private String findMostPopularEngagement(Map<String, Long> engagementStats) {
@@ -436,7 +466,7 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
         return "Read " + article.getTitle() + " by " + article.getAuthorUsername();
     }
 
-    private double calculateOptimizationScore(ArticleResponse article) {
+    private double calculateOptimizationScore(ArticleResponse article, ContentMetrics metrics) {
         double score = 0.0;
         
         // Title optimization (0-20 points)
@@ -449,7 +479,7 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
         }
         
         // Content length (0-20 points)
-        int wordCount = article.getContent().split("\\s+").length;
+        int wordCount = metrics.getWordCount();
         if (wordCount >= 300) {
             score += 20;
         } else if (wordCount >= 150) {
@@ -461,7 +491,7 @@ public class ArticleDisplayServiceImpl implements ArticleDisplayService {
         // Images (0-15 points)
         if (article.getCoverImageUrl() != null) {
             score += 15;
-        } else if (article.getContent().contains("![") && article.getContent().contains("](")) {
+        } else if (metrics.getImageCount() > 0) {
             score += 10;
         }
         
@@ -0,0 +1,128 @@
+package user.service;
+
+import com.medium_clone.user.entity.ArticleHeading;
+import com.medium_clone.user.entity.ArticleRendering;
+import user.repository.ArticleRenderingRepository;
+import user.util.ArticleUtils;
+import user.util.MarkdownRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pre-rendered HTML of published articles.
+ * Markdown is rendered once, after the publish or update commits, and stored
+ * keyed by article id and content hash together with its table of contents.
+ * The display path only looks the rendering up; rows written before renderings
+ * existed are rendered on first view and cached the same way.
+ */
+@Component
+public class ArticleHtmlCache {
+
+    private static final int MAX_HEADING_LENGTH = 500;
+
+    // Backfills the hash of rows written before it existed, so findCurrent can match them
+    private static final String BACKFILL_HASH_SQL =
+            "UPDATE articles SET content_hash = ? WHERE id = ? AND content_hash IS NULL";
+
+    private final ArticleRenderingRepository renderingRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+
+    @Autowired
+    public ArticleHtmlCache(ArticleRenderingRepository renderingRepository,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager) {
+        this.renderingRepository = renderingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Listeners run after the article's own transaction committed, and lookups may run inside a read-only one
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public record RenderedContent(String html, List<ArticleHeading> headings) {
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        ArticleChangedEvent.ArticleSnapshot article = event.article();
+        try {
+            if (event.isDeleted() || !article.published()) {
+                writeTransaction.executeWithoutResult(status ->
+                        renderingRepository.deleteAll(renderingRepository.findByArticleId(article.id())));
+            } else {
+                store(article.id(), article.content());
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to render article " + article.id() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * HTML and table of contents of the article's current content.
+     * Served from the stored rendering; rendered and stored when there is none yet.
+     */
+    public RenderedContent htmlFor(Long articleId, String content) {
+        Optional<ArticleRendering> current = renderingRepository.findCurrent(articleId);
+        if (current.isPresent()) {
+            return new RenderedContent(current.get().getHtml(), List.copyOf(current.get().getHeadings()));
+        }
+        try {
+            return store(articleId, content);
+        } catch (DataIntegrityViolationException e) {
+            // Another request stored the same rendering first
+            return render(content);
+        }
+    }
+
+    private RenderedContent store(Long articleId, String content) {
+        String contentHash = ArticleUtils.contentHash(content);
+        return writeTransaction.execute(status -> {
+            RenderedContent rendered = null;
+            List<ArticleRendering> renderings = renderingRepository.findByArticleId(articleId);
+            for (ArticleRendering rendering : renderings) {
+                if (rendering.getContentHash().equals(contentHash)) {
+                    rendered = new RenderedContent(rendering.getHtml(), List.copyOf(rendering.getHeadings()));
+                } else {
+                    renderingRepository.delete(rendering); // Stale: rendered from earlier content
+                }
+            }
+            if (rendered == null) {
+                rendered = render(content);
+                renderingRepository.save(ArticleRendering.builder()
+                        .articleId(articleId)
+                        .contentHash(contentHash)
+                        .html(rendered.html())
+                        .headings(new ArrayList<>(rendered.headings()))
+                        .renderedAt(LocalDateTime.now())
+                        .build());
+            }
+            jdbcTemplate.update(BACKFILL_HASH_SQL, contentHash, articleId);
+            return rendered;
+        });
+    }
+
+    private static RenderedContent render(String content) {
+        MarkdownRenderer.Rendered rendered = MarkdownRenderer.render(content);
+        List<ArticleHeading> headings = rendered.headings().stream()
+                .map(heading -> new ArticleHeading(heading.level(),
+                        truncate(heading.title()), truncate(heading.anchor())))
+                .toList();
+        return new RenderedContent(rendered.html(), headings);
+    }
+
+    private static String truncate(String value) {
+        return value.length() > MAX_HEADING_LENGTH ? value.substring(0, MAX_HEADING_LENGTH) : value;
+    }
+}
@@ -0,0 +1,599 @@
+package user.service;
+
+import com.medium_clone.user.entity.Article;
+import user.repository.ArticleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Content-based related articles.
+ * Every published article gets a TF-IDF vector over its title, tags and
+ * content, trimmed to its max-terms strongest terms and L2-normalised, so
+ * cosine similarity is a merge of two short sorted arrays. Vectors are kept in
+ * an HNSW graph (layered small-world neighbour lists) and a lookup visits a few
+ * hundred nodes instead of the whole corpus. The approximate neighbours are
+ * re-ranked with a boost for shared tags and for the same author.
+ *
+ * Publishing or editing an article re-inserts it with IDF from the current
+ * document frequencies; unpublishing or deleting leaves a tombstone that is
+ * still walked but never returned. Once a quarter of the nodes are tombstones
+ * a scheduled check (not the commit that made them) rebuilds the graph from
+ * the live vectors outside the lock and swaps it in, and a periodic rebuild
+ * from the database refreshes IDF weights that drifted as the corpus grew.
+ */
+@Component
+public class ArticleRelatedIndex {
+
+    private static final int REBUILD_PAGE_SIZE = 500;
+    private static final int MIN_TOKEN_LENGTH = 3;
+    private static final int MAX_LEVEL = 16;
+    private static final int COMPACT_MIN_NODES = 64;
+    private static final int MAX_LIMIT = 100;
+
+    // Field weights applied to term frequency
+    private static final double TITLE_WEIGHT = 3.0;
+    private static final double TAG_WEIGHT = 2.0;
+    private static final double CONTENT_WEIGHT = 1.0;
+
+    private final ArticleRepository articleRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxTerms;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double tagBoost;
+    private final double authorBoost;
+    private final double levelFactor;
+    private final Random random = new Random();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Graph graph = new Graph(new HashMap<>(), new int[1024], 0);
+
+    // Changes seen while a rebuild reads the database, replayed onto the new graph
+    private final List<ArticleChangedEvent> pending = new ArrayList<>();
+    private boolean rebuilding;
+
+    // Articles changed while a compacted copy of the graph is built, re-linked before the swap
+    private final Set<Long> changedWhileCompacting = new HashSet<>();
+    private boolean compacting;
+
+    @Autowired
+    public ArticleRelatedIndex(ArticleRepository articleRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.related.max-terms:64}") int maxTerms,
+                               @Value("${app.related.hnsw.m:16}") int m,
+                               @Value("${app.related.hnsw.ef-construction:100}") int efConstruction,
+                               @Value("${app.related.hnsw.ef-search:64}") int efSearch,
+                               @Value("${app.related.tag-boost:0.3}") double tagBoost,
+                               @Value("${app.related.author-boost:0.1}") double authorBoost) {
+        this.articleRepository = articleRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxTerms = maxTerms;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.tagBoost = tagBoost;
+        this.authorBoost = authorBoost;
+        this.levelFactor = 1.0 / Math.log(Math.max(2, m));
+    }
+
+    /**
+     * Build a fresh graph from all published articles and swap it in
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.related.rebuild-interval-ms:21600000}",
+               fixedDelayString = "${app.related.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Graph fresh = new Graph(new HashMap<>(), new int[1024], 0);
+        try {
+            // Document frequencies must be complete before any vector is weighted
+            List<Document> documents = new ArrayList<>();
+            int page = 0;
+            Page<Article> batch;
+            do {
+                final int current = page++;
+                batch = readOnlyTransaction.execute(status -> {
+                    Page<Article> articles = articleRepository.findByPublishedTrue(
+                            PageRequest.of(current, REBUILD_PAGE_SIZE, Sort.by("id")));
+                    // Only the vector inputs are kept, not the snapshots with their content
+                    articles.forEach(article -> documents.add(fresh.analyze(ArticleChangedEvent.ArticleSnapshot.of(article))));
+                    return articles;
+                });
+            } while (batch != null && batch.hasNext());
+            for (Document document : documents) {
+                fresh.insert(fresh.node(document, randomLevel()));
+            }
+        } catch (Exception e) {
+            System.err.println("Error building related articles index: " + e.getMessage());
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                pending.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            graph = fresh;
+            for (ArticleChangedEvent event : pending) {
+                apply(event);
+            }
+            rebuilding = false;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(event);
+            if (rebuilding) {
+                pending.add(event);
+            }
+            if (compacting) {
+                changedWhileCompacting.add(event.article().id());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compact the graph once enough tombstones have built up
+     */
+    @Scheduled(fixedDelayString = "${app.related.compact-check-interval-ms:10000}")
+    public void compactIfNeeded() {
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            // A rebuild in progress replaces the graph anyway
+            compact = !compacting && !rebuilding
+                    && graph.deleted > COMPACT_MIN_NODES && graph.deleted * 4 > graph.nodes.size();
+            if (compact) {
+                compacting = true;
+                changedWhileCompacting.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) {
+            compact();
+        }
+    }
+
+    /**
+     * Rebuild the graph from its live vectors without holding the lock, then
+     * re-link the articles that changed meanwhile and swap it in
+     */
+    private void compact() {
+        Graph source;
+        Graph fresh;
+        List<Node> live = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            source = graph;
+            fresh = new Graph(source.vocabulary, source.docFreq, source.documents);
+            for (Node node : source.nodes) {
+                if (!node.deleted) {
+                    live.add(node.unlinked());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (Node node : live) {
+            fresh.insert(node);
+        }
+        lock.writeLock().lock();
+        try {
+            if (graph == source) {
+                for (Long articleId : changedWhileCompacting) {
+                    fresh.detach(articleId);
+                    Integer current = graph.byArticle.get(articleId);
+                    if (current != null) {
+                        fresh.insert(graph.nodes.get(current).unlinked());
+                    }
+                }
+                // Term statistics moved on with the changes applied to the old graph
+                fresh.vocabulary = graph.vocabulary;
+                fresh.docFreq = graph.docFreq;
+                fresh.documents = graph.documents;
+                graph = fresh;
+            }
+            compacting = false;
+            changedWhileCompacting.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of up to limit (at most MAX_LIMIT) published articles related to the
+     * given one, best first; empty when the article is not published
+     */
+    public List<Long> related(Long articleId, int limit) {
+        lock.readLock().lock();
+        try {
+            Integer id = graph.byArticle.get(articleId);
+            if (id == null || limit <= 0) {
+                return new ArrayList<>();
+            }
+            Node article = graph.nodes.get(id);
+            int wanted = Math.min(limit, MAX_LIMIT);
+            List<Scored> scored = new ArrayList<>();
+            for (Candidate candidate : graph.search(article, Math.max(efSearch, wanted * 4))) {
+                Node other = graph.nodes.get(candidate.node());
+                if (candidate.node() == id || other.deleted) continue;
+                double score = candidate.similarity() + tagBoost * sharedTags(article.tags, other.tags);
+                if (Objects.equals(article.authorId, other.authorId)) {
+                    score += authorBoost;
+                }
+                scored.add(new Scored(other.articleId, score));
+            }
+            scored.sort(Comparator.comparingDouble(Scored::score).reversed());
+            List<Long> ids = new ArrayList<>(Math.min(wanted, scored.size()));
+            for (int i = 0; i < scored.size() && ids.size() < wanted; i++) {
+                ids.add(scored.get(i).id());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return graph.byArticle.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void apply(ArticleChangedEvent event) {
+        ArticleChangedEvent.ArticleSnapshot article = event.article();
+        graph.remove(article.id());
+        if (!event.isDeleted() && article.published()) {
+            graph.insert(graph.node(graph.analyze(article), randomLevel()));
+        }
+    }
+
+    private int randomLevel() {
+        return Math.min(MAX_LEVEL, (int) (-Math.log(1.0 - random.nextDouble()) * levelFactor));
+    }
+
+    // Jaccard overlap of two tag sets
+    private static double sharedTags(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) return 0.0;
+        int shared = 0;
+        for (String tag : a) {
+            if (b.contains(tag)) shared++;
+        }
+        return shared / (double) (a.size() + b.size() - shared);
+    }
+
+    private static double dot(Node a, Node b) {
+        int i = 0, j = 0;
+        double sum = 0.0;
+        while (i < a.terms.length && j < b.terms.length) {
+            if (a.terms[i] == b.terms[j]) {
+                sum += a.weights[i++] * b.weights[j++];
+            } else if (a.terms[i] < b.terms[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Vocabulary, document frequencies and the HNSW layers; guarded by the index lock
+     */
+    private final class Graph {
+        private Map<String, Integer> vocabulary;
+        private int[] docFreq;
+        private int documents;
+        private final List<Node> nodes = new ArrayList<>();
+        private final Map<Long, Integer> byArticle = new HashMap<>();
+        private int entryPoint = -1;
+        private int deleted;
+
+        private Graph(Map<String, Integer> vocabulary, int[] docFreq, int documents) {
+            this.vocabulary = vocabulary;
+            this.docFreq = docFreq;
+            this.documents = documents;
+        }
+
+        // Field-weighted term frequencies of an article; counts it in the document frequencies
+        private Document analyze(ArticleChangedEvent.ArticleSnapshot article) {
+            LongDoubleMap frequencies = new LongDoubleMap(256);
+            addTokens(frequencies, article.title(), TITLE_WEIGHT);
+            for (String tag : article.tags()) {
+                addTokens(frequencies, tag, TAG_WEIGHT);
+            }
+            addTokens(frequencies, article.content(), CONTENT_WEIGHT);
+            int[] terms = new int[frequencies.size()];
+            int[] n = {0};
+            frequencies.forEach((term, frequency) -> terms[n[0]++] = (int) term);
+            for (int term : terms) {
+                docFreq[term]++;
+            }
+            documents++;
+            return new Document(article.id(), article.authorId(), new HashSet<>(article.tags()), terms, frequencies);
+        }
+
+        private void addTokens(LongDoubleMap frequencies, String text, double weight) {
+            for (String token : ArticleSearchIndex.tokenize(text)) {
+                if (token.length() < MIN_TOKEN_LENGTH) continue;
+                Integer term = vocabulary.get(token);
+                if (term == null) {
+                    term = vocabulary.size();
+                    vocabulary.put(token, term);
+                    if (term >= docFreq.length) {
+                        docFreq = Arrays.copyOf(docFreq, docFreq.length * 2);
+                    }
+                }
+                frequencies.add(term, weight);
+            }
+        }
+
+        // TF-IDF vector of the strongest terms, normalised and sorted by term id
+        private Node node(Document document, int level) {
+            PriorityQueue<Candidate> strongest = new PriorityQueue<>(maxTerms + 1, Comparator.comparingDouble(Candidate::similarity));
+            document.frequencies().forEach((term, frequency) -> {
+                double idf = Math.log((documents + 1.0) / (docFreq[(int) term] + 1.0)) + 1.0;
+                strongest.add(new Candidate((int) term, (1.0 + Math.log(frequency)) * idf));
+                if (strongest.size() > maxTerms) {
+                    strongest.poll();
+                }
+            });
+            Candidate[] kept = strongest.toArray(new Candidate[0]);
+            Arrays.sort(kept, Comparator.comparingInt(Candidate::node));
+            double norm = 0.0;
+            for (Candidate term : kept) {
+                norm += term.similarity() * term.similarity();
+            }
+            norm = Math.sqrt(norm);
+            int[] terms = new int[kept.length];
+            float[] weights = new float[kept.length];
+            for (int i = 0; i < kept.length; i++) {
+                terms[i] = kept[i].node();
+                weights[i] = (float) (kept[i].similarity() / norm);
+            }
+            return new Node(document.articleId(), document.authorId(), document.tags(),
+                    document.terms(), terms, weights, level, m);
+        }
+
+        private void insert(Node node) {
+            int id = nodes.size();
+            nodes.add(node);
+            byArticle.put(node.articleId, id);
+            if (entryPoint < 0) {
+                entryPoint = id;
+                return;
+            }
+            int top = nodes.get(entryPoint).level();
+            int level = node.level();
+            Candidate nearest = descend(node, top, level);
+            List<Candidate> entries = List.of(nearest);
+            for (int layer = Math.min(level, top); layer >= 0; layer--) {
+                List<Candidate> found = searchLayer(node, entries, efConstruction, layer);
+                for (Candidate neighbour : selectNeighbours(found, m)) {
+                    node.link(layer, neighbour.node());
+                    connect(neighbour.node(), id, layer);
+                }
+                entries = found;
+            }
+            if (level > top) {
+                entryPoint = id;
+            }
+        }
+
+        private void remove(Long articleId) {
+            Node node = detach(articleId);
+            if (node == null) return;
+            for (int term : node.documentTerms) {
+                docFreq[term]--;
+            }
+            documents--;
+        }
+
+        // Tombstone the article's node without touching the term statistics
+        private Node detach(Long articleId) {
+            Integer id = byArticle.remove(articleId);
+            if (id == null) return null;
+            Node node = nodes.get(id);
+            node.deleted = true;
+            deleted++;
+            return node;
+        }
+
+        // Approximate nearest nodes to the query, best first, tombstones included
+        private List<Candidate> search(Node query, int ef) {
+            if (entryPoint < 0) {
+                return new ArrayList<>();
+            }
+            Candidate nearest = descend(query, nodes.get(entryPoint).level(), 0);
+            return searchLayer(query, List.of(nearest), ef, 0);
+        }
+
+        // Greedy walk through the layers above the target one
+        private Candidate descend(Node query, int top, int target) {
+            int current = entryPoint;
+            double best = dot(query, nodes.get(current));
+            for (int layer = top; layer > target; layer--) {
+                boolean moved = true;
+                while (moved) {
+                    moved = false;
+                    Node node = nodes.get(current);
+                    for (int i = 0; i < node.linkCounts[layer]; i++) {
+                        int neighbour = node.links[layer][i];
+                        double similarity = dot(query, nodes.get(neighbour));
+                        if (similarity > best) {
+                            best = similarity;
+                            current = neighbour;
+                            moved = true;
+                        }
+                    }
+                }
+            }
+            return new Candidate(current, best);
+        }
+
+        private List<Candidate> searchLayer(Node query, List<Candidate> entries, int ef, int layer) {
+            BitSet visited = new BitSet(nodes.size());
+            PriorityQueue<Candidate> frontier = new PriorityQueue<>(Comparator.comparingDouble(Candidate::similarity).reversed());
+            PriorityQueue<Candidate> results = new PriorityQueue<>(ef + 1, Comparator.comparingDouble(Candidate::similarity));
+            for (Candidate entry : entries) {
+                if (visited.get(entry.node())) continue;
+                visited.set(entry.node());
+                frontier.add(entry);
+                results.add(entry);
+                if (results.size() > ef) results.poll();
+            }
+            while (!frontier.isEmpty()) {
+                Candidate closest = frontier.poll();
+                if (results.size() >= ef && closest.similarity() < results.peek().similarity()) break;
+                Node node = nodes.get(closest.node());
+                for (int i = 0; i < node.linkCounts[layer]; i++) {
+                    int neighbour = node.links[layer][i];
+                    if (visited.get(neighbour)) continue;
+                    visited.set(neighbour);
+                    double similarity = dot(query, nodes.get(neighbour));
+                    if (results.size() < ef || similarity > results.peek().similarity()) {
+                        Candidate candidate = new Candidate(neighbour, similarity);
+                        frontier.add(candidate);
+                        results.add(candidate);
+                        if (results.size() > ef) results.poll();
+                    }
+                }
+            }
+            List<Candidate> found = new ArrayList<>(results);
+            found.sort(Comparator.comparingDouble(Candidate::similarity).reversed());
+            return found;
+        }
+
+        // HNSW heuristic: skip a candidate that is closer to an already kept neighbour than
+        // to the base node, so links spread in different directions; top up with the skipped
+        private List<Candidate> selectNeighbours(List<Candidate> candidates, int max) {
+            List<Candidate> kept = new ArrayList<>(max);
+            List<Candidate> skipped = new ArrayList<>();
+            for (Candidate candidate : candidates) {
+                if (kept.size() >= max) break;
+                boolean diverse = true;
+                for (Candidate other : kept) {
+                    if (dot(nodes.get(candidate.node()), nodes.get(other.node())) > candidate.similarity()) {
+                        diverse = false;
+                        break;
+                    }
+                }
+                (diverse ? kept : skipped).add(candidate);
+            }
+            for (int i = 0; i < skipped.size() && kept.size() < max; i++) {
+                kept.add(skipped.get(i));
+            }
+            return kept;
+        }
+
+        // Back-link from an existing node, re-selecting its neighbours when the list is full
+        private void connect(int from, int to, int layer) {
+            Node node = nodes.get(from);
+            if (node.linkCounts[layer] < node.links[layer].length) {
+                node.link(layer, to);
+                return;
+            }
+            List<Candidate> candidates = new ArrayList<>(node.linkCounts[layer] + 1);
+            candidates.add(new Candidate(to, dot(node, nodes.get(to))));
+            for (int i = 0; i < node.linkCounts[layer]; i++) {
+                int neighbour = node.links[layer][i];
+                candidates.add(new Candidate(neighbour, dot(node, nodes.get(neighbour))));
+            }
+            candidates.sort(Comparator.comparingDouble(Candidate::similarity).reversed());
+            List<Candidate> kept = selectNeighbours(candidates, node.links[layer].length);
+            node.linkCounts[layer] = 0;
+            for (Candidate neighbour : kept) {
+                node.link(layer, neighbour.node());
+            }
+        }
+
+    }
+
+    private static final class Node {
+        private final long articleId;
+        private final Long authorId;
+        private final Set<String> tags;
+        private final int[] documentTerms;
+        private final int[] terms;
+        private final float[] weights;
+        private final int[][] links;
+        private final int[] linkCounts;
+        private boolean deleted;
+
+        private Node(long articleId, Long authorId, Set<String> tags, int[] documentTerms,
+                     int[] terms, float[] weights, int level, int m) {
+            this.articleId = articleId;
+            this.authorId = authorId;
+            this.tags = tags;
+            this.documentTerms = documentTerms;
+            this.terms = terms;
+            this.weights = weights;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                // The bottom layer holds every node and gets twice the links
+                links[layer] = new int[layer == 0 ? 2 * m : m];
+            }
+        }
+
+        private int level() {
+            return links.length - 1;
+        }
+
+        private void link(int layer, int node) {
+            links[layer][linkCounts[layer]++] = node;
+        }
+
+        private Node unlinked() {
+            return new Node(articleId, authorId, tags, documentTerms, terms, weights, level(), links[0].length / 2);
+        }
+    }
+
+    private record Document(long articleId, Long authorId, Set<String> tags, int[] terms, LongDoubleMap frequencies) {
+    }
+
+    private record Candidate(int node, double similarity) {
+    }
+
+    private record Scored(long id, double score) {
+    }
+}
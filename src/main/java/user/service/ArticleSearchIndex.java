@@ -0,0 +1,823 @@
+package user.service;
+
+import user.repository.ArticleRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Article search index over title, summary, content and tags.
+ * Postings keep token positions so quoted phrases can be matched; results are
+ * ranked with BM25 and filtered by author, publish date and published flag.
+ *
+ * Storage is segment based: new documents go into a small in-memory buffer that
+ * is flushed periodically to an immutable, memory-mapped SearchSegment, and a
+ * background tiered merge keeps the number of segments low. Every segment has a
+ * generation; a document only counts in the segment holding its latest version.
+ * Deletes are appended to a log so they survive restarts; the log is synced on
+ * every flush and compacted after a merge. At startup existing segments are
+ * opened without reparsing content, and only articles created after the last
+ * flushed id or modified after the newest flushed update are re-indexed.
+ * Change events arriving before that is done are queued and applied after it,
+ * in order, so the startup load never overwrites a newer change.
+ */
+@Component
+public class ArticleSearchIndex {
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Field boosts applied to term frequency
+    private static final float TITLE_BOOST = 3.0f;
+    private static final float TAG_BOOST = 2.0f;
+    private static final float SUMMARY_BOOST = 1.5f;
+    private static final float CONTENT_BOOST = 1.0f;
+
+    // Position gap between fields so phrases never match across field boundaries
+    private static final int FIELD_GAP = 100;
+
+    private static final Pattern PHRASE = Pattern.compile("\"([^\"]+)\"");
+    // Longer tokens are cut, so a term always fits a segment's length-prefixed string
+    private static final int MAX_TERM_LENGTH = 255;
+    private static final int REBUILD_PAGE_SIZE = 500;
+    private static final String MANIFEST = "manifest.properties";
+    private static final String DELETES_LOG = "deletes.log";
+
+    private final ArticleRepository articleRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Path indexDir;
+    private final int bufferMaxDocs;
+    private final int mergeFactor;
+    private final long maxSegmentBytes;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object flushMonitor = new Object();
+    private final List<SearchSegment> segments = new ArrayList<>();
+    private final List<MemoryBuffer> flushing = new ArrayList<>();
+    private final Map<Long, LiveDoc> docs = new HashMap<>();
+    private MemoryBuffer buffer;
+    private long nextGeneration = 1;
+    private long totalLength;
+    private long maxIndexedId;
+    private LocalDateTime checkpoint;
+    private LocalDateTime writtenUpTo; // Newest update in the buffers written since the checkpoint moved
+    private FileChannel deletesLog;
+    private volatile boolean opened;
+
+    // Change events held back until open() has loaded and caught up
+    private final Object startupMonitor = new Object();
+    private final List<ArticleChangedEvent> pendingEvents = new ArrayList<>();
+    private boolean started;
+
+    @Autowired
+    public ArticleSearchIndex(ArticleRepository articleRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.search.index-dir:data/search-index}") String indexDir,
+                              @Value("${app.search.buffer-max-docs:1000}") int bufferMaxDocs,
+                              @Value("${app.search.merge-factor:10}") int mergeFactor,
+                              @Value("${app.search.max-segment-mb:1024}") int maxSegmentMb) {
+        this.articleRepository = articleRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.indexDir = Paths.get(indexDir);
+        this.bufferMaxDocs = bufferMaxDocs;
+        this.mergeFactor = mergeFactor;
+        // A segment is one mapping addressed by int offsets, so it must stay under 2 GB
+        this.maxSegmentBytes = Math.min(maxSegmentMb * 1024L * 1024L, SearchSegment.MAX_SIZE);
+        this.buffer = new MemoryBuffer(nextGeneration);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void open() throws IOException {
+        Files.createDirectories(indexDir);
+        Path manifest = indexDir.resolve(MANIFEST);
+        boolean existing = Files.exists(manifest);
+
+        lock.writeLock().lock();
+        try {
+            if (existing) {
+                loadSegments(manifest);
+            }
+            deletesLog = FileChannel.open(indexDir.resolve(DELETES_LOG),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        opened = true;
+
+        if (existing && checkpoint != null) {
+            // Only articles created or modified since the last flush need re-indexing
+            readOnlyTransaction.executeWithoutResult(status ->
+                    articleRepository.findChangedSince(maxIndexedId, checkpoint)
+                            .forEach(article -> index(ArticleChangedEvent.ArticleSnapshot.of(article))));
+        } else {
+            rebuild();
+        }
+        synchronized (startupMonitor) {
+            // Events committed during the load are newer than what it read; replay them in order
+            for (ArticleChangedEvent event : pendingEvents) {
+                apply(event);
+            }
+            pendingEvents.clear();
+            started = true;
+        }
+        flush();
+    }
+
+    /**
+     * Re-index every article from the database, seeking by id so rows written
+     * during the rebuild cannot shift a page, and reading only the indexed fields
+     */
+    public void rebuild() {
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            List<ArticleChangedEvent.ArticleSnapshot> batch = readOnlyTransaction.execute(status -> snapshotsAfter(from));
+            if (batch == null || batch.isEmpty()) return;
+            batch.forEach(this::index);
+            if (batch.size() < REBUILD_PAGE_SIZE) return;
+            afterId = batch.get(batch.size() - 1).id();
+        }
+    }
+
+    private List<ArticleChangedEvent.ArticleSnapshot> snapshotsAfter(long afterId) {
+        List<Object[]> rows = articleRepository.findSearchRowsAfter(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+        if (rows.isEmpty()) return List.of();
+        Map<Long, Set<String>> tags = new HashMap<>();
+        for (Object[] row : articleRepository.findTagsByArticleIds(rows.stream().map(row -> (Long) row[0]).toList())) {
+            tags.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+        }
+        List<ArticleChangedEvent.ArticleSnapshot> snapshots = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            snapshots.add(new ArticleChangedEvent.ArticleSnapshot(id, (String) row[1], (String) row[2], (String) row[3],
+                    tags.getOrDefault(id, new HashSet<>()), (Long) row[4], (String) row[5], (Boolean) row[6],
+                    (LocalDateTime) row[7], (LocalDateTime) row[8]));
+        }
+        return snapshots;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        synchronized (startupMonitor) {
+            if (!started) {
+                pendingEvents.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    private void apply(ArticleChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.article().id());
+        } else {
+            index(event.article());
+        }
+    }
+
+    /**
+     * Add or replace a document
+     */
+    public void index(ArticleChangedEvent.ArticleSnapshot article) {
+        Map<String, SearchSegment.Posting> docPostings = new HashMap<>();
+        int position = 0;
+        position = addField(docPostings, article.title(), position, TITLE_BOOST) + FIELD_GAP;
+        position = addField(docPostings, article.tags() != null ? String.join(" ", article.tags()) : null,
+                position, TAG_BOOST) + FIELD_GAP;
+        position = addField(docPostings, article.summary(), position, SUMMARY_BOOST) + FIELD_GAP;
+        addField(docPostings, article.content(), position, CONTENT_BOOST);
+        int length = docPostings.values().stream().mapToInt(posting -> posting.size).sum();
+
+        Set<String> tags = new HashSet<>();
+        if (article.tags() != null) {
+            article.tags().forEach(tag -> tags.add(tag.toLowerCase()));
+        }
+        SearchSegment.DocMeta meta = new SearchSegment.DocMeta(article.id(), article.authorUsername(),
+                article.published(), article.publishedAt(), length, tags);
+
+        boolean full;
+        lock.writeLock().lock();
+        try {
+            LiveDoc previous = docs.get(article.id());
+            if (previous != null) {
+                totalLength -= previous.meta().length();
+            }
+            buffer.remove(article.id());
+            buffer.add(meta, docPostings, article.updatedAt());
+            docs.put(article.id(), new LiveDoc(meta, buffer.generation));
+            totalLength += length;
+            maxIndexedId = Math.max(maxIndexedId, article.id());
+            full = buffer.docs.size() >= bufferMaxDocs;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (full && opened) {
+            flush();
+        }
+    }
+
+    public void remove(Long articleId) {
+        lock.writeLock().lock();
+        try {
+            LiveDoc previous = docs.remove(articleId);
+            if (previous == null) return;
+            totalLength -= previous.meta().length();
+            buffer.remove(articleId);
+            // Older copies in segments (generation below the buffer's) are now dead
+            appendDelete(articleId, buffer.generation);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked article ids matching every query term (the last term also matches as a prefix).
+     * Quoted parts of the query must appear as exact phrases.
+     */
+    public Page<Long> search(String query, String authorUsername, Set<String> tags,
+                             LocalDateTime fromDate, LocalDateTime toDate,
+                             boolean publishedOnly, Pageable pageable) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        List<List<String>> phrases = new ArrayList<>();
+        Matcher matcher = PHRASE.matcher(query);
+        while (matcher.find()) {
+            List<String> phrase = tokenize(matcher.group(1));
+            if (phrase.size() > 1) {
+                phrases.add(phrase);
+            }
+        }
+        Set<String> requiredTags = new HashSet<>();
+        if (tags != null) {
+            tags.forEach(tag -> requiredTags.add(tag.toLowerCase()));
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Source> sources = new ArrayList<>(segments.size() + flushing.size() + 1);
+            segments.forEach(segment -> sources.add(new Source(segment.generation(), segment::visit)));
+            flushing.forEach(frozen -> sources.add(new Source(frozen.generation, frozen::visit)));
+            sources.add(new Source(buffer.generation, buffer::visit));
+
+            // Collect live hits per query term; document frequencies are summed across sources
+            Map<String, Integer> docFreqs = new HashMap<>();
+            List<Map<Long, List<TermHit>>> hits = new ArrayList<>();
+            for (int i = 0; i < terms.size(); i++) {
+                boolean prefix = i == terms.size() - 1;
+                Map<Long, List<TermHit>> termHits = new HashMap<>();
+                for (Source source : sources) {
+                    Map<String, Integer> sourceFreqs = new HashMap<>();
+                    source.reader().visit(terms.get(i), prefix, (term, docFreq, docId, tf, positions) -> {
+                        sourceFreqs.put(term, docFreq);
+                        LiveDoc live = docs.get(docId);
+                        if (live != null && live.generation() == source.generation()) {
+                            termHits.computeIfAbsent(docId, id -> new ArrayList<>(2))
+                                    .add(new TermHit(term, tf, positions));
+                        }
+                    });
+                    sourceFreqs.forEach((term, df) -> docFreqs.merge(term, df, Integer::sum));
+                }
+                if (termHits.isEmpty()) {
+                    return new PageImpl<>(List.of(), pageable, 0);
+                }
+                hits.add(termHits);
+            }
+
+            int docCount = docs.size();
+            double avgLength = docCount == 0 ? 1.0 : Math.max(1.0, totalLength / (double) docCount);
+
+            // Drive the intersection from the rarest term
+            Map<Long, List<TermHit>> rarest = hits.stream().min(Comparator.comparingInt(Map::size)).orElseThrow();
+            List<ScoredDoc> scored = new ArrayList<>();
+            for (Long docId : rarest.keySet()) {
+                SearchSegment.DocMeta doc = docs.get(docId).meta();
+                if (!matchesFilters(doc, authorUsername, requiredTags, fromDate, toDate, publishedOnly)) {
+                    continue;
+                }
+                double score = 0.0;
+                Map<String, int[]> positionsByTerm = new HashMap<>();
+                boolean matchesAll = true;
+                for (Map<Long, List<TermHit>> termHits : hits) {
+                    List<TermHit> docHits = termHits.get(docId);
+                    if (docHits == null) {
+                        matchesAll = false;
+                        break;
+                    }
+                    for (TermHit hit : docHits) {
+                        int df = docFreqs.getOrDefault(hit.term(), 1);
+                        double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+                        double tf = hit.weightedTf();
+                        score += idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * doc.length() / avgLength));
+                        positionsByTerm.put(hit.term(), hit.positions());
+                    }
+                }
+                if (matchesAll && phrases.stream().allMatch(phrase -> containsPhrase(positionsByTerm, phrase))) {
+                    scored.add(new ScoredDoc(docId, score, doc.publishedAt()));
+                }
+            }
+
+            scored.sort(Comparator.comparingDouble(ScoredDoc::score).reversed()
+                    .thenComparing(ScoredDoc::publishedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+
+            int start = (int) Math.min(pageable.getOffset(), scored.size());
+            int end = Math.min(start + pageable.getPageSize(), scored.size());
+            List<Long> ids = new ArrayList<>(end - start);
+            for (ScoredDoc doc : scored.subList(start, end)) {
+                ids.add(doc.id());
+            }
+            return new PageImpl<>(ids, pageable, scored.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write the in-memory buffer out as a new segment
+     */
+    @Scheduled(fixedDelayString = "${app.search.flush-interval-ms:30000}")
+    public void flush() {
+        if (!opened) return;
+        synchronized (flushMonitor) {
+            MemoryBuffer frozen;
+            lock.writeLock().lock();
+            try {
+                frozen = buffer;
+                if (frozen.docs.isEmpty()) {
+                    frozen = null; // Nothing new, so the checkpoint stays where it is
+                } else {
+                    flushing.add(frozen);
+                    nextGeneration = frozen.generation + 1;
+                    buffer = new MemoryBuffer(nextGeneration);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            try {
+                if (frozen != null) {
+                    Path file = indexDir.resolve("seg-" + frozen.generation + ".seg");
+                    SearchSegment segment = SearchSegment.write(file, frozen.generation,
+                            frozen.postings, frozen.docs.values());
+                    lock.writeLock().lock();
+                    try {
+                        segments.add(segment);
+                        flushing.remove(frozen);
+                        advanceCheckpoint(frozen);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                }
+                syncDeletesLog();
+                writeManifest();
+            } catch (IOException e) {
+                // The frozen buffer stays searchable and is retried on the next flush
+                System.err.println("Error flushing search index segment: " + e.getMessage());
+            }
+            retryFailedFlushes();
+        }
+    }
+
+    /**
+     * Tiered merge: once a size tier holds merge-factor segments, rewrite them as one.
+     * Segments of half max-segment-mb or more never merge again, and a merge only takes
+     * as many of a tier's smallest segments as fit in max-segment-mb together, so no
+     * merged segment outgrows what a single mapping can address.
+     */
+    @Scheduled(fixedDelayString = "${app.search.merge-interval-ms:60000}")
+    public void maybeMerge() {
+        if (!opened) return;
+        synchronized (flushMonitor) {
+            List<SearchSegment> inputs;
+            Map<Long, Set<Long>> liveByGeneration = new HashMap<>();
+            lock.readLock().lock();
+            try {
+                inputs = segments.stream()
+                        .filter(segment -> segment.sizeBytes() < maxSegmentBytes / 2)
+                        .collect(Collectors.groupingBy(segment -> tierOf(segment.docCount())))
+                        .values().stream()
+                        .map(this::mergeCandidates)
+                        .filter(candidates -> !candidates.isEmpty())
+                        .findFirst()
+                        .orElse(List.of());
+                // Snapshot which documents each input still holds the latest version of
+                for (SearchSegment segment : inputs) {
+                    Set<Long> live = new HashSet<>();
+                    for (SearchSegment.DocMeta doc : segment.docs()) {
+                        LiveDoc current = docs.get(doc.id());
+                        if (current != null && current.generation() == segment.generation()) {
+                            live.add(doc.id());
+                        }
+                    }
+                    liveByGeneration.put(segment.generation(), live);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (inputs.isEmpty()) return;
+
+            try {
+                mergeSegments(inputs, liveByGeneration);
+            } catch (IOException e) {
+                System.err.println("Error merging search index segments: " + e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        try {
+            if (deletesLog != null) deletesLog.close();
+        } catch (IOException e) {
+            System.err.println("Error closing search index deletes log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lower-case letter/digit runs
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (current.length() < MAX_TERM_LENGTH) {
+                    current.append(Character.toLowerCase(c));
+                }
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    private void mergeSegments(List<SearchSegment> inputs, Map<Long, Set<Long>> liveByGeneration) throws IOException {
+        long mergedGeneration = inputs.stream().mapToLong(SearchSegment::generation).max().orElseThrow();
+        TreeMap<String, Map<Long, SearchSegment.Posting>> postings = new TreeMap<>();
+        List<SearchSegment.DocMeta> metas = new ArrayList<>();
+        for (SearchSegment segment : inputs) {
+            Set<Long> live = liveByGeneration.get(segment.generation());
+            segment.docs().stream().filter(doc -> live.contains(doc.id())).forEach(metas::add);
+            segment.visitAll((term, docFreq, docId, tf, positions) -> {
+                if (live.contains(docId)) {
+                    postings.computeIfAbsent(term, t -> new HashMap<>())
+                            .put(docId, new SearchSegment.Posting(positions, tf));
+                }
+            });
+        }
+
+        Path file = indexDir.resolve("seg-" + mergedGeneration + "-m" + System.currentTimeMillis() + ".seg");
+        SearchSegment merged = SearchSegment.write(file, mergedGeneration, postings, metas);
+        Set<Long> inputGenerations = liveByGeneration.keySet();
+
+        lock.writeLock().lock();
+        try {
+            segments.removeAll(inputs);
+            segments.add(merged);
+            // Documents still living in one of the inputs now live in the merged segment
+            for (SearchSegment.DocMeta doc : metas) {
+                LiveDoc current = docs.get(doc.id());
+                if (current != null && inputGenerations.contains(current.generation())) {
+                    docs.put(doc.id(), new LiveDoc(current.meta(), mergedGeneration));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        writeManifest();
+        compactDeletesLog();
+        for (SearchSegment input : inputs) {
+            Files.deleteIfExists(input.file());
+        }
+    }
+
+    // Called under the write lock once a frozen buffer is on disk
+    private void advanceCheckpoint(MemoryBuffer written) {
+        if (written.maxUpdatedAt != null && (writtenUpTo == null || written.maxUpdatedAt.isAfter(writtenUpTo))) {
+            writtenUpTo = written.maxUpdatedAt;
+        }
+        // Never move the checkpoint past a buffer that is still waiting to be written
+        if (flushing.isEmpty() && writtenUpTo != null && (checkpoint == null || writtenUpTo.isAfter(checkpoint))) {
+            checkpoint = writtenUpTo;
+        }
+    }
+
+    private void retryFailedFlushes() {
+        List<MemoryBuffer> pending;
+        lock.readLock().lock();
+        try {
+            pending = new ArrayList<>(flushing);
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (MemoryBuffer frozen : pending) {
+            try {
+                Path file = indexDir.resolve("seg-" + frozen.generation + ".seg");
+                SearchSegment segment = SearchSegment.write(file, frozen.generation, frozen.postings, frozen.docs.values());
+                lock.writeLock().lock();
+                try {
+                    segments.add(segment);
+                    flushing.remove(frozen);
+                    advanceCheckpoint(frozen);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                writeManifest();
+            } catch (IOException e) {
+                System.err.println("Error retrying search index flush: " + e.getMessage());
+            }
+        }
+    }
+
+    private void loadSegments(Path manifest) throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(manifest)) {
+            props.load(reader);
+        }
+        nextGeneration = Long.parseLong(props.getProperty("nextGeneration", "1"));
+        maxIndexedId = Long.parseLong(props.getProperty("maxIndexedId", "0"));
+        String checkpointValue = props.getProperty("checkpoint");
+        checkpoint = checkpointValue != null ? LocalDateTime.parse(checkpointValue) : null;
+        buffer = new MemoryBuffer(nextGeneration);
+
+        for (String name : props.getProperty("segments", "").split(",")) {
+            if (name.isBlank()) continue;
+            SearchSegment segment = SearchSegment.open(indexDir.resolve(name));
+            segments.add(segment);
+            for (SearchSegment.DocMeta doc : segment.docs()) {
+                LiveDoc current = docs.get(doc.id());
+                if (current == null || current.generation() < segment.generation()) {
+                    docs.put(doc.id(), new LiveDoc(doc, segment.generation()));
+                }
+            }
+        }
+
+        // A delete recorded at generation N kills every copy older than N
+        Path deletes = indexDir.resolve(DELETES_LOG);
+        if (Files.exists(deletes)) {
+            ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(deletes));
+            while (log.remaining() >= 16) {
+                long docId = log.getLong();
+                long generation = log.getLong();
+                LiveDoc current = docs.get(docId);
+                if (current != null && current.generation() < generation) {
+                    docs.remove(docId);
+                }
+            }
+        }
+        totalLength = docs.values().stream().mapToLong(doc -> doc.meta().length()).sum();
+    }
+
+    private void writeManifest() throws IOException {
+        Properties props = new Properties();
+        lock.readLock().lock();
+        try {
+            props.setProperty("nextGeneration", String.valueOf(nextGeneration));
+            props.setProperty("maxIndexedId", String.valueOf(maxIndexedId));
+            if (checkpoint != null) {
+                props.setProperty("checkpoint", checkpoint.toString());
+            }
+            props.setProperty("segments", segments.stream()
+                    .map(segment -> segment.file().getFileName().toString())
+                    .collect(Collectors.joining(",")));
+        } finally {
+            lock.readLock().unlock();
+        }
+        Path tmp = indexDir.resolve(MANIFEST + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp)) {
+            props.store(writer, "Article search index");
+        }
+        Files.move(tmp, indexDir.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void syncDeletesLog() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (deletesLog != null) deletesLog.force(false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrite the deletes log without records that no longer hide a copy on disk,
+     * e.g. because a merge dropped the deleted document
+     */
+    private void compactDeletesLog() throws IOException {
+        Path log = indexDir.resolve(DELETES_LOG);
+        Path tmp = indexDir.resolve(DELETES_LOG + ".tmp");
+        lock.writeLock().lock();
+        try {
+            if (deletesLog == null) return;
+            deletesLog.force(false);
+            // Oldest generation holding a copy of each document, including buffers not yet written
+            Map<Long, Long> oldestCopy = new HashMap<>();
+            for (SearchSegment segment : segments) {
+                for (SearchSegment.DocMeta doc : segment.docs()) {
+                    oldestCopy.merge(doc.id(), segment.generation(), Math::min);
+                }
+            }
+            for (MemoryBuffer frozen : flushing) {
+                for (Long docId : frozen.docs.keySet()) {
+                    oldestCopy.merge(docId, frozen.generation, Math::min);
+                }
+            }
+            ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(log));
+            ByteBuffer kept = ByteBuffer.allocate(records.remaining());
+            while (records.remaining() >= 16) {
+                long docId = records.getLong();
+                long generation = records.getLong();
+                Long oldest = oldestCopy.get(docId);
+                if (oldest != null && oldest < generation) {
+                    kept.putLong(docId).putLong(generation);
+                }
+            }
+            kept.flip();
+            if (kept.remaining() == records.capacity()) return;
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (kept.hasRemaining()) {
+                    out.write(kept);
+                }
+                out.force(true);
+            }
+            deletesLog.close();
+            Files.move(tmp, log, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deletesLog = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void appendDelete(Long articleId, long generation) {
+        if (deletesLog == null) return;
+        try {
+            ByteBuffer record = ByteBuffer.allocate(16).putLong(articleId).putLong(generation).flip();
+            deletesLog.write(record);
+        } catch (IOException e) {
+            System.err.println("Error recording search index delete: " + e.getMessage());
+        }
+    }
+
+    // Smallest segments of a full tier whose sizes add up to at most maxSegmentBytes; empty if fewer than two fit
+    private List<SearchSegment> mergeCandidates(List<SearchSegment> tier) {
+        if (tier.size() < mergeFactor) return List.of();
+        List<SearchSegment> bySize = new ArrayList<>(tier);
+        bySize.sort(Comparator.comparingLong(SearchSegment::sizeBytes));
+        List<SearchSegment> candidates = new ArrayList<>(mergeFactor);
+        long total = 0;
+        for (SearchSegment segment : bySize) {
+            if (candidates.size() == mergeFactor || total + segment.sizeBytes() > maxSegmentBytes) break;
+            candidates.add(segment);
+            total += segment.sizeBytes();
+        }
+        return candidates.size() >= 2 ? candidates : List.of();
+    }
+
+    private int tierOf(int docCount) {
+        return (int) (Math.log(Math.max(1, docCount)) / Math.log(mergeFactor));
+    }
+
+    private int addField(Map<String, SearchSegment.Posting> docPostings, String text, int startPosition, float boost) {
+        int position = startPosition;
+        for (String token : tokenize(text)) {
+            docPostings.computeIfAbsent(token, t -> new SearchSegment.Posting()).add(position++, boost);
+        }
+        return position;
+    }
+
+    private boolean containsPhrase(Map<String, int[]> positionsByTerm, List<String> phrase) {
+        int[] first = positionsByTerm.get(phrase.get(0));
+        if (first == null) return false;
+        for (int start : first) {
+            boolean match = true;
+            for (int i = 1; i < phrase.size() && match; i++) {
+                int[] next = positionsByTerm.get(phrase.get(i));
+                match = next != null && Arrays.binarySearch(next, start + i) >= 0;
+            }
+            if (match) return true;
+        }
+        return false;
+    }
+
+    private boolean matchesFilters(SearchSegment.DocMeta doc, String authorUsername, Set<String> requiredTags,
+                                   LocalDateTime fromDate, LocalDateTime toDate, boolean publishedOnly) {
+        if (publishedOnly && !doc.published()) return false;
+        if (authorUsername != null && !authorUsername.equals(doc.authorUsername())) return false;
+        if (fromDate != null && (doc.publishedAt() == null || doc.publishedAt().isBefore(fromDate))) return false;
+        if (toDate != null && (doc.publishedAt() == null || doc.publishedAt().isAfter(toDate))) return false;
+        return doc.tags().containsAll(requiredTags);
+    }
+
+    /**
+     * Mutable in-memory segment that receives new documents until it is flushed
+     */
+    private static final class MemoryBuffer {
+        private final long generation;
+        private final TreeMap<String, Map<Long, SearchSegment.Posting>> postings = new TreeMap<>();
+        private final Map<Long, SearchSegment.DocMeta> docs = new LinkedHashMap<>();
+        private final Map<Long, Set<String>> docTerms = new HashMap<>();
+        private LocalDateTime maxUpdatedAt;
+
+        private MemoryBuffer(long generation) {
+            this.generation = generation;
+        }
+
+        private void add(SearchSegment.DocMeta meta, Map<String, SearchSegment.Posting> docPostings,
+                         LocalDateTime updatedAt) {
+            if (updatedAt != null && (maxUpdatedAt == null || updatedAt.isAfter(maxUpdatedAt))) {
+                maxUpdatedAt = updatedAt;
+            }
+            for (Map.Entry<String, SearchSegment.Posting> e : docPostings.entrySet()) {
+                postings.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(meta.id(), e.getValue());
+            }
+            docs.put(meta.id(), meta);
+            docTerms.put(meta.id(), docPostings.keySet());
+        }
+
+        private void remove(Long docId) {
+            docs.remove(docId);
+            Set<String> terms = docTerms.remove(docId);
+            if (terms == null) return;
+            for (String term : terms) {
+                Map<Long, SearchSegment.Posting> termPostings = postings.get(term);
+                if (termPostings != null) {
+                    termPostings.remove(docId);
+                    if (termPostings.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        private void visit(String term, boolean prefix, SearchSegment.PostingVisitor visitor) {
+            Map<String, Map<Long, SearchSegment.Posting>> matches = prefix
+                    ? postings.subMap(term, true, term + Character.MAX_VALUE, true)
+                    : (postings.containsKey(term) ? Map.of(term, postings.get(term)) : Map.of());
+            matches.forEach((matched, termPostings) -> termPostings.forEach((docId, posting) ->
+                    visitor.visit(matched, termPostings.size(), docId, posting.weightedTf, posting.positions())));
+        }
+    }
+
+    @FunctionalInterface
+    private interface SourceReader {
+        void visit(String term, boolean prefix, SearchSegment.PostingVisitor visitor);
+    }
+
+    private record Source(long generation, SourceReader reader) {
+    }
+
+    private record LiveDoc(SearchSegment.DocMeta meta, long generation) {
+    }
+
+    private record TermHit(String term, float weightedTf, int[] positions) {
+    }
+
+    private record ScoredDoc(Long id, double score, LocalDateTime publishedAt) {
+    }
+}
@@ -2,7 +2,9 @@ package user.service;
 
 import com.medium_clone.user.dto.CreateArticleRequest;
 import com.medium_clone.user.dto.ArticleResponse;
+import com.medium_clone.user.dto.ArticleSliceResponse;
 import com.medium_clone.user.dto.ArticleVersionResponse;
+import com.medium_clone.user.dto.ArticleVersionSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -16,6 +18,9 @@ public interface ArticleService {
     
     ArticleResponse getArticleBySlug(String slug);
     
+    // Same published article as getArticleBySlug, without counting a view
+    ArticleResponse previewArticleBySlug(String slug);
+    
     ArticleResponse getArticleById(Long id);
     
     Page<ArticleResponse> getArticlesByAuthor(String username, Pageable pageable);
@@ -24,6 +29,11 @@ public interface ArticleService {
     
     Page<ArticleResponse> getArticlesByTag(String tag, Pageable pageable);
     
+    // Cursor-paginated variants (no count query)
+    ArticleSliceResponse getArticlesByAuthor(String username, String cursor, int size);
+    
+    ArticleSliceResponse getPublishedArticles(String cursor, int size);
+    
     Page<ArticleResponse> searchArticles(String search, Pageable pageable);
     
     void deleteArticle(String authorEmail, Long articleId);
@@ -33,7 +43,7 @@ public interface ArticleService {
     void unpublishArticle(String authorEmail, Long articleId);
     
     // Versioning methods
-    List<ArticleVersionResponse> getArticleVersions(Long articleId);
+    Page<ArticleVersionSummary> getArticleVersions(Long articleId, Pageable pageable);
     
     ArticleVersionResponse getArticleVersion(Long articleId, Integer versionNumber);
     
@@ -3,7 +3,10 @@ package user.service;
 import com.medium_clone.user.dto.CreateArticleRequest;
 import com.medium_clone.user.dto.UpdateArticleRequest;
 import com.medium_clone.user.dto.ArticleResponse;
+import com.medium_clone.user.dto.ArticleSliceResponse;
+import com.medium_clone.user.dto.ArticleSummary;
 import com.medium_clone.user.dto.ArticleVersionResponse;
+import com.medium_clone.user.dto.ArticleVersionSummary;
 import com.medium_clone.user.entity.Article;
 import com.medium_clone.user.entity.ArticleVersion;
 import com.medium_clone.user.entity.User;
@@ -11,10 +14,15 @@ import user.repository.ArticleRepository;
 import user.repository.ArticleVersionRepository;
 import user.repository.UserRepository;
 import user.util.ArticleUtils;
+import user.util.ContentAnalyzer;
 import user.service.TagService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,29 +37,52 @@ public class ArticleServiceImpl implements ArticleService {
     private final ArticleVersionRepository articleVersionRepository;
     private final UserRepository userRepository;
     private final TagService tagService;
+    private final ArticleViewCounter viewCounter;
+    private final ClapAccumulator clapAccumulator;
+    private final EngagementStatsCache statsCache;
+    private final ArticleSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ArticleSummaryLoader summaryLoader;
+    private final SlugAllocator slugAllocator;
+    private final ArticleVersionStore versionStore;
 
     @Autowired
     public ArticleServiceImpl(ArticleRepository articleRepository, 
                             ArticleVersionRepository articleVersionRepository,
                             UserRepository userRepository,
-                            TagService tagService) {
+                            TagService tagService,
+                            ArticleViewCounter viewCounter,
+                            ClapAccumulator clapAccumulator,
+                            EngagementStatsCache statsCache,
+                            ArticleSearchIndex searchIndex,
+                            ApplicationEventPublisher eventPublisher,
+                            ArticleSummaryLoader summaryLoader,
+                            SlugAllocator slugAllocator,
+                            ArticleVersionStore versionStore) {
         this.articleRepository = articleRepository;
         this.articleVersionRepository = articleVersionRepository;
         this.userRepository = userRepository;
         this.tagService = tagService;
+        this.viewCounter = viewCounter;
+        this.clapAccumulator = clapAccumulator;
+        this.statsCache = statsCache;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
+        this.summaryLoader = summaryLoader;
+        this.slugAllocator = slugAllocator;
+        this.versionStore = versionStore;
     }
 
     @Override
-    @Transactional
     public ArticleResponse createArticle(String authorEmail, CreateArticleRequest request) {
+        return slugAllocator.withRetry(() -> saveNewArticle(authorEmail, request));
+    }
+
+    private ArticleResponse saveNewArticle(String authorEmail, CreateArticleRequest request) {
         User author = userRepository.findByEmail(authorEmail)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        String slug = ArticleUtils.generateSlug(request.getTitle());
-        
-        // Check if slug already exists and generate unique one
-        slug = ArticleUtils.generateUniqueSlug(slug, 
-            existingSlug -> articleRepository.findBySlug(existingSlug).isPresent());
+        String slug = slugAllocator.allocate(ArticleUtils.generateSlug(request.getTitle()), null, null);
 
         // Extract tags from content if not provided
         java.util.Set<String> tags = request.getTags();
@@ -75,6 +106,8 @@ public class ArticleServiceImpl implements ArticleService {
                 .published(request.isPublished())
                 .author(author)
                 .readTime(ArticleUtils.calculateReadTime(request.getContent()))
+                .contentMetrics(ContentAnalyzer.analyze(request.getContent()))
+                .contentHash(ArticleUtils.contentHash(request.getContent()))
                 .viewCount(0)
                 .build();
 
@@ -84,17 +117,21 @@ public class ArticleServiceImpl implements ArticleService {
 
         Article savedArticle = articleRepository.save(article);
         // Update tags usage
-        tagService.updateTagsForArticle(savedArticle.getId(), savedArticle.getTags());
+        tagService.updateTagsForArticle(savedArticle.getId(), java.util.Collections.emptySet(), savedArticle.getTags());
         
         // Create initial version
-        createArticleVersion(savedArticle, authorEmail, "Initial version");
+        versionStore.save(savedArticle, authorEmail, "Initial version");
         
+        eventPublisher.publishEvent(ArticleChangedEvent.saved(savedArticle, false));
         return mapToArticleResponse(savedArticle);
     }
 
     @Override
-    @Transactional
     public ArticleResponse updateArticle(String authorEmail, Long articleId, CreateArticleRequest request) {
+        return slugAllocator.withRetry(() -> saveArticleUpdate(authorEmail, articleId, request));
+    }
+
+    private ArticleResponse saveArticleUpdate(String authorEmail, Long articleId, CreateArticleRequest request) {
         Article article = articleRepository.findById(articleId)
                 .orElseThrow(() -> new IllegalArgumentException("Article not found"));
 
@@ -104,9 +141,12 @@ public class ArticleServiceImpl implements ArticleService {
         if (!article.getAuthor().getId().equals(author.getId())) {
             throw new IllegalArgumentException("You can only update your own articles");
         }
+        boolean wasPublished = article.isPublished();
+        java.util.Set<String> previousTags = new java.util.HashSet<>(article.getTags());
+        String previousBaseSlug = ArticleUtils.generateSlug(article.getTitle());
 
         // Create version before updating
-        createArticleVersion(article, authorEmail, "Article updated");
+        versionStore.save(article, authorEmail, "Article updated");
 
         article.setTitle(request.getTitle());
         article.setContent(request.getContent());
@@ -114,16 +154,11 @@ public class ArticleServiceImpl implements ArticleService {
         article.setTags(request.getTags() != null ? request.getTags() : new java.util.HashSet<>());
         article.setCoverImageUrl(request.getCoverImageUrl());
         article.setReadTime(ArticleUtils.calculateReadTime(request.getContent()));
+        article.setContentMetrics(ContentAnalyzer.analyze(request.getContent()));
+        article.setContentHash(ArticleUtils.contentHash(request.getContent()));
 
         // Update slug if title changed
-        String newSlug = ArticleUtils.generateSlug(request.getTitle());
-        if (!newSlug.equals(article.getSlug())) {
-            if (articleRepository.findBySlug(newSlug).isPresent()) {
-                newSlug = ArticleUtils.generateUniqueSlug(newSlug, 
-                    existingSlug -> articleRepository.findBySlug(existingSlug).isPresent());
-            }
-            article.setSlug(newSlug);
-        }
+        article.setSlug(slugAllocator.allocate(ArticleUtils.generateSlug(request.getTitle()), article.getSlug(), previousBaseSlug));
 
         // Handle publish status
         if (request.isPublished() && !article.isPublished()) {
@@ -136,13 +171,17 @@ public class ArticleServiceImpl implements ArticleService {
 
         Article updatedArticle = articleRepository.save(article);
         // Update tags usage
-        tagService.updateTagsForArticle(updatedArticle.getId(), updatedArticle.getTags());
+        tagService.updateTagsForArticle(updatedArticle.getId(), previousTags, updatedArticle.getTags());
+        eventPublisher.publishEvent(ArticleChangedEvent.saved(updatedArticle, wasPublished));
         return mapToArticleResponse(updatedArticle);
     }
 
     @Override
-    @Transactional
     public ArticleResponse updateArticleWithVersion(String authorEmail, Long articleId, UpdateArticleRequest request) {
+        return slugAllocator.withRetry(() -> saveArticleUpdateWithVersion(authorEmail, articleId, request));
+    }
+
+    private ArticleResponse saveArticleUpdateWithVersion(String authorEmail, Long articleId, UpdateArticleRequest request) {
         Article article = articleRepository.findById(articleId)
                 .orElseThrow(() -> new IllegalArgumentException("Article not found"));
 
@@ -152,11 +191,14 @@ public class ArticleServiceImpl implements ArticleService {
         if (!article.getAuthor().getId().equals(author.getId())) {
             throw new IllegalArgumentException("You can only update your own articles");
         }
+        boolean wasPublished = article.isPublished();
+        java.util.Set<String> previousTags = new java.util.HashSet<>(article.getTags());
+        String previousBaseSlug = ArticleUtils.generateSlug(article.getTitle());
 
         // Create version before updating
         String changeDescription = request.getChangeDescription() != null ? 
             request.getChangeDescription() : "Article updated";
-        createArticleVersion(article, authorEmail, changeDescription);
+        versionStore.save(article, authorEmail, changeDescription);
 
         article.setTitle(request.getTitle());
         article.setContent(request.getContent());
@@ -164,16 +206,11 @@ public class ArticleServiceImpl implements ArticleService {
         article.setTags(request.getTags() != null ? request.getTags() : new java.util.HashSet<>());
         article.setCoverImageUrl(request.getCoverImageUrl());
         article.setReadTime(ArticleUtils.calculateReadTime(request.getContent()));
+        article.setContentMetrics(ContentAnalyzer.analyze(request.getContent()));
+        article.setContentHash(ArticleUtils.contentHash(request.getContent()));
 
         // Update slug if title changed
-        String newSlug = ArticleUtils.generateSlug(request.getTitle());
-        if (!newSlug.equals(article.getSlug())) {
-            if (articleRepository.findBySlug(newSlug).isPresent()) {
-                newSlug = ArticleUtils.generateUniqueSlug(newSlug, 
-                    existingSlug -> articleRepository.findBySlug(existingSlug).isPresent());
-            }
-            article.setSlug(newSlug);
-        }
+        article.setSlug(slugAllocator.allocate(ArticleUtils.generateSlug(request.getTitle()), article.getSlug(), previousBaseSlug));
 
         // Handle publish status
         if (request.isPublished() && !article.isPublished()) {
@@ -186,25 +223,36 @@ public class ArticleServiceImpl implements ArticleService {
 
         Article updatedArticle = articleRepository.save(article);
         // Update tags usage
-        tagService.updateTagsForArticle(updatedArticle.getId(), updatedArticle.getTags());
+        tagService.updateTagsForArticle(updatedArticle.getId(), previousTags, updatedArticle.getTags());
+        eventPublisher.publishEvent(ArticleChangedEvent.saved(updatedArticle, wasPublished));
         return mapToArticleResponse(updatedArticle);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ArticleResponse getArticleBySlug(String slug) {
+        Article article = publishedArticleBySlug(slug);
+
+        // Increment view count (buffered, flushed in batches by ArticleViewCounter)
+        viewCounter.increment(article.getId());
+
+        return mapToArticleResponse(article);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ArticleResponse previewArticleBySlug(String slug) {
+        return mapToArticleResponse(publishedArticleBySlug(slug));
+    }
+
+    private Article publishedArticleBySlug(String slug) {
         Article article = articleRepository.findBySlug(slug)
                 .orElseThrow(() -> new IllegalArgumentException("Article not found"));
         
         if (!article.isPublished()) {
             throw new IllegalArgumentException("Article not found");
         }
-
-        // Increment view count
-        article.setViewCount(article.getViewCount() + 1);
-        articleRepository.save(article);
-
-        return mapToArticleResponse(article);
+        return article;
     }
 
     @Override
@@ -218,29 +266,54 @@ public class ArticleServiceImpl implements ArticleService {
     @Override
     @Transactional(readOnly = true)
     public Page<ArticleResponse> getArticlesByAuthor(String username, Pageable pageable) {
-        Page<Article> articles = articleRepository.findByAuthorUsername(username, pageable);
-        return articles.map(this::mapToArticleResponse);
+        return summaryLoader.toPage(articleRepository.findSummariesByAuthorUsername(username, pageable));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ArticleResponse> getPublishedArticles(Pageable pageable) {
-        Page<Article> articles = articleRepository.findByPublishedTrue(pageable);
-        return articles.map(this::mapToArticleResponse);
+        return summaryLoader.toPage(articleRepository.findPublishedSummaries(pageable));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ArticleResponse> getArticlesByTag(String tag, Pageable pageable) {
-        Page<Article> articles = articleRepository.findByTag(tag, pageable);
-        return articles.map(this::mapToArticleResponse);
+        return summaryLoader.toPage(articleRepository.findSummariesByTag(tag, pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ArticleSliceResponse getArticlesByAuthor(String username, String cursor, int size) {
+        ArticleCursor after = ArticleCursor.decode(cursor);
+        Pageable pageable = PageRequest.of(0, size);
+        Slice<ArticleSummary> articles = after == null
+                ? articleRepository.findByAuthorFirstSlice(username, pageable)
+                : articleRepository.findByAuthorSliceAfter(username, after.id(), pageable);
+        return summaryLoader.toSliceResponse(articles, article -> ArticleCursor.byId(article.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ArticleSliceResponse getPublishedArticles(String cursor, int size) {
+        ArticleCursor after = ArticleCursor.decode(cursor);
+        Pageable pageable = PageRequest.of(0, size);
+        Slice<ArticleSummary> articles;
+        if (after == null) {
+            articles = articleRepository.findPublishedFirstSlice(pageable);
+        } else if (after.publishedAt() != null) {
+            articles = articleRepository.findPublishedSliceAfter(after.publishedAt(), after.id(), pageable);
+        } else {
+            // The last page ended in the undated tail
+            articles = articleRepository.findUndatedPublishedSliceAfter(after.id(), pageable);
+        }
+        return summaryLoader.toSliceResponse(articles, article -> ArticleCursor.byPublishedAt(article.getPublishedAt(), article.getId()));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ArticleResponse> searchArticles(String search, Pageable pageable) {
-        Page<Article> articles = articleRepository.searchArticles(search, pageable);
-        return articles.map(this::mapToArticleResponse);
+        Page<Long> ids = searchIndex.search(search, null, null, null, null, true, pageable);
+        return new PageImpl<>(summaryLoader.loadInOrder(ids.getContent()), pageable, ids.getTotalElements());
     }
 
     @Override
@@ -256,9 +329,15 @@ public class ArticleServiceImpl implements ArticleService {
             throw new IllegalArgumentException("You can only delete your own articles");
         }
 
+        tagService.updateTagsForArticle(articleId, article.getTags(), java.util.Collections.emptySet());
+        eventPublisher.publishEvent(ArticleChangedEvent.deleted(article));
+
         // Delete all versions first
         articleVersionRepository.deleteByArticleId(articleId);
         articleRepository.delete(article);
+        viewCounter.discard(articleId);
+        clapAccumulator.discard(articleId);
+        statsCache.discard(articleId);
     }
 
     @Override
@@ -274,9 +353,11 @@ public class ArticleServiceImpl implements ArticleService {
             throw new IllegalArgumentException("You can only publish your own articles");
         }
 
+        boolean wasPublished = article.isPublished();
         article.setPublished(true);
         article.setPublishedAt(LocalDateTime.now());
         articleRepository.save(article);
+        eventPublisher.publishEvent(ArticleChangedEvent.saved(article, wasPublished));
     }
 
     @Override
@@ -292,18 +373,17 @@ public class ArticleServiceImpl implements ArticleService {
             throw new IllegalArgumentException("You can only unpublish your own articles");
         }
 
+        boolean wasPublished = article.isPublished();
         article.setPublished(false);
         article.setPublishedAt(null);
         articleRepository.save(article);
+        eventPublisher.publishEvent(ArticleChangedEvent.saved(article, wasPublished));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ArticleVersionResponse> getArticleVersions(Long articleId) {
-        List<ArticleVersion> versions = articleVersionRepository.findByArticleIdOrderByVersionNumberDesc(articleId);
-        return versions.stream()
-                .map(this::mapToArticleVersionResponse)
-                .collect(Collectors.toList());
+    public Page<ArticleVersionSummary> getArticleVersions(Long articleId, Pageable pageable) {
+        return articleVersionRepository.findByArticleId(articleId, pageable);
     }
 
     @Override
@@ -311,12 +391,15 @@ public class ArticleServiceImpl implements ArticleService {
     public ArticleVersionResponse getArticleVersion(Long articleId, Integer versionNumber) {
         ArticleVersion version = articleVersionRepository.findByArticleIdAndVersionNumber(articleId, versionNumber)
                 .orElseThrow(() -> new IllegalArgumentException("Version not found"));
-        return mapToArticleVersionResponse(version);
+        return mapToArticleVersionResponse(version, versionStore.contentOf(version));
     }
 
     @Override
-    @Transactional
     public ArticleResponse restoreArticleVersion(String authorEmail, Long articleId, Integer versionNumber) {
+        return slugAllocator.withRetry(() -> saveRestoredVersion(authorEmail, articleId, versionNumber));
+    }
+
+    private ArticleResponse saveRestoredVersion(String authorEmail, Long articleId, Integer versionNumber) {
         Article article = articleRepository.findById(articleId)
                 .orElseThrow(() -> new IllegalArgumentException("Article not found"));
 
@@ -330,19 +413,27 @@ public class ArticleServiceImpl implements ArticleService {
         ArticleVersion version = articleVersionRepository.findByArticleIdAndVersionNumber(articleId, versionNumber)
                 .orElseThrow(() -> new IllegalArgumentException("Version not found"));
 
+        java.util.Set<String> previousTags = new java.util.HashSet<>(article.getTags());
+        String previousBaseSlug = ArticleUtils.generateSlug(article.getTitle());
+
         // Create version before restoring
-        createArticleVersion(article, authorEmail, "Restored from version " + versionNumber);
+        versionStore.save(article, authorEmail, "Restored from version " + versionNumber);
 
         // Restore article from version
+        String content = versionStore.contentOf(version);
         article.setTitle(version.getTitle());
-        article.setContent(version.getContent());
+        article.setContent(content);
         article.setSummary(version.getSummary());
         article.setTags(version.getTags());
         article.setCoverImageUrl(version.getCoverImageUrl());
-        article.setSlug(version.getSlug());
-        article.setReadTime(ArticleUtils.calculateReadTime(version.getContent()));
+        article.setSlug(slugAllocator.allocate(version.getSlug(), article.getSlug(), previousBaseSlug)); // Another article may hold it by now
+        article.setReadTime(ArticleUtils.calculateReadTime(content));
+        article.setContentMetrics(ContentAnalyzer.analyze(content));
+        article.setContentHash(ArticleUtils.contentHash(content));
 
         Article restoredArticle = articleRepository.save(article);
+        tagService.updateTagsForArticle(restoredArticle.getId(), previousTags, restoredArticle.getTags());
+        eventPublisher.publishEvent(ArticleChangedEvent.saved(restoredArticle, restoredArticle.isPublished()));
         return mapToArticleResponse(restoredArticle);
     }
 
@@ -362,26 +453,7 @@ public class ArticleServiceImpl implements ArticleService {
         ArticleVersion version = articleVersionRepository.findByArticleIdAndVersionNumber(articleId, versionNumber)
                 .orElseThrow(() -> new IllegalArgumentException("Version not found"));
 
-        articleVersionRepository.delete(version);
-    }
-
-    private void createArticleVersion(Article article, String editorEmail, String changeDescription) {
-        Integer nextVersionNumber = articleVersionRepository.countByArticleId(article.getId()) + 1;
-        
-        ArticleVersion version = ArticleVersion.builder()
-                .article(article)
-                .versionNumber(nextVersionNumber)
-                .title(article.getTitle())
-                .content(article.getContent())
-                .summary(article.getSummary())
-                .tags(article.getTags())
-                .coverImageUrl(article.getCoverImageUrl())
-                .slug(article.getSlug())
-                .changeDescription(changeDescription)
-                .editorEmail(editorEmail)
-                .build();
-
-        articleVersionRepository.save(version);
+        versionStore.delete(version);
     }
 
     private ArticleResponse mapToArticleResponse(Article article) {
@@ -400,16 +472,16 @@ public class ArticleServiceImpl implements ArticleService {
                 .updatedAt(article.getUpdatedAt())
                 .publishedAt(article.getPublishedAt())
                 .readTime(article.getReadTime())
-                .viewCount(article.getViewCount())
+                .viewCount(viewCounter.mergedViewCount(article.getId(), article.getViewCount()))
                 .build();
     }
 
-    private ArticleVersionResponse mapToArticleVersionResponse(ArticleVersion version) {
+    private ArticleVersionResponse mapToArticleVersionResponse(ArticleVersion version, String content) {
         return ArticleVersionResponse.builder()
                 .id(version.getId())
                 .versionNumber(version.getVersionNumber())
                 .title(version.getTitle())
-                .content(version.getContent())
+                .content(content)
                 .summary(version.getSummary())
                 .tags(version.getTags())
                 .coverImageUrl(version.getCoverImageUrl())
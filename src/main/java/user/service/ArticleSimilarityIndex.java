@@ -0,0 +1,212 @@
+package user.service;
+
+import com.medium_clone.user.entity.ArticleEngagement;
+import user.repository.ArticleEngagementRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Item-to-item collaborative filtering over article engagements.
+ * An offline build streams engagement rows in id order, turns them into one
+ * weighted article vector per user, and accumulates co-engagement between
+ * every pair of articles a user engaged with. Pair sums are computed one
+ * article row at a time from an article-to-users inverted list, in a primitive
+ * long-to-double map. Similarity is the cosine of the two articles' user
+ * vectors, and each row is cut to its top-K neighbours before the next is built. The result is
+ * an immutable snapshot swapped in atomically; scoring a user against it is
+ * pure in-memory work.
+ */
+@Component
+public class ArticleSimilarityIndex {
+
+    private static final int PAGE_SIZE = 10_000;
+
+    private static final Map<ArticleEngagement.EngagementType, Double> WEIGHTS =
+            new EnumMap<>(ArticleEngagement.EngagementType.class);
+
+    static {
+        WEIGHTS.put(ArticleEngagement.EngagementType.VIEW, 1.0);
+        WEIGHTS.put(ArticleEngagement.EngagementType.CLAP, 2.0);
+        WEIGHTS.put(ArticleEngagement.EngagementType.LIKE, 3.0);
+        WEIGHTS.put(ArticleEngagement.EngagementType.SHARE, 3.0);
+        WEIGHTS.put(ArticleEngagement.EngagementType.BOOKMARK, 4.0);
+    }
+
+    private final ArticleEngagementRepository engagementRepository;
+    private final int topK;
+    private final int maxItemsPerUser;
+
+    private volatile Snapshot snapshot = new Snapshot(new long[0], new long[0][], new float[0][]);
+
+    @Autowired
+    public ArticleSimilarityIndex(ArticleEngagementRepository engagementRepository,
+                                  @Value("${app.recommendations.similarity.top-k:50}") int topK,
+                                  @Value("${app.recommendations.similarity.max-items-per-user:200}") int maxItemsPerUser) {
+        this.engagementRepository = engagementRepository;
+        this.topK = topK;
+        this.maxItemsPerUser = maxItemsPerUser;
+    }
+
+    public static double weightOf(ArticleEngagement.EngagementType type) {
+        return WEIGHTS.getOrDefault(type, 1.0);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.recommendations.similarity.rebuild-interval-ms:3600000}",
+               fixedDelayString = "${app.recommendations.similarity.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        try {
+            snapshot = buildSnapshot(loadUserVectors());
+        } catch (Exception e) {
+            System.err.println("Error building article similarity index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Score candidate articles for a user: each engaged article contributes its
+     * neighbours weighted by similarity and by the user's engagement weight.
+     * Articles in exclude are never returned. Best first, at most limit ids.
+     */
+    public List<Long> recommend(LongDoubleMap userWeights, Set<Long> exclude, int limit) {
+        Snapshot current = snapshot;
+        LongDoubleMap scores = new LongDoubleMap(userWeights.size() * topK);
+        userWeights.forEach((articleId, weight) -> {
+            int index = Arrays.binarySearch(current.articleIds, articleId);
+            if (index < 0) return;
+            long[] neighbours = current.neighbours[index];
+            float[] similarities = current.similarities[index];
+            for (int i = 0; i < neighbours.length; i++) {
+                if (!exclude.contains(neighbours[i])) {
+                    scores.add(neighbours[i], weight * similarities[i]);
+                }
+            }
+        });
+        return topIds(scores, limit);
+    }
+
+    public int size() {
+        return snapshot.articleIds.length;
+    }
+
+    // One weighted article vector per user, capped to the user's strongest articles
+    private Map<Long, LongDoubleMap> loadUserVectors() {
+        Map<Long, LongDoubleMap> users = new HashMap<>();
+        long afterId = 0;
+        while (true) {
+            List<Object[]> rows = engagementRepository.findEngagementPairsAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+            for (Object[] row : rows) {
+                Long userId = (Long) row[1];
+                users.computeIfAbsent(userId, id -> new LongDoubleMap())
+                        .add((Long) row[2], weightOf((ArticleEngagement.EngagementType) row[3]));
+            }
+            if (rows.size() < PAGE_SIZE) break;
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        }
+        users.replaceAll((userId, vector) -> vector.size() > maxItemsPerUser ? strongest(vector, maxItemsPerUser) : vector);
+        return users;
+    }
+
+    private Snapshot buildSnapshot(Map<Long, LongDoubleMap> users) {
+        // Squared norms per article, and the users who engaged with each article
+        List<LongDoubleMap> vectors = new ArrayList<>(users.values());
+        LongDoubleMap norms = new LongDoubleMap();
+        Map<Long, Postings> postings = new HashMap<>();
+        for (int u = 0; u < vectors.size(); u++) {
+            LongDoubleMap vector = vectors.get(u);
+            boolean coEngaged = vector.size() > 1;
+            int user = u;
+            vector.forEach((articleId, weight) -> {
+                norms.add(articleId, weight * weight);
+                if (coEngaged) {
+                    postings.computeIfAbsent(articleId, id -> new Postings()).add(user);
+                }
+            });
+        }
+
+        // One row of co-engagement dot products at a time, pruned to its top-K before the next;
+        // the full article-by-article matrix is never held in memory
+        long[] articleIds = postings.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        long[][] neighbours = new long[articleIds.length][];
+        float[][] similarities = new float[articleIds.length][];
+        PriorityQueue<Scored> heap = new PriorityQueue<>(topK + 1, Comparator.comparingDouble(Scored::score));
+        for (int a = 0; a < articleIds.length; a++) {
+            long articleId = articleIds[a];
+            Postings engaged = postings.get(articleId);
+            LongDoubleMap row = new LongDoubleMap();
+            for (int i = 0; i < engaged.size; i++) {
+                LongDoubleMap vector = vectors.get(engaged.users[i]);
+                double weight = vector.get(articleId);
+                vector.forEach((other, otherWeight) -> {
+                    if (other != articleId) {
+                        row.add(other, weight * otherWeight);
+                    }
+                });
+            }
+            double norm = Math.sqrt(norms.get(articleId));
+            row.forEach((other, dot) -> offer(heap, topK, other, dot / (norm * Math.sqrt(norms.get(other)))));
+            neighbours[a] = new long[heap.size()];
+            similarities[a] = new float[heap.size()];
+            for (int i = heap.size() - 1; i >= 0; i--) {
+                Scored next = heap.poll();
+                neighbours[a][i] = next.id();
+                similarities[a][i] = (float) next.score();
+            }
+        }
+        return new Snapshot(articleIds, neighbours, similarities);
+    }
+
+    private static LongDoubleMap strongest(LongDoubleMap vector, int limit) {
+        LongDoubleMap kept = new LongDoubleMap(limit);
+        for (Long articleId : topIds(vector, limit)) {
+            kept.put(articleId, vector.get(articleId));
+        }
+        return kept;
+    }
+
+    // Keys with the highest values, best first, via a bounded min-heap
+    private static List<Long> topIds(LongDoubleMap scores, int limit) {
+        PriorityQueue<Scored> heap = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Scored::score));
+        scores.forEach((key, value) -> offer(heap, limit, key, value));
+        Long[] ids = new Long[heap.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = heap.poll().id();
+        }
+        return Arrays.asList(ids);
+    }
+
+    // Keep (id, score) if it is among the limit best seen so far
+    private static void offer(PriorityQueue<Scored> heap, int limit, long id, double score) {
+        if (heap.size() < limit) {
+            heap.add(new Scored(id, score));
+        } else if (limit > 0 && score > heap.peek().score()) {
+            heap.poll();
+            heap.add(new Scored(id, score));
+        }
+    }
+
+    private record Scored(long id, double score) {
+    }
+
+    // Indexes of the users who engaged with one article
+    private static final class Postings {
+        private int[] users = new int[4];
+        private int size;
+
+        private void add(int user) {
+            if (size == users.length) {
+                users = Arrays.copyOf(users, size << 1);
+            }
+            users[size++] = user;
+        }
+    }
+
+    private record Snapshot(long[] articleIds, long[][] neighbours, float[][] similarities) {
+    }
+}
@@ -0,0 +1,116 @@
+package user.service;
+
+import com.medium_clone.user.dto.ArticleResponse;
+import com.medium_clone.user.dto.ArticleSliceResponse;
+import com.medium_clone.user.dto.ArticleSummary;
+import user.repository.ArticleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Turns ArticleSummary projections into list-item ArticleResponses.
+ * Content stays null; tags for the whole page come from a single query and
+ * view counts include views not yet flushed.
+ */
+@Component
+public class ArticleSummaryLoader {
+
+    private final ArticleRepository articleRepository;
+    private final ArticleViewCounter viewCounter;
+
+    @Autowired
+    public ArticleSummaryLoader(ArticleRepository articleRepository, ArticleViewCounter viewCounter) {
+        this.articleRepository = articleRepository;
+        this.viewCounter = viewCounter;
+    }
+
+    public List<ArticleResponse> toResponses(List<ArticleSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Set<String>> tagsById = new HashMap<>();
+        List<Long> ids = summaries.stream().map(ArticleSummary::getId).collect(Collectors.toList());
+        for (Object[] row : articleRepository.findTagsByArticleIds(ids)) {
+            tagsById.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+        }
+        return summaries.stream()
+                .map(summary -> toResponse(summary, tagsById.getOrDefault(summary.getId(), new HashSet<>())))
+                .collect(Collectors.toList());
+    }
+
+    public Page<ArticleResponse> toPage(Page<ArticleSummary> page) {
+        return new PageImpl<>(toResponses(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    /**
+     * Keyset page with the cursor of its last row, or no cursor on the last page
+     */
+    public ArticleSliceResponse toSliceResponse(Slice<ArticleSummary> slice, Function<ArticleSummary, ArticleCursor> cursorOf) {
+        List<ArticleSummary> summaries = slice.getContent();
+        String nextCursor = slice.hasNext() && !summaries.isEmpty()
+                ? cursorOf.apply(summaries.get(summaries.size() - 1)).encode()
+                : null;
+        return ArticleSliceResponse.builder()
+                .content(toResponses(summaries))
+                .size(summaries.size())
+                .hasNext(slice.hasNext())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Load summaries by id and return them in the order given; missing ids are skipped
+     */
+    public List<ArticleResponse> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return inOrder(ids, articleRepository.findSummariesByIdIn(ids));
+    }
+
+    /**
+     * Like loadInOrder, but also skips ids that are no longer published, e.g.
+     * feed entries retracted after they were read from a timeline
+     */
+    public List<ArticleResponse> loadPublishedInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return inOrder(ids, articleRepository.findPublishedSummariesByIdIn(ids));
+    }
+
+    private List<ArticleResponse> inOrder(List<Long> ids, List<ArticleSummary> summaries) {
+        Map<Long, ArticleSummary> byId = summaries.stream()
+                .collect(Collectors.toMap(ArticleSummary::getId, s -> s));
+        return toResponses(ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    private ArticleResponse toResponse(ArticleSummary summary, Set<String> tags) {
+        return ArticleResponse.builder()
+                .id(summary.getId())
+                .title(summary.getTitle())
+                .summary(summary.getSummary())
+                .tags(tags)
+                .coverImageUrl(summary.getCoverImageUrl())
+                .slug(summary.getSlug())
+                .published(summary.isPublished())
+                .authorUsername(summary.getAuthorUsername())
+                .authorImage(summary.getAuthorImage())
+                .createdAt(summary.getCreatedAt())
+                .updatedAt(summary.getUpdatedAt())
+                .publishedAt(summary.getPublishedAt())
+                .readTime(summary.getReadTime())
+                .viewCount(viewCounter.mergedViewCount(summary.getId(), summary.getViewCount()))
+                .build();
+    }
+}
@@ -0,0 +1,338 @@
+package user.service;
+
+import com.medium_clone.user.entity.ArticleEngagement;
+import user.repository.ArticleEngagementRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Streaming trending articles, fed by committed engagements.
+ * Each engagement is weighted by type and added to the article's score with
+ * forward decay (2^((t - landmark) / halfLife)), so scores fall by half every
+ * half-life while their order only changes when an article is engaged with;
+ * the ranking set is kept sorted incrementally and reading a page of it needs
+ * no query. The hour/day/week windows are exact sliding sums over a ring of
+ * time buckets: a bucket that falls out of its window is subtracted from the
+ * totals and reused.
+ */
+@Component
+public class ArticleTrendingEngine {
+
+    public enum Window {
+        HOUR(Duration.ofMinutes(5), 12),
+        DAY(Duration.ofHours(1), 24),
+        WEEK(Duration.ofHours(6), 28);
+
+        private final long bucketMillis;
+        private final int buckets;
+
+        Window(Duration bucket, int buckets) {
+            this.bucketMillis = bucket.toMillis();
+            this.buckets = buckets;
+        }
+
+        private long spanMillis() {
+            return bucketMillis * buckets;
+        }
+    }
+
+    private static final Map<ArticleEngagement.EngagementType, Double> WEIGHTS =
+            new EnumMap<>(ArticleEngagement.EngagementType.class);
+
+    static {
+        WEIGHTS.put(ArticleEngagement.EngagementType.VIEW, 1.0);
+        WEIGHTS.put(ArticleEngagement.EngagementType.CLAP, 2.0);
+        WEIGHTS.put(ArticleEngagement.EngagementType.LIKE, 3.0);
+        WEIGHTS.put(ArticleEngagement.EngagementType.BOOKMARK, 4.0);
+        WEIGHTS.put(ArticleEngagement.EngagementType.SHARE, 5.0);
+    }
+
+    private static final double MAX_EXPONENT = 60.0;
+    private static final double PRUNE_BELOW = 0.01;
+    private static final double EPSILON = 1e-9;
+
+    private final ArticleEngagementRepository engagementRepository;
+    private final double halfLifeMillis;
+    private final Clock clock;
+
+    private final Ranking decayed = new Ranking();
+    private final Map<Window, SlidingWindow> windows = new EnumMap<>(Window.class);
+    private long landmarkMillis;
+
+    @Autowired
+    public ArticleTrendingEngine(ArticleEngagementRepository engagementRepository,
+                                 @Value("${app.trending.articles.half-life-hours:12}") double halfLifeHours) {
+        this(engagementRepository, halfLifeHours, Clock.systemDefaultZone());
+    }
+
+    ArticleTrendingEngine(ArticleEngagementRepository engagementRepository, double halfLifeHours, Clock clock) {
+        this.engagementRepository = engagementRepository;
+        this.halfLifeMillis = halfLifeHours * 3_600_000d;
+        this.clock = clock;
+        this.landmarkMillis = clock.millis();
+        for (Window window : Window.values()) {
+            windows.put(window, new SlidingWindow(window));
+        }
+    }
+
+    /**
+     * Seed from the last week of engagement rows, so trending survives a restart.
+     * A row is one user's engagement of one type, timed at its latest repeat
+     * (lastEngagedAt, or createdAt for rows never repeated); all of its count is
+     * placed at that time, which is close enough for a ranking that is dominated
+     * by fresh activity anyway.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void seed() {
+        LocalDateTime since = LocalDateTime.now(clock).minus(Duration.ofMillis(Window.WEEK.spanMillis()));
+        List<Object[]> rows = engagementRepository.findPublishedEngagementsSince(since);
+        synchronized (this) {
+            for (Object[] row : rows) {
+                ArticleEngagement.EngagementType type = (ArticleEngagement.EngagementType) row[1];
+                int count = row[3] != null ? (Integer) row[3] : 1;
+                record((Long) row[0], type, count, toMillis((LocalDateTime) row[2]));
+            }
+        }
+    }
+
+    /**
+     * Count engagements on an article; called once they are committed
+     */
+    public synchronized void record(Long articleId, ArticleEngagement.EngagementType type, int count, LocalDateTime at) {
+        record(articleId, type, count, toMillis(at));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onArticleChanged(ArticleChangedEvent event) {
+        if (event.isDeleted() || !event.article().published()) {
+            Long id = event.article().id();
+            decayed.remove(id);
+            for (SlidingWindow window : windows.values()) {
+                window.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Article ids by decayed engagement score, best first
+     */
+    public synchronized List<Long> top(int offset, int limit) {
+        return decayed.page(offset, limit);
+    }
+
+    /**
+     * Article ids by weighted engagement within the window, best first
+     */
+    public synchronized List<Long> top(Window window, int offset, int limit) {
+        SlidingWindow sliding = windows.get(window);
+        sliding.advance(clock.millis());
+        return sliding.totals.page(offset, limit);
+    }
+
+    public synchronized int size() {
+        return decayed.size();
+    }
+
+    public synchronized int size(Window window) {
+        SlidingWindow sliding = windows.get(window);
+        sliding.advance(clock.millis());
+        return sliding.totals.size();
+    }
+
+    /**
+     * Current decayed score of an article; a view one half-life ago counts 0.5
+     */
+    public synchronized double scoreOf(Long articleId) {
+        return decayed.scoreOf(articleId) * Math.pow(2, (landmarkMillis - clock.millis()) / halfLifeMillis);
+    }
+
+    /**
+     * Expire window buckets and drop articles whose decayed score is negligible
+     */
+    @Scheduled(fixedDelayString = "${app.trending.articles.tick-interval-ms:60000}")
+    public synchronized void tick() {
+        long now = clock.millis();
+        for (SlidingWindow window : windows.values()) {
+            window.advance(now);
+        }
+        double threshold = PRUNE_BELOW / Math.pow(2, (landmarkMillis - now) / halfLifeMillis);
+        decayed.removeBelow(threshold);
+    }
+
+    private void record(Long articleId, ArticleEngagement.EngagementType type, int count, long atMillis) {
+        double amount = WEIGHTS.getOrDefault(type, 1.0) * Math.max(count, 1);
+        double exponent = (atMillis - landmarkMillis) / halfLifeMillis;
+        if (exponent > MAX_EXPONENT) {
+            decayed.rescale(Math.pow(2, (landmarkMillis - atMillis) / halfLifeMillis));
+            landmarkMillis = atMillis;
+            exponent = 0;
+        }
+        decayed.add(articleId, amount * Math.pow(2, exponent));
+        long now = clock.millis();
+        for (SlidingWindow window : windows.values()) {
+            window.add(articleId, amount, atMillis, now);
+        }
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time == null ? clock.millis()
+                : time.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Scores per article with a sorted view kept in step
+     */
+    private static final class Ranking {
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final TreeSet<Entry> sorted = new TreeSet<>(Comparator
+                .comparingDouble((Entry entry) -> entry.score).reversed()
+                .thenComparing(entry -> entry.articleId));
+
+        private void add(Long articleId, double amount) {
+            Entry entry = entries.get(articleId);
+            if (entry == null) {
+                entry = new Entry(articleId);
+                entries.put(articleId, entry);
+            } else {
+                sorted.remove(entry);
+            }
+            entry.score += amount;
+            if (entry.score <= EPSILON) {
+                entries.remove(articleId);
+            } else {
+                sorted.add(entry);
+            }
+        }
+
+        private void remove(Long articleId) {
+            Entry entry = entries.remove(articleId);
+            if (entry != null) {
+                sorted.remove(entry);
+            }
+        }
+
+        private void removeBelow(double threshold) {
+            while (!sorted.isEmpty() && sorted.last().score < threshold) {
+                entries.remove(sorted.pollLast().articleId);
+            }
+        }
+
+        // Multiplying every score by the same factor keeps the order
+        private void rescale(double factor) {
+            sorted.clear();
+            for (Entry entry : entries.values()) {
+                entry.score *= factor;
+                sorted.add(entry);
+            }
+        }
+
+        private double scoreOf(Long articleId) {
+            Entry entry = entries.get(articleId);
+            return entry == null ? 0.0 : entry.score;
+        }
+
+        private List<Long> page(int offset, int limit) {
+            List<Long> ids = new ArrayList<>(Math.max(0, Math.min(limit, sorted.size() - offset)));
+            int index = 0;
+            for (Entry entry : sorted) {
+                if (ids.size() >= limit) break;
+                if (index++ >= offset) {
+                    ids.add(entry.articleId);
+                }
+            }
+            return ids;
+        }
+
+        private int size() {
+            return sorted.size();
+        }
+    }
+
+    private static final class Entry {
+        private final Long articleId;
+        private double score;
+
+        private Entry(Long articleId) {
+            this.articleId = articleId;
+        }
+    }
+
+    /**
+     * Ring of time buckets holding the weighted engagement per article in that
+     * slice of time; the totals are the sum over the live buckets
+     */
+    private static final class SlidingWindow {
+        private final Window window;
+        private final Bucket[] buckets;
+        private final Ranking totals = new Ranking();
+
+        private SlidingWindow(Window window) {
+            this.window = window;
+            this.buckets = new Bucket[window.buckets];
+            for (int i = 0; i < window.buckets; i++) {
+                buckets[i] = new Bucket();
+            }
+        }
+
+        private void add(Long articleId, double amount, long atMillis, long nowMillis) {
+            long epoch = atMillis / window.bucketMillis;
+            long newest = nowMillis / window.bucketMillis;
+            if (epoch <= newest - window.buckets) {
+                return; // Already outside the window
+            }
+            Bucket bucket = buckets[(int) Math.floorMod(epoch, (long) window.buckets)];
+            if (bucket.epoch != epoch) {
+                if (bucket.epoch > epoch) {
+                    return; // Slot already reused by a later bucket
+                }
+                expire(bucket);
+                bucket.epoch = epoch;
+            }
+            bucket.amounts.merge(articleId, amount, Double::sum);
+            totals.add(articleId, amount);
+        }
+
+        private void advance(long nowMillis) {
+            long oldestLive = nowMillis / window.bucketMillis - window.buckets + 1;
+            for (Bucket bucket : buckets) {
+                if (bucket.epoch != Long.MIN_VALUE && bucket.epoch < oldestLive) {
+                    expire(bucket);
+                    bucket.epoch = Long.MIN_VALUE;
+                }
+            }
+        }
+
+        private void expire(Bucket bucket) {
+            for (Map.Entry<Long, Double> e : bucket.amounts.entrySet()) {
+                totals.add(e.getKey(), -e.getValue());
+            }
+            bucket.amounts.clear();
+        }
+
+        private void remove(Long articleId) {
+            totals.remove(articleId);
+            for (Bucket bucket : buckets) {
+                bucket.amounts.remove(articleId);
+            }
+        }
+    }
+
+    // One slice of a window; epoch is the bucket number since 1970, MIN_VALUE when unused
+    private static final class Bucket {
+        private long epoch = Long.MIN_VALUE;
+        private final Map<Long, Double> amounts = new HashMap<>();
+    }
+}
@@ -0,0 +1,164 @@
+package user.service;
+
+import com.medium_clone.user.entity.Article;
+import com.medium_clone.user.entity.ArticleVersion;
+import user.repository.ArticleVersionRepository;
+import user.util.ArticleUtils;
+import user.util.TextDelta;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Delta-compressed storage of article version content.
+ * A version's content is stored as a TextDelta against the previous version,
+ * with a full copy (keyframe) every keyframe-interval versions so rebuilding a
+ * version never replays more than that many deltas. Content identical to an
+ * earlier version, such as a restore, is matched by hash and stored as a bare
+ * reference to that version.
+ *
+ * Rows written before delta storage have no content hash and keep their full
+ * content in the content column; they are read as keyframes.
+ *
+ * The content of each article's latest version is kept in a small LRU, so the
+ * diff for the next version does not replay the previous one's chain.
+ */
+@Component
+public class ArticleVersionStore {
+
+    private final ArticleVersionRepository versionRepository;
+    private final int keyframeInterval;
+
+    // Content of the latest version saved per article, so the next save diffs against it without a replay
+    private final Map<Long, LatestContent> latestContent;
+
+    @Autowired
+    public ArticleVersionStore(ArticleVersionRepository versionRepository,
+                               @Value("${app.versions.keyframe-interval:10}") int keyframeInterval,
+                               @Value("${app.versions.latest-content-cache-size:256}") int latestContentCacheSize) {
+        this.versionRepository = versionRepository;
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.latestContent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, LatestContent> eldest) {
+                return size() > latestContentCacheSize;
+            }
+        });
+    }
+
+    /**
+     * Save the article's current state as its next version
+     */
+    public ArticleVersion save(Article article, String editorEmail, String changeDescription) {
+        Long articleId = article.getId();
+        String content = article.getContent() != null ? article.getContent() : "";
+        String contentHash = ArticleUtils.contentHash(content);
+
+        ArticleVersion version = ArticleVersion.builder()
+                .article(article)
+                .versionNumber(versionRepository.findMaxVersionNumber(articleId) + 1)
+                .title(article.getTitle())
+                .summary(article.getSummary())
+                .tags(new HashSet<>(article.getTags()))
+                .coverImageUrl(article.getCoverImageUrl())
+                .slug(article.getSlug())
+                .changeDescription(changeDescription)
+                .editorEmail(editorEmail)
+                .contentHash(contentHash)
+                .build();
+
+        Optional<ArticleVersion> same = versionRepository
+                .findFirstByArticleIdAndContentHashOrderByVersionNumberDesc(articleId, contentHash);
+        Optional<ArticleVersion> previous = versionRepository.findFirstByArticleIdOrderByVersionNumberDesc(articleId);
+        String previousContent = previous.map(this::previousContentOf).orElse("");
+        TextDelta.Diff diff = TextDelta.diff(previousContent, content);
+        version.setContentLength(content.length());
+        version.setCharsAdded(diff.insertedChars());
+        version.setCharsRemoved(diff.removedChars(previousContent));
+
+        if (same.isPresent()) {
+            // Reference the version holding the content, never another reference
+            ArticleVersion holder = same.get();
+            boolean isReference = holder.getContentDelta() == null && holder.getBaseVersionNumber() != null;
+            version.setBaseVersionNumber(isReference ? holder.getBaseVersionNumber() : holder.getVersionNumber());
+            version.setChainLength(chainLength(holder));
+        } else if (previous.isPresent() && chainLength(previous.get()) + 1 < keyframeInterval) {
+            version.setBaseVersionNumber(previous.get().getVersionNumber());
+            version.setChainLength(chainLength(previous.get()) + 1);
+            version.setContentDelta(diff.delta());
+        } else {
+            version.setChainLength(0);
+            version.setContentDelta(TextDelta.keyframe(content));
+        }
+        ArticleVersion saved = versionRepository.save(version);
+        latestContent.put(articleId, new LatestContent(saved.getVersionNumber(), contentHash, content));
+        return saved;
+    }
+
+    /**
+     * Full content of a version, replayed from its keyframe
+     */
+    public String contentOf(ArticleVersion version) {
+        Long articleId = version.getArticle().getId();
+        Deque<ArticleVersion> chain = new ArrayDeque<>();
+        ArticleVersion current = version;
+        String content;
+        while (true) {
+            if (current.getContentHash() == null) {
+                content = current.getContent() != null ? current.getContent() : "";
+                break;
+            }
+            chain.push(current);
+            if (current.getBaseVersionNumber() == null) {
+                content = ""; // Keyframe: a delta against the empty text
+                break;
+            }
+            Integer baseVersionNumber = current.getBaseVersionNumber();
+            current = versionRepository.findByArticleIdAndVersionNumber(articleId, baseVersionNumber)
+                    .orElseThrow(() -> new IllegalStateException("Base version " + baseVersionNumber
+                            + " of article " + articleId + " is missing"));
+        }
+        while (!chain.isEmpty()) {
+            byte[] delta = chain.pop().getContentDelta();
+            if (delta != null) {
+                content = TextDelta.apply(content, delta);
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Delete a version, first turning the versions stored against it into keyframes
+     */
+    public void delete(ArticleVersion version) {
+        List<ArticleVersion> dependents = versionRepository
+                .findByArticleIdAndBaseVersionNumber(version.getArticle().getId(), version.getVersionNumber());
+        for (ArticleVersion dependent : dependents) {
+            dependent.setContentDelta(TextDelta.keyframe(contentOf(dependent)));
+            dependent.setBaseVersionNumber(null);
+            dependent.setChainLength(0);
+        }
+        versionRepository.saveAll(dependents);
+        versionRepository.delete(version);
+    }
+
+    // Cached when it is the version this store saved last; replayed otherwise, e.g. after a restart
+    private String previousContentOf(ArticleVersion previous) {
+        LatestContent cached = latestContent.get(previous.getArticle().getId());
+        if (cached != null && cached.versionNumber() == previous.getVersionNumber()
+                && cached.contentHash().equals(previous.getContentHash())) {
+            return cached.content();
+        }
+        return contentOf(previous);
+    }
+
+    private static int chainLength(ArticleVersion version) {
+        return version.getChainLength() != null ? version.getChainLength() : 0;
+    }
+
+    // A version number alone could be reused after its version is deleted; the hash pins the content
+    private record LatestContent(int versionNumber, String contentHash, String content) {
+    }
+}
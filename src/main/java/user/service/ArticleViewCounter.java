@@ -0,0 +1,105 @@
+package user.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind view counter.
+ * Reads only bump an in-memory striped counter; the aggregated deltas are
+ * written to the articles table in one batched UPDATE per flush interval.
+ * Counters that stayed at zero for a whole interval are removed.
+ */
+@Component
+public class ArticleViewCounter {
+
+    private static final String FLUSH_SQL =
+            "UPDATE articles SET view_count = COALESCE(view_count, 0) + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, LongAdder> pendingViews = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ArticleViewCounter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Record one view; never touches the database
+     */
+    public void increment(Long articleId) {
+        if (articleId == null) return;
+        pendingViews.computeIfAbsent(articleId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Views recorded since the last flush
+     */
+    public long getPendingViews(Long articleId) {
+        if (articleId == null) return 0L;
+        LongAdder adder = pendingViews.get(articleId);
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    /**
+     * Persisted view count merged with the views not yet flushed
+     */
+    public int mergedViewCount(Long articleId, Integer persistedViewCount) {
+        long total = (persistedViewCount != null ? persistedViewCount : 0) + getPendingViews(articleId);
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    /**
+     * Forget pending views, e.g. when the article is deleted
+     */
+    public void discard(Long articleId) {
+        if (articleId != null) {
+            pendingViews.remove(articleId);
+        }
+    }
+
+    // Flush aggregated deltas on a fixed interval (default every 5 seconds)
+    @Scheduled(fixedDelayString = "${app.views.flush-interval-ms:5000}")
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        pendingViews.forEach((articleId, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta > 0) {
+                batch.add(new Object[]{delta, articleId});
+            } else if (pendingViews.remove(articleId, adder)) {
+                // No views for a whole interval: drop the entry. A view that fetched the adder just
+                // before the removal is moved to a fresh entry rather than lost
+                long late = adder.sumThenReset();
+                if (late > 0) {
+                    pendingViews.computeIfAbsent(articleId, id -> new LongAdder()).add(late);
+                }
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+        } catch (Exception e) {
+            // Put the deltas back so the next flush retries them
+            for (Object[] row : batch) {
+                pendingViews.computeIfAbsent((Long) row[1], id -> new LongAdder()).add((Long) row[0]);
+            }
+            System.err.println("Error flushing article view counts: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,332 @@
+package user.service;
+
+import com.medium_clone.user.entity.Article;
+import com.medium_clone.user.entity.ArticleEngagement;
+import user.entity.User;
+import user.repository.ArticleEngagementRepository;
+import user.repository.ArticleRepository;
+import user.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory clap accumulator.
+ * Claps are counted per (article, user) and capped at 50 without a database
+ * round trip per clap; merged counts are flushed periodically. A clap total
+ * per article is kept alongside so the claps endpoint is a map lookup. Idle
+ * entries and totals are evicted after a flush; an evicted entry is marked so
+ * a clap that raced with the eviction retries against a fresh one instead of
+ * being lost. Clap notifications go out once the flush has committed.
+ */
+@Component
+public class ClapAccumulator {
+
+    public static final int MAX_CLAPS = 50;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO article_engagements (article_id, user_id, type, created_at, last_engaged_at, count) VALUES (?, ?, 'CLAP', ?, ?, ?)";
+    private static final String UPDATE_SQL =
+            "UPDATE article_engagements SET last_engaged_at = ?, count = ? WHERE article_id = ? AND user_id = ? AND type = 'CLAP'";
+
+    private final ArticleRepository articleRepository;
+    private final ArticleEngagementRepository engagementRepository;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final EngagementStatsCache statsCache;
+    private final ArticleTrendingEngine trendingEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long idleEvictionMillis;
+
+    private final Map<ClapKey, ClapState> claps = new ConcurrentHashMap<>();
+    private final Map<Long, ArticleTotal> articleTotals = new ConcurrentHashMap<>();
+    private final Map<String, Long> userIdsByEmail;
+
+    @Autowired
+    public ClapAccumulator(ArticleRepository articleRepository,
+                           ArticleEngagementRepository engagementRepository,
+                           UserRepository userRepository,
+                           NotificationService notificationService,
+                           EngagementStatsCache statsCache,
+                           ArticleTrendingEngine trendingEngine,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.claps.idle-eviction-ms:600000}") long idleEvictionMillis,
+                           @Value("${app.claps.max-cached-users:10000}") int maxCachedUsers) {
+        this.articleRepository = articleRepository;
+        this.engagementRepository = engagementRepository;
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.statsCache = statsCache;
+        this.trendingEngine = trendingEngine;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.idleEvictionMillis = idleEvictionMillis;
+        // Least recently clapping users are dropped first; they are looked up again on their next clap
+        this.userIdsByEmail = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxCachedUsers;
+            }
+        });
+    }
+
+    /**
+     * Record one clap. Returns false when the user already reached the cap.
+     */
+    public boolean clap(String userEmail, Long articleId) {
+        Long userId = userIdFor(userEmail);
+        AtomicLong total = touchTotal(articleId);
+        if (total == null) {
+            throw new IllegalArgumentException("Article not found");
+        }
+
+        ClapKey key = new ClapKey(articleId, userId);
+        while (true) {
+            ClapState state = claps.computeIfAbsent(key, this::loadState);
+            synchronized (state) {
+                if (state.evicted) {
+                    continue; // Evicted between the lookup and the lock: use the replacement
+                }
+                if (state.persisted + state.pending >= MAX_CLAPS) {
+                    return false;
+                }
+                state.pending++;
+                state.lastClapAt = LocalDateTime.now();
+                total.incrementAndGet();
+                break;
+            }
+        }
+        trendingEngine.record(articleId, ArticleEngagement.EngagementType.CLAP, 1, LocalDateTime.now());
+        return true;
+    }
+
+    /**
+     * Total claps for an article, including claps not yet flushed; 0 when the
+     * article does not exist or is not published
+     */
+    public long getTotalClaps(Long articleId) {
+        AtomicLong total = touchTotal(articleId);
+        return total != null ? total.get() : 0L;
+    }
+
+    /**
+     * Drop cached state for an article, e.g. when it is deleted
+     */
+    public void discard(Long articleId) {
+        articleTotals.remove(articleId);
+        claps.keySet().removeIf(key -> key.articleId().equals(articleId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.claps.flush-interval-ms:5000}")
+    public void flush() {
+        List<FlushEntry> entries = new ArrayList<>();
+        Set<Long> liveArticles = new HashSet<>();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<ClapKey, ClapState> e : claps.entrySet()) {
+            ClapState state = e.getValue();
+            synchronized (state) {
+                if (!state.evicted) {
+                    liveArticles.add(e.getKey().articleId());
+                }
+                if (state.pending > 0) {
+                    entries.add(new FlushEntry(e.getKey(), state.pending, state.persisted,
+                            !state.rowExists, state.lastClapAt));
+                    state.persisted += state.pending;
+                    state.pending = 0;
+                    state.rowExists = true;
+                    state.lastFlushedAt = now;
+                } else if (now - state.lastFlushedAt > idleEvictionMillis) {
+                    // Nothing pending and the lock is held, so no clap can be lost with it
+                    state.evicted = true;
+                    claps.remove(e.getKey(), state);
+                }
+            }
+        }
+        evictIdleTotals(liveArticles, now);
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeBatch(entries));
+            // A first clap from a user adds a CLAP row
+            for (FlushEntry entry : entries) {
+                if (entry.insert()) {
+                    statsCache.recordInsert(entry.key().articleId(), ArticleEngagement.EngagementType.CLAP);
+                }
+            }
+        } catch (Exception e) {
+            // Give the claps back so the next flush retries them
+            for (FlushEntry entry : entries) {
+                while (true) {
+                    ClapState state = claps.computeIfAbsent(entry.key(),
+                            k -> new ClapState(entry.previouslyPersisted() + entry.delta(), true));
+                    synchronized (state) {
+                        if (state.evicted) continue;
+                        state.persisted -= entry.delta();
+                        state.pending += entry.delta();
+                        state.rowExists = !entry.insert();
+                        break;
+                    }
+                }
+            }
+            System.err.println("Error flushing claps: " + e.getMessage());
+            return;
+        }
+
+        try {
+            // The claps are committed; a failed notification must not give them back
+            transactionTemplate.executeWithoutResult(status -> notifyClappers(entries));
+        } catch (Exception e) {
+            System.err.println("Error sending clap notifications: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void writeBatch(List<FlushEntry> entries) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (FlushEntry entry : entries) {
+            Timestamp at = Timestamp.valueOf(entry.lastClapAt());
+            int merged = entry.previouslyPersisted() + entry.delta();
+            if (entry.insert()) {
+                inserts.add(new Object[]{entry.key().articleId(), entry.key().userId(), at, at, merged});
+            } else {
+                updates.add(new Object[]{at, merged, entry.key().articleId(), entry.key().userId()});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        }
+    }
+
+    private void notifyClappers(List<FlushEntry> entries) {
+        // One notification per clapper per flush, skipping authors clapping their own article
+        Set<Long> articleIds = entries.stream().map(e -> e.key().articleId()).collect(Collectors.toSet());
+        Set<Long> userIds = entries.stream().map(e -> e.key().userId()).collect(Collectors.toSet());
+        Map<Long, Article> articles = articleRepository.findAllById(articleIds).stream()
+                .collect(Collectors.toMap(Article::getId, Function.identity()));
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        for (FlushEntry entry : entries) {
+            Article article = articles.get(entry.key().articleId());
+            User clapper = users.get(entry.key().userId());
+            if (article != null && clapper != null && !article.getAuthor().getId().equals(clapper.getId())) {
+                notificationService.notifyClap(article.getAuthor(), clapper, article);
+            }
+        }
+    }
+
+    private Long userIdFor(String userEmail) {
+        Long userId = userIdsByEmail.get(userEmail);
+        if (userId == null) {
+            // Looked up outside the map's lock; a concurrent miss just repeats the query
+            userId = userRepository.findByEmail(userEmail)
+                    .map(User::getId)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
+            userIdsByEmail.put(userEmail, userId);
+        }
+        return userId;
+    }
+
+    // The article's clap total marked as just used, or null when it is not a published article
+    private AtomicLong touchTotal(Long articleId) {
+        while (true) {
+            ArticleTotal total = articleTotals.computeIfAbsent(articleId, this::loadTotal);
+            if (total == null) {
+                return null;
+            }
+            synchronized (total) {
+                if (total.evicted) {
+                    continue; // Evicted between the lookup and the lock: use the replacement
+                }
+                total.lastUsedAt = System.currentTimeMillis();
+                return total.claps;
+            }
+        }
+    }
+
+    private ArticleTotal loadTotal(Long articleId) {
+        // Cold miss: check the article and seed the total with one SUM query; nothing is cached for a missing one
+        if (!articleRepository.existsByIdAndPublishedTrue(articleId)) {
+            return null;
+        }
+        Long persisted = engagementRepository.sumClapsByArticleId(articleId);
+        return new ArticleTotal(persisted != null ? persisted : 0L);
+    }
+
+    // Totals with no cached clap state left were fully flushed, so an idle one reloads to the same sum
+    private void evictIdleTotals(Set<Long> liveArticles, long now) {
+        for (Map.Entry<Long, ArticleTotal> e : articleTotals.entrySet()) {
+            if (liveArticles.contains(e.getKey())) continue;
+            ArticleTotal total = e.getValue();
+            synchronized (total) {
+                if (now - total.lastUsedAt > idleEvictionMillis) {
+                    total.evicted = true;
+                    articleTotals.remove(e.getKey(), total);
+                }
+            }
+        }
+    }
+
+    private ClapState loadState(ClapKey key) {
+        // One lookup per (article, user) while the entry stays cached
+        return engagementRepository
+                .findByArticleIdAndUserIdAndType(key.articleId(), key.userId(), ArticleEngagement.EngagementType.CLAP)
+                .map(e -> new ClapState(e.getCount() != null ? e.getCount() : 0, true))
+                .orElseGet(() -> new ClapState(0, false));
+    }
+
+    private record ClapKey(Long articleId, Long userId) {
+    }
+
+    private record FlushEntry(ClapKey key, int delta, int previouslyPersisted, boolean insert,
+                              LocalDateTime lastClapAt) {
+    }
+
+    private static final class ArticleTotal {
+        private final AtomicLong claps;
+        private long lastUsedAt = System.currentTimeMillis();
+        private boolean evicted;
+
+        private ArticleTotal(long claps) {
+            this.claps = new AtomicLong(claps);
+        }
+    }
+
+    private static final class ClapState {
+        private int persisted;
+        private int pending;
+        private boolean rowExists;
+        private LocalDateTime lastClapAt;
+        private long lastFlushedAt = System.currentTimeMillis();
+        private boolean evicted;
+
+        private ClapState(int persisted, boolean rowExists) {
+            this.persisted = persisted;
+            this.rowExists = rowExists;
+        }
+    }
+}
@@ -6,7 +6,10 @@ import com.medium_clone.user.entity.Article;
 import com.medium_clone.user.entity.User;
 import user.repository.ArticleRepository;
 import user.repository.UserRepository;
+import user.util.ArticleUtils;
+import user.util.ContentAnalyzer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,11 +21,14 @@ import java.util.stream.Collectors;
 public class DraftServiceImpl implements DraftService {
     private final ArticleRepository articleRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public DraftServiceImpl(ArticleRepository articleRepository, UserRepository userRepository) {
+    public DraftServiceImpl(ArticleRepository articleRepository, UserRepository userRepository,
+                            ApplicationEventPublisher eventPublisher) {
         this.articleRepository = articleRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -50,8 +56,11 @@ public class DraftServiceImpl implements DraftService {
         draft.setTags(request.getTags());
         draft.setCoverImageUrl(request.getCoverImageUrl());
         draft.setReadTime(0);
+        draft.setContentMetrics(ContentAnalyzer.analyze(request.getContent()));
+        draft.setContentHash(ArticleUtils.contentHash(request.getContent()));
         draft.setLastSavedAt(LocalDateTime.now());
         Article saved = articleRepository.save(draft);
+        eventPublisher.publishEvent(ArticleChangedEvent.saved(saved, false));
         return toResponse(saved);
     }
 
@@ -71,8 +80,11 @@ public class DraftServiceImpl implements DraftService {
         draft.setTags(request.getTags());
         draft.setCoverImageUrl(request.getCoverImageUrl());
         draft.setReadTime(0);
+        draft.setContentMetrics(ContentAnalyzer.analyze(request.getContent()));
+        draft.setContentHash(ArticleUtils.contentHash(request.getContent()));
         draft.setLastSavedAt(LocalDateTime.now());
         Article saved = articleRepository.save(draft);
+        eventPublisher.publishEvent(ArticleChangedEvent.saved(saved, false));
         return toResponse(saved);
     }
 
@@ -110,6 +122,7 @@ public class DraftServiceImpl implements DraftService {
         if (!draft.getAuthor().getId().equals(user.getId()) || draft.isPublished()) {
             throw new IllegalArgumentException("You can only delete your own drafts");
         }
+        eventPublisher.publishEvent(ArticleChangedEvent.deleted(draft));
         articleRepository.delete(draft);
     }
 
@@ -126,6 +139,7 @@ public class DraftServiceImpl implements DraftService {
         draft.setPublished(true);
         draft.setPublishedAt(LocalDateTime.now());
         Article saved = articleRepository.save(draft);
+        eventPublisher.publishEvent(ArticleChangedEvent.saved(saved, false));
         return toResponse(saved);
     }
 
@@ -0,0 +1,395 @@
+package user.service;
+
+import com.medium_clone.user.entity.Article;
+import com.medium_clone.user.entity.ArticleEngagement;
+import user.entity.User;
+import user.repository.ArticleRepository;
+import user.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous engagement ingestion.
+ * trackEngagement only enqueues a compact event into a bounded queue; a single
+ * consumer thread drains it in batches, resolves users and articles in bulk and
+ * upserts article_engagements rows with JDBC batching.
+ * When the queue passes the shed threshold VIEW events are dropped first, and
+ * other events are rejected only when the queue is completely full.
+ * A batch that fails to commit is retried with backoff; if it still fails its
+ * events are applied one at a time so only the ones that cannot be written are
+ * lost. In synchronous mode failures, including unknown users and articles, go
+ * back to the caller.
+ * Claps do not go through here; see ClapAccumulator.
+ */
+@Component
+public class EngagementIngestionPipeline {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO article_engagements (article_id, user_id, type, created_at, last_engaged_at, count) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL =
+            "UPDATE article_engagements SET last_engaged_at = ? WHERE id = ?";
+    private static final String SELECT_ROWS_SQL =
+            "SELECT id, article_id, user_id, type FROM article_engagements WHERE ";
+    private static final String PAIR_PREDICATE = "(article_id = ? AND user_id = ?)";
+    private static final int PAIR_LOOKUP_BATCH = 100;
+
+    private final ArticleRepository articleRepository;
+    private final UserRepository userRepository;
+    private final ArticleViewCounter viewCounter;
+    private final EngagementStatsCache statsCache;
+    private final ArticleTrendingEngine trendingEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<EngagementEvent> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final int viewShedThreshold;
+    private final boolean synchronous;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+
+    private final AtomicLong acceptedEvents = new AtomicLong();
+    private final AtomicLong shedViewEvents = new AtomicLong();
+    private final AtomicLong rejectedEvents = new AtomicLong();
+    private final AtomicLong processedEvents = new AtomicLong();
+    private final AtomicLong processedBatches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong retriedBatches = new AtomicLong();
+    private final AtomicLong unresolvedEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong totalBatchNanos = new AtomicLong();
+    private final AtomicLong maxBatchNanos = new AtomicLong();
+    private volatile long lastBatchNanos;
+
+    private volatile boolean running;
+    private Thread consumer;
+
+    @Autowired
+    public EngagementIngestionPipeline(ArticleRepository articleRepository,
+                                       UserRepository userRepository,
+                                       ArticleViewCounter viewCounter,
+                                       EngagementStatsCache statsCache,
+                                       ArticleTrendingEngine trendingEngine,
+                                       JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.engagement.ingestion.capacity:10000}") int capacity,
+                                       @Value("${app.engagement.ingestion.batch-size:500}") int batchSize,
+                                       @Value("${app.engagement.ingestion.view-shed-ratio:0.8}") double viewShedRatio,
+                                       @Value("${app.engagement.ingestion.synchronous:false}") boolean synchronous,
+                                       @Value("${app.engagement.ingestion.max-attempts:3}") int maxAttempts,
+                                       @Value("${app.engagement.ingestion.retry-backoff-ms:200}") long retryBackoffMs) {
+        this.articleRepository = articleRepository;
+        this.userRepository = userRepository;
+        this.viewCounter = viewCounter;
+        this.statsCache = statsCache;
+        this.trendingEngine = trendingEngine;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.viewShedThreshold = (int) (capacity * viewShedRatio);
+        this.synchronous = synchronous;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Compact engagement event as it travels through the queue
+     */
+    public record EngagementEvent(String userEmail, Long articleId,
+                                  ArticleEngagement.EngagementType type, LocalDateTime occurredAt) {
+    }
+
+    /**
+     * Thrown when a non-view engagement arrives while the queue is full
+     */
+    public static class QueueFullException extends IllegalStateException {
+        public QueueFullException(String message) {
+            super(message);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (synchronous) return;
+        running = true;
+        consumer = new Thread(this::consumeLoop, "engagement-ingestion");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (consumer != null) {
+            consumer.interrupt();
+            try {
+                consumer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Drain whatever is left so shutdown does not lose engagements
+        List<EngagementEvent> remaining = new ArrayList<>();
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            processBatch(remaining);
+            remaining.clear();
+        }
+    }
+
+    /**
+     * Enqueue an engagement. VIEW events are shed once the queue passes the
+     * shed threshold; other events are rejected only when the queue is full.
+     */
+    public void submit(EngagementEvent event) {
+        if (synchronous) {
+            acceptedEvents.incrementAndGet();
+            processBatch(List.of(event));
+            return;
+        }
+
+        if (event.type() == ArticleEngagement.EngagementType.VIEW && queue.size() >= viewShedThreshold) {
+            shedViewEvents.incrementAndGet();
+            return;
+        }
+        if (!queue.offer(event)) {
+            if (event.type() == ArticleEngagement.EngagementType.VIEW) {
+                shedViewEvents.incrementAndGet();
+                return;
+            }
+            rejectedEvents.incrementAndGet();
+            throw new QueueFullException("Engagement queue is full, please retry later");
+        }
+        acceptedEvents.incrementAndGet();
+    }
+
+    public Map<String, Object> getMetrics() {
+        long batches = processedBatches.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queueDepth", queue.size());
+        metrics.put("queueCapacity", capacity);
+        metrics.put("synchronous", synchronous);
+        metrics.put("acceptedEvents", acceptedEvents.get());
+        metrics.put("shedViewEvents", shedViewEvents.get());
+        metrics.put("rejectedEvents", rejectedEvents.get());
+        metrics.put("processedEvents", processedEvents.get());
+        metrics.put("processedBatches", batches);
+        metrics.put("failedBatches", failedBatches.get());
+        metrics.put("retriedBatches", retriedBatches.get());
+        metrics.put("unresolvedEvents", unresolvedEvents.get());
+        metrics.put("droppedEvents", droppedEvents.get());
+        metrics.put("lastBatchLatencyMs", lastBatchNanos / 1_000_000.0);
+        metrics.put("maxBatchLatencyMs", maxBatchNanos.get() / 1_000_000.0);
+        metrics.put("avgBatchLatencyMs", batches == 0 ? 0.0 : totalBatchNanos.get() / (batches * 1_000_000.0));
+        return metrics;
+    }
+
+    private void consumeLoop() {
+        List<EngagementEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                EngagementEvent first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Error in engagement ingestion loop: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<EngagementEvent> events) {
+        long start = System.nanoTime();
+        try {
+            if (synchronous) {
+                commit(events);
+                processedEvents.addAndGet(events.size());
+                return;
+            }
+            if (commitWithRetry(events)) {
+                processedEvents.addAndGet(events.size());
+                return;
+            }
+            failedBatches.incrementAndGet();
+            // Keep the rest of the batch when only some of its events cannot be written
+            for (EngagementEvent event : events) {
+                if (events.size() > 1 && tryCommit(List.of(event))) {
+                    processedEvents.incrementAndGet();
+                } else {
+                    droppedEvents.incrementAndGet();
+                    System.err.println("Dropping engagement " + event.type() + " on article " + event.articleId()
+                            + " by " + event.userEmail());
+                }
+            }
+        } catch (RuntimeException e) {
+            failedBatches.incrementAndGet();
+            System.err.println("Error applying engagement batch of " + events.size() + ": " + e.getMessage());
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            lastBatchNanos = elapsed;
+            totalBatchNanos.addAndGet(elapsed);
+            maxBatchNanos.accumulateAndGet(elapsed, Math::max);
+            processedBatches.incrementAndGet();
+        }
+    }
+
+    // The transaction rolls back on failure, so a batch can be replayed as a whole
+    private boolean commitWithRetry(List<EngagementEvent> events) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            if (tryCommit(events)) {
+                return true;
+            }
+            if (attempt < maxAttempts) {
+                retriedBatches.incrementAndGet();
+                try {
+                    Thread.sleep(retryBackoffMs * attempt);
+                } catch (InterruptedException e) {
+                    // Shutting down: give up on retries, the caller still tries event by event
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean tryCommit(List<EngagementEvent> events) {
+        try {
+            commit(events);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Error applying engagement batch of " + events.size() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void commit(List<EngagementEvent> events) {
+        BatchResult result = transactionTemplate.execute(status -> applyBatch(events));
+        unresolvedEvents.addAndGet(events.size() - result.applied().size());
+        // Feed the in-memory counters only once the rows are committed, so a retried batch counts once
+        for (EngagementKey key : result.inserted()) {
+            statsCache.recordInsert(key.articleId(), key.type());
+        }
+        for (EngagementEvent event : result.applied()) {
+            if (event.type() == ArticleEngagement.EngagementType.VIEW) {
+                viewCounter.increment(event.articleId());
+            }
+            trendingEngine.record(event.articleId(), event.type(), 1, event.occurredAt());
+        }
+    }
+
+    private BatchResult applyBatch(List<EngagementEvent> events) {
+        // Resolve users and articles in bulk
+        Set<String> emails = events.stream().map(EngagementEvent::userEmail).collect(Collectors.toSet());
+        Set<Long> articleIds = events.stream().map(EngagementEvent::articleId).collect(Collectors.toSet());
+
+        Map<String, User> usersByEmail = userRepository.findByEmailIn(emails).stream()
+                .collect(Collectors.toMap(User::getEmail, Function.identity()));
+        Map<Long, Article> articlesById = articleRepository.findByIdInAndPublishedTrue(articleIds).stream()
+                .collect(Collectors.toMap(Article::getId, Function.identity()));
+
+        // Coalesce events on (article, user, type), keeping the latest timestamp
+        Map<EngagementKey, LocalDateTime> pending = new LinkedHashMap<>();
+        List<EngagementEvent> applied = new ArrayList<>();
+        for (EngagementEvent event : events) {
+            User user = usersByEmail.get(event.userEmail());
+            Article article = articlesById.get(event.articleId());
+            if (synchronous && user == null) {
+                throw new IllegalArgumentException("User not found");
+            }
+            if (synchronous && article == null) {
+                throw new IllegalArgumentException("Article not found");
+            }
+            if (user == null || article == null) {
+                // The user or the article went away while the event was queued
+                continue;
+            }
+            applied.add(event);
+            EngagementKey key = new EngagementKey(article.getId(), user.getId(), event.type());
+            pending.merge(key, event.occurredAt(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+        if (pending.isEmpty()) {
+            return new BatchResult(List.of(), applied);
+        }
+
+        Map<EngagementKey, Long> existing = existingRowIds(pending.keySet());
+
+        List<EngagementKey> insertedKeys = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (Map.Entry<EngagementKey, LocalDateTime> e : pending.entrySet()) {
+            EngagementKey key = e.getKey();
+            Timestamp at = Timestamp.valueOf(e.getValue());
+            Long rowId = existing.get(key);
+            if (rowId == null) {
+                inserts.add(new Object[]{key.articleId(), key.userId(), key.type().name(), at, at, null});
+                insertedKeys.add(key);
+            } else {
+                updates.add(new Object[]{at, rowId});
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        }
+        return new BatchResult(insertedKeys, applied);
+    }
+
+    // Ids of the existing rows for the touched (article, user) pairs, matched pair by pair
+    // rather than across every touched article and user
+    private Map<EngagementKey, Long> existingRowIds(Set<EngagementKey> keys) {
+        List<Object[]> pairs = keys.stream()
+                .map(key -> List.of(key.articleId(), key.userId()))
+                .distinct()
+                .map(List::toArray)
+                .collect(Collectors.toList());
+        Map<EngagementKey, Long> ids = new HashMap<>();
+        for (int from = 0; from < pairs.size(); from += PAIR_LOOKUP_BATCH) {
+            List<Object[]> chunk = pairs.subList(from, Math.min(from + PAIR_LOOKUP_BATCH, pairs.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 2);
+            chunk.forEach(pair -> args.addAll(Arrays.asList(pair)));
+            jdbcTemplate.query(SELECT_ROWS_SQL + String.join(" OR ", Collections.nCopies(chunk.size(), PAIR_PREDICATE)),
+                    rs -> {
+                        ids.put(new EngagementKey(rs.getLong("article_id"), rs.getLong("user_id"),
+                                ArticleEngagement.EngagementType.valueOf(rs.getString("type"))), rs.getLong("id"));
+                    },
+                    args.toArray());
+        }
+        return ids;
+    }
+
+    // Newly inserted rows, and every event that resolved to a user and a published article
+    private record BatchResult(List<EngagementKey> inserted, List<EngagementEvent> applied) {
+    }
+
+    private record EngagementKey(Long articleId, Long userId, ArticleEngagement.EngagementType type) {
+    }
+}
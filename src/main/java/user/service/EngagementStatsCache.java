@@ -0,0 +1,164 @@
+package user.service;
+
+import com.medium_clone.user.entity.ArticleEngagement;
+import user.repository.ArticleEngagementRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-article engagement counters, one slot per EngagementType.
+ * Cold misses are filled with a single GROUP BY type query; afterwards the
+ * counters are kept current by the engagement write path (ingestion pipeline
+ * and clap accumulator) whenever a new engagement row is inserted.
+ *
+ * A load cannot tell whether its query already saw a row whose insert is
+ * reported while it runs, so such entries are installed already expired and
+ * re-read on the next request. Every entry is also re-read from the database
+ * once it is older than the ttl, which bounds how long any drift can last.
+ */
+@Component
+public class EngagementStatsCache {
+
+    private static final ArticleEngagement.EngagementType[] TYPES = ArticleEngagement.EngagementType.values();
+
+    private final ArticleEngagementRepository engagementRepository;
+    private final long ttlMillis;
+    private final Map<Long, Counters> counters;
+    private final Set<PendingLoad> pendingLoads = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public EngagementStatsCache(ArticleEngagementRepository engagementRepository,
+                                @Value("${app.engagement.stats-cache.max-articles:50000}") int maxArticles,
+                                @Value("${app.engagement.stats-cache.ttl-ms:300000}") long ttlMillis) {
+        this.engagementRepository = engagementRepository;
+        this.ttlMillis = ttlMillis;
+        this.counters = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Counters> eldest) {
+                return size() > maxArticles;
+            }
+        });
+    }
+
+    /**
+     * Engagement counts by type (lower-case type name) for one article
+     */
+    public Map<String, Long> getStats(Long articleId) {
+        Counters entry = counters.get(articleId);
+        AtomicLongArray slots = entry != null && !entry.isExpired() ? entry.slots
+                : load(List.of(articleId)).get(articleId);
+        return toMap(slots);
+    }
+
+    /**
+     * Engagement counts for several articles; all misses are loaded in one query
+     */
+    public Map<Long, Map<String, Long>> getStats(Collection<Long> articleIds) {
+        Map<Long, AtomicLongArray> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long articleId : new LinkedHashSet<>(articleIds)) {
+            Counters entry = counters.get(articleId);
+            if (entry != null && !entry.isExpired()) {
+                found.put(articleId, entry.slots);
+            } else {
+                missing.add(articleId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            found.putAll(load(missing));
+        }
+
+        Map<Long, Map<String, Long>> stats = new LinkedHashMap<>();
+        for (Long articleId : articleIds) {
+            stats.put(articleId, toMap(found.get(articleId)));
+        }
+        return stats;
+    }
+
+    /**
+     * Called after a new engagement row has been committed
+     */
+    public void recordInsert(Long articleId, ArticleEngagement.EngagementType type) {
+        Counters entry = counters.get(articleId);
+        if (entry != null) {
+            entry.slots.incrementAndGet(type.ordinal());
+        }
+        // A load in flight may or may not have counted this row: have it re-read
+        for (PendingLoad load : pendingLoads) {
+            if (load.articleIds.contains(articleId)) {
+                load.touched.add(articleId);
+            }
+        }
+        // Articles neither cached nor loading pick the row up on their cold load
+    }
+
+    public void discard(Long articleId) {
+        counters.remove(articleId);
+    }
+
+    private Map<Long, AtomicLongArray> load(Collection<Long> articleIds) {
+        PendingLoad pending = new PendingLoad(new HashSet<>(articleIds));
+        pendingLoads.add(pending);
+        Map<Long, AtomicLongArray> loaded = new HashMap<>();
+        try {
+            for (Long articleId : articleIds) {
+                loaded.put(articleId, new AtomicLongArray(TYPES.length));
+            }
+            for (Object[] row : engagementRepository.countByTypeForArticles(articleIds)) {
+                Long articleId = (Long) row[0];
+                ArticleEngagement.EngagementType type = (ArticleEngagement.EngagementType) row[1];
+                loaded.get(articleId).set(type.ordinal(), ((Number) row[2]).longValue());
+            }
+            long expiresAt = System.currentTimeMillis() + ttlMillis;
+            for (Map.Entry<Long, AtomicLongArray> e : loaded.entrySet()) {
+                counters.put(e.getKey(), new Counters(e.getValue(), expiresAt));
+            }
+        } finally {
+            pendingLoads.remove(pending);
+        }
+        // Inserts reported during the load are all recorded by now
+        for (Long articleId : pending.touched) {
+            Counters entry = counters.get(articleId);
+            if (entry != null && entry.slots == loaded.get(articleId)) {
+                entry.expiresAt = 0;
+            }
+        }
+        return loaded;
+    }
+
+    private Map<String, Long> toMap(AtomicLongArray slots) {
+        Map<String, Long> stats = new HashMap<>();
+        for (ArticleEngagement.EngagementType type : TYPES) {
+            stats.put(type.name().toLowerCase(), slots != null ? slots.get(type.ordinal()) : 0L);
+        }
+        return stats;
+    }
+
+    private static final class Counters {
+        private final AtomicLongArray slots;
+        private volatile long expiresAt;
+
+        private Counters(AtomicLongArray slots, long expiresAt) {
+            this.slots = slots;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+
+    private static final class PendingLoad {
+        private final Set<Long> articleIds;
+        private final Set<Long> touched = ConcurrentHashMap.newKeySet();
+
+        private PendingLoad(Set<Long> articleIds) {
+            this.articleIds = articleIds;
+        }
+    }
+}
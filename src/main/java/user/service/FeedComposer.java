@@ -0,0 +1,121 @@
+package user.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Streaming k-way merge of newest-first feed sources.
+ * Each source is read through a small cursor that fetches its next chunk only
+ * when its buffer runs dry, and the heads of all sources sit in a heap ordered
+ * by (publishedAt, id) descending. An article offered by several sources is
+ * emitted once. A chunk is never larger than the number of entries the page
+ * still needs, so no source returns more rows than the page could use.
+ * Pages are addressed by the keyset cursor of their last entry, never by offset.
+ * Entries without a publishedAt sort after all dated ones.
+ */
+@Component
+public class FeedComposer {
+
+    public static final Comparator<HomeTimelineService.TimelineEntry> NEWEST_FIRST = Comparator
+            .comparing(HomeTimelineService.TimelineEntry::publishedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .reversed()
+            .thenComparing(HomeTimelineService.TimelineEntry::articleId, Comparator.reverseOrder());
+
+    /**
+     * A newest-first source: up to limit entries after the cursor (null for the start)
+     */
+    @FunctionalInterface
+    public interface FeedSource {
+        List<HomeTimelineService.TimelineEntry> next(ArticleCursor after, int limit);
+    }
+
+    /**
+     * Source over a fixed, already bounded set of entries, e.g. the top trending articles
+     */
+    public static FeedSource fixed(Collection<HomeTimelineService.TimelineEntry> entries) {
+        List<HomeTimelineService.TimelineEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(NEWEST_FIRST);
+        return (after, limit) -> {
+            int from = 0;
+            if (after != null) {
+                HomeTimelineService.TimelineEntry key = new HomeTimelineService.TimelineEntry(after.id(), after.publishedAt());
+                while (from < sorted.size() && NEWEST_FIRST.compare(sorted.get(from), key) <= 0) {
+                    from++;
+                }
+            }
+            return sorted.subList(from, Math.min(sorted.size(), from + limit));
+        };
+    }
+
+    /**
+     * Up to limit entries of the merged, de-duplicated feed after the cursor (null for the start).
+     * Every source seeks past the cursor itself, so a deep page costs the same as the first one.
+     * An undated cursor ends the feed: keyset sources cannot seek past an undated entry.
+     */
+    public List<HomeTimelineService.TimelineEntry> merge(List<FeedSource> sources, ArticleCursor after, int limit) {
+        List<HomeTimelineService.TimelineEntry> page = new ArrayList<>(Math.max(0, limit));
+        if (limit <= 0 || (after != null && after.publishedAt() == null)) {
+            return page;
+        }
+        PriorityQueue<SourceCursor> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                (a, b) -> NEWEST_FIRST.compare(a.peek(), b.peek()));
+        for (FeedSource source : sources) {
+            SourceCursor cursor = new SourceCursor(source, after);
+            if (cursor.fill(limit)) {
+                heads.add(cursor);
+            }
+        }
+
+        Set<Long> seen = new HashSet<>();
+        while (page.size() < limit && !heads.isEmpty()) {
+            SourceCursor cursor = heads.poll();
+            HomeTimelineService.TimelineEntry entry = cursor.poll();
+            if (seen.add(entry.articleId())) {
+                page.add(entry);
+            }
+            if (cursor.fill(limit - page.size())) {
+                heads.add(cursor);
+            }
+        }
+        return page;
+    }
+
+    private static final class SourceCursor {
+        private final FeedSource source;
+        private final ArrayDeque<HomeTimelineService.TimelineEntry> buffer = new ArrayDeque<>();
+        private ArticleCursor last;
+        private boolean exhausted;
+
+        private SourceCursor(FeedSource source, ArticleCursor after) {
+            this.source = source;
+            this.last = after;
+        }
+
+        // Make sure there is a head to compare, fetching at most want entries; false once drained
+        private boolean fill(int want) {
+            if (!buffer.isEmpty()) return true;
+            if (exhausted || want <= 0) return false;
+            List<HomeTimelineService.TimelineEntry> chunk = source.next(last, want);
+            if (chunk.size() < want) {
+                exhausted = true;
+            }
+            if (chunk.isEmpty()) return false;
+            buffer.addAll(chunk);
+            last = chunk.get(chunk.size() - 1).cursor();
+            if (last.publishedAt() == null) {
+                exhausted = true; // Keyset sources cannot seek past an undated entry
+            }
+            return true;
+        }
+
+        private HomeTimelineService.TimelineEntry peek() {
+            return buffer.peekFirst();
+        }
+
+        private HomeTimelineService.TimelineEntry poll() {
+            return buffer.pollFirst();
+        }
+    }
+}
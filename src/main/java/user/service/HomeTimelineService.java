@@ -0,0 +1,286 @@
+package user.service;
+
+import user.repository.ArticleRepository;
+import user.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Fan-out-on-write home timelines.
+ * Each active reader has a bounded in-memory timeline of (publishedAt, id)
+ * entries from the authors they follow. Publishing pushes the article into the
+ * timelines of the author's followers that are in memory; other readers get
+ * theirs built with one query on their next visit. Authors with more than
+ * celebrity-followers followers are not fanned out: their articles are pulled
+ * at read time and merged in, which keeps a single publish from touching a
+ * huge number of timelines. An author who becomes a celebrity has their pushed
+ * entries purged, and one who drops below the threshold has the timelines
+ * following them rebuilt, so each article reaches a reader through one path.
+ * Reading past the oldest kept entry of a full timeline falls back to a keyset
+ * query over all followed authors.
+ */
+@Component
+public class HomeTimelineService {
+
+    private static final Comparator<TimelineEntry> NEWEST_FIRST = Comparator
+            .comparing(TimelineEntry::publishedAt).reversed()
+            .thenComparing(Comparator.comparing(TimelineEntry::articleId).reversed());
+
+    private final ArticleRepository articleRepository;
+    private final UserRepository userRepository;
+    private final int maxEntries;
+    private final long celebrityFollowers;
+
+    private final Map<Long, Timeline> timelines;
+    private final Set<Long> celebrities = Collections.synchronizedSet(new HashSet<>());
+
+    @Autowired
+    public HomeTimelineService(ArticleRepository articleRepository,
+                               UserRepository userRepository,
+                               @Value("${app.feed.timeline.max-entries:500}") int maxEntries,
+                               @Value("${app.feed.timeline.max-users:100000}") int maxUsers,
+                               @Value("${app.feed.timeline.celebrity-followers:10000}") long celebrityFollowers) {
+        this.articleRepository = articleRepository;
+        this.userRepository = userRepository;
+        this.maxEntries = maxEntries;
+        this.celebrityFollowers = celebrityFollowers;
+        // Least recently read timelines are dropped first; they are rebuilt on demand
+        this.timelines = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Timeline> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+
+    /**
+     * One entry of a home timeline, in (publishedAt, id) descending order
+     */
+    public record TimelineEntry(Long articleId, LocalDateTime publishedAt) {
+
+        // From an (id, publishedAt) query row
+        public static TimelineEntry of(Object[] row) {
+            return new TimelineEntry((Long) row[0], (LocalDateTime) row[1]);
+        }
+
+        public ArticleCursor cursor() {
+            return ArticleCursor.byPublishedAt(publishedAt, articleId);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        ArticleChangedEvent.ArticleSnapshot article = event.article();
+        boolean retracted = event.previouslyPublished() && (event.isDeleted() || !article.published());
+        if (!event.isNewlyPublished() && !retracted) return;
+
+        long followers = userRepository.countFollowers(article.authorId());
+        if (followers >= celebrityFollowers) {
+            // Pulled at read time, so nothing to push; a retraction still clears any entry pushed before promotion
+            promote(List.of(article.authorId()));
+            if (retracted) {
+                for (Timeline timeline : following(article.authorId())) {
+                    timeline.remove(article.id());
+                }
+            }
+            return;
+        }
+        if (celebrities.remove(article.authorId())) {
+            // Older articles were pulled, never pushed: rebuild the timelines that relied on the pull
+            demote(article.authorId());
+        }
+        TimelineEntry entry = new TimelineEntry(article.id(), article.publishedAt());
+        for (Long followerId : userRepository.findFollowerIds(article.authorId())) {
+            Timeline timeline = timelines.get(followerId);
+            if (timeline == null) continue;
+            if (retracted) {
+                timeline.remove(article.id());
+            } else {
+                timeline.push(entry);
+            }
+        }
+    }
+
+    /**
+     * Up to limit entries of the user's home timeline after the cursor, newest first
+     */
+    public List<TimelineEntry> read(Long userId, ArticleCursor after, int limit) {
+        Timeline timeline = timelineFor(userId);
+        List<TimelineEntry> pushed = timeline.after(after, limit);
+        if (pushed.size() < limit && timeline.truncated) {
+            // Past what is kept in memory: page through all followed authors in the database
+            return pull(timeline.following, after, limit);
+        }
+        Set<Long> pulledAuthors = new HashSet<>(timeline.following);
+        pulledAuthors.retainAll(celebrities);
+        if (pulledAuthors.isEmpty()) {
+            return pushed;
+        }
+        return merge(pushed, pull(pulledAuthors, after, limit), limit);
+    }
+
+    /**
+     * Drop a user's timeline, e.g. after they follow or unfollow someone;
+     * it is rebuilt from the follow graph on the next read
+     */
+    public void invalidate(Long userId) {
+        timelines.remove(userId);
+    }
+
+    private Timeline timelineFor(Long userId) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline != null) {
+            return timeline;
+        }
+        Timeline fresh = new Timeline();
+        List<Long> popular = List.of();
+        synchronized (fresh) {
+            // Registered before loading so articles published meanwhile are pushed into it too
+            Timeline existing = timelines.putIfAbsent(userId, fresh);
+            if (existing != null) {
+                return existing;
+            }
+            try {
+                List<Long> following = userRepository.findFollowingIds(userId);
+                fresh.following = new HashSet<>(following);
+                Set<Long> pushedAuthors = new HashSet<>(following);
+                if (!following.isEmpty()) {
+                    popular = userRepository.findIdsWithFollowersAtLeast(following, celebrityFollowers);
+                    pushedAuthors.removeAll(popular);
+                }
+                if (!pushedAuthors.isEmpty()) {
+                    List<Object[]> rows = articleRepository.findTimelineEntries(pushedAuthors, PageRequest.of(0, maxEntries));
+                    for (Object[] row : rows) {
+                        fresh.push(TimelineEntry.of(row));
+                    }
+                    fresh.truncated = rows.size() >= maxEntries;
+                }
+            } catch (RuntimeException e) {
+                timelines.remove(userId, fresh);
+                throw e;
+            }
+        }
+        // Outside the lock: promotion locks the other timelines following these authors
+        promote(popular);
+        return fresh;
+    }
+
+    // Mark authors as pulled at read time and purge what was pushed for the newly promoted ones
+    private void promote(Collection<Long> authorIds) {
+        for (Long authorId : authorIds) {
+            if (!celebrities.add(authorId)) continue;
+            List<Timeline> affected = following(authorId);
+            if (affected.isEmpty()) continue;
+            Set<Long> articleIds = new HashSet<>(articleRepository.findIdsByAuthorId(authorId));
+            for (Timeline timeline : affected) {
+                timeline.removeAll(articleIds);
+            }
+        }
+    }
+
+    private void demote(Long authorId) {
+        synchronized (timelines) {
+            timelines.values().removeIf(timeline -> timeline.follows(authorId));
+        }
+    }
+
+    // In-memory timelines that follow the author
+    private List<Timeline> following(Long authorId) {
+        List<Timeline> result = new ArrayList<>();
+        synchronized (timelines) {
+            for (Timeline timeline : timelines.values()) {
+                if (timeline.follows(authorId)) {
+                    result.add(timeline);
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<TimelineEntry> pull(Collection<Long> authorIds, ArticleCursor after, int limit) {
+        if (authorIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        PageRequest pageable = PageRequest.of(0, limit);
+        List<Object[]> rows = after == null || after.publishedAt() == null
+                ? articleRepository.findTimelineEntries(authorIds, pageable)
+                : articleRepository.findTimelineEntriesAfter(authorIds, after.publishedAt(), after.id(), pageable);
+        List<TimelineEntry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entries.add(TimelineEntry.of(row));
+        }
+        return entries;
+    }
+
+    // Merge two newest-first lists, keeping the first limit distinct articles
+    private static List<TimelineEntry> merge(List<TimelineEntry> a, List<TimelineEntry> b, int limit) {
+        List<TimelineEntry> merged = new ArrayList<>(Math.min(limit, a.size() + b.size()));
+        Set<Long> seen = new HashSet<>();
+        int i = 0, j = 0;
+        while (merged.size() < limit && (i < a.size() || j < b.size())) {
+            TimelineEntry next = j >= b.size() || (i < a.size() && NEWEST_FIRST.compare(a.get(i), b.get(j)) <= 0)
+                    ? a.get(i++)
+                    : b.get(j++);
+            if (seen.add(next.articleId())) {
+                merged.add(next);
+            }
+        }
+        return merged;
+    }
+
+    private final class Timeline {
+        private final TreeSet<TimelineEntry> entries = new TreeSet<>(NEWEST_FIRST);
+        private final Map<Long, TimelineEntry> byArticle = new HashMap<>();
+        private volatile Set<Long> following = new HashSet<>();
+        private boolean truncated;
+
+        private synchronized void push(TimelineEntry entry) {
+            if (entry.publishedAt() == null || byArticle.containsKey(entry.articleId())) return;
+            entries.add(entry);
+            byArticle.put(entry.articleId(), entry);
+            if (entries.size() > maxEntries) {
+                byArticle.remove(entries.pollLast().articleId());
+                truncated = true;
+            }
+        }
+
+        private synchronized void remove(Long articleId) {
+            TimelineEntry entry = byArticle.remove(articleId);
+            if (entry != null) {
+                entries.remove(entry);
+            }
+        }
+
+        private synchronized void removeAll(Set<Long> articleIds) {
+            if (articleIds.size() < byArticle.size()) {
+                articleIds.forEach(this::remove);
+            } else {
+                entries.removeIf(entry -> articleIds.contains(entry.articleId()));
+                byArticle.keySet().removeAll(articleIds);
+            }
+        }
+
+        private boolean follows(Long authorId) {
+            return following.contains(authorId);
+        }
+
+        private synchronized List<TimelineEntry> after(ArticleCursor cursor, int limit) {
+            SortedSet<TimelineEntry> tail = cursor == null || cursor.publishedAt() == null
+                    ? entries
+                    : entries.tailSet(new TimelineEntry(cursor.id(), cursor.publishedAt()), false);
+            List<TimelineEntry> page = new ArrayList<>(Math.min(limit, tail.size()));
+            for (TimelineEntry entry : tail) {
+                if (page.size() >= limit) break;
+                page.add(entry);
+            }
+            return page;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package user.service;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from long keys to double values, with linear
+ * probing and no boxing. Used where the number of (key, value) pairs is large,
+ * e.g. co-engagement counts between articles. Keys must not be Long.MIN_VALUE,
+ * which marks a free slot. Not thread-safe.
+ */
+public final class LongDoubleMap {
+
+    private static final long FREE = Long.MIN_VALUE;
+    private static final double MAX_LOAD = 0.6;
+
+    private long[] keys;
+    private double[] values;
+    private int size;
+    private int resizeAt;
+
+    public LongDoubleMap() {
+        this(8);
+    }
+
+    public LongDoubleMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public double get(long key) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : 0.0;
+    }
+
+    public boolean containsKey(long key) {
+        return keys[find(key)] == key;
+    }
+
+    /**
+     * Add delta to the value of key, inserting it with value delta when absent
+     */
+    public void add(long key, double delta) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            values[slot] += delta;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public void put(long key, double value) {
+        int slot = find(key);
+        values[slot] = value;
+        if (keys[slot] != key) {
+            keys[slot] = key;
+            if (++size > resizeAt) {
+                rehash(keys.length << 1);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(long key, double value);
+    }
+
+    // Slot holding key, or the free slot where it would go
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new double[capacity];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        resizeAt = (int) (capacity * MAX_LOAD);
+    }
+
+    // Spreads sequential ids over the table; package-private so tests can pick colliding keys
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -14,4 +14,10 @@ public interface NotificationService {
     void notifyClap(User recipient, User clapper, Article article);
     void notifyComment(User recipient, User commenter, Article article, Comment comment);
     void notifyMention(User mentioned, User commenter, Article article, Comment comment);
+
+    // Recommendation notifications for many recipients at once; returns the number written
+    int notifyRecommendations(List<RecommendationNotice> notices);
+
+    record RecommendationNotice(Long recipientId, Long articleId, String articleTitle, String reason) {
+    }
 } 
\ No newline at end of file
@@ -5,9 +5,15 @@ import user.entity.User;
 import user.repository.NotificationRepository;
 import user.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.util.List;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import user.dto.NotificationResponse;
 import user.entity.Article;
@@ -16,17 +22,24 @@ import user.service.EmailNotificationService;
 
 @Service
 public class NotificationServiceImpl implements NotificationService {
+    private static final String INSERT_RECOMMENDATION_SQL =
+            "INSERT INTO notifications (recipient_id, type, message, related_article_id, read, created_at) " +
+            "VALUES (?, 'RECOMMENDATION', ?, ?, false, ?)";
+
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final EmailNotificationService emailNotificationService;
+    private final JdbcTemplate jdbcTemplate;
 
     @Autowired
-    public NotificationServiceImpl(NotificationRepository notificationRepository, UserRepository userRepository, SimpMessagingTemplate messagingTemplate, EmailNotificationService emailNotificationService) {
+    public NotificationServiceImpl(NotificationRepository notificationRepository, UserRepository userRepository, SimpMessagingTemplate messagingTemplate, EmailNotificationService emailNotificationService,
+                                   JdbcTemplate jdbcTemplate) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
         this.messagingTemplate = messagingTemplate;
         this.emailNotificationService = emailNotificationService;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
@@ -181,4 +194,71 @@ public class NotificationServiceImpl implements NotificationService {
         dto.setCreatedAt(saved.getCreatedAt());
         messagingTemplate.convertAndSend("/topic/notifications/" + recipient.getId(), dto);
     }
-} 
\ No newline at end of file
+
+    @Override
+    @Transactional
+    public int notifyRecommendations(List<RecommendationNotice> notices) {
+        // Recipients are already filtered on their recommendation preference; one batched insert,
+        // then each notification is pushed once the batch has committed
+        // Whole seconds so the stored value matches exactly when the ids are read back, whatever the column precision
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Timestamp now = Timestamp.valueOf(createdAt);
+        List<Object[]> rows = new ArrayList<>(notices.size());
+        List<NotificationResponse> pushes = new ArrayList<>(notices.size());
+        for (RecommendationNotice notice : notices) {
+            String message = "Recommended: " + notice.articleTitle() + (notice.reason() != null ? " (" + notice.reason() + ")" : "");
+            rows.add(new Object[]{notice.recipientId(), message, notice.articleId(), now});
+            NotificationResponse dto = new NotificationResponse();
+            dto.setType(Notification.NotificationType.RECOMMENDATION.name());
+            dto.setMessage(message);
+            dto.setRelatedArticleId(notice.articleId());
+            dto.setRelatedArticleTitle(notice.articleTitle());
+            dto.setRead(false);
+            dto.setCreatedAt(createdAt);
+            pushes.add(dto);
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_RECOMMENDATION_SQL, rows);
+        assignRecommendationIds(notices, pushes, now);
+
+        Runnable push = () -> {
+            for (int i = 0; i < notices.size(); i++) {
+                messagingTemplate.convertAndSend("/topic/notifications/" + notices.get(i).recipientId(), pushes.get(i));
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    push.run();
+                }
+            });
+        } else {
+            push.run();
+        }
+        return rows.size();
+    }
+
+    // The batch insert returns no keys: read back the ids of the rows it wrote, keyed by recipient and article
+    private void assignRecommendationIds(List<RecommendationNotice> notices, List<NotificationResponse> pushes, Timestamp createdAt) {
+        Set<Long> recipientIds = new HashSet<>();
+        notices.forEach(notice -> recipientIds.add(notice.recipientId()));
+        String placeholders = String.join(", ", Collections.nCopies(recipientIds.size(), "?"));
+        List<Object> args = new ArrayList<>(recipientIds.size() + 1);
+        args.add(createdAt);
+        args.addAll(recipientIds);
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, recipient_id, related_article_id FROM notifications " +
+                        "WHERE type = 'RECOMMENDATION' AND created_at = ? AND recipient_id IN (" + placeholders + ")",
+                rs -> {
+                    ids.put(rs.getLong("recipient_id") + ":" + rs.getLong("related_article_id"), rs.getLong("id"));
+                },
+                args.toArray());
+        for (int i = 0; i < notices.size(); i++) {
+            RecommendationNotice notice = notices.get(i);
+            pushes.get(i).setId(ids.get(notice.recipientId() + ":" + notice.articleId()));
+        }
+    }
+}
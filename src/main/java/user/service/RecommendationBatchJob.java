@@ -0,0 +1,273 @@
+package user.service;
+
+import user.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chunked, parallel driver for the daily recommendation run.
+ * Recipient ids are streamed in keyset pages and cut into chunks that run on a
+ * bounded pool; a full queue makes the reading thread run the chunk itself,
+ * which throttles reading to the pool's pace. Each chunk is handed to a
+ * ChunkProcessor that does its own short transaction. The checkpoint is the
+ * highest user id below which every chunk succeeded; the id ranges of chunks
+ * that succeeded beyond it are kept too. Both are written to a small properties
+ * file, so a run interrupted or failed on the same day resumes after the
+ * checkpoint and skips the finished ranges instead of notifying the same users
+ * twice.
+ */
+@Component
+public class RecommendationBatchJob {
+
+    /**
+     * Processes one chunk of user ids and returns the number of notifications written
+     */
+    @FunctionalInterface
+    public interface ChunkProcessor {
+        int process(List<Long> userIds);
+    }
+
+    private final UserRepository userRepository;
+    private final Path checkpointFile;
+    private final int chunkSize;
+    private final int threads;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong usersProcessed = new AtomicLong();
+    private final AtomicLong chunksCompleted = new AtomicLong();
+    private final AtomicLong chunksFailed = new AtomicLong();
+    private final AtomicLong notificationsWritten = new AtomicLong();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long startedNanos;
+    private volatile long elapsedNanos;
+    private volatile long resumedFrom;
+
+    // Chunks by sequence number: last user id and outcome, for the contiguous checkpoint
+    private final TreeMap<Long, long[]> pendingChunks = new TreeMap<>();
+    // First to last user id of chunks that succeeded beyond the checkpoint
+    private final TreeMap<Long, Long> doneRanges = new TreeMap<>();
+    private long checkpoint;
+    private long nextToCommit;
+
+    @Autowired
+    public RecommendationBatchJob(UserRepository userRepository,
+                                  @Value("${app.recommendations.job.checkpoint-file:data/recommendation-job.properties}") String checkpointFile,
+                                  @Value("${app.recommendations.job.chunk-size:200}") int chunkSize,
+                                  @Value("${app.recommendations.job.threads:4}") int threads) {
+        this.userRepository = userRepository;
+        this.checkpointFile = Paths.get(checkpointFile);
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+    }
+
+    /**
+     * Run the job over all recipients; returns false when a run is already in progress
+     */
+    public boolean run(ChunkProcessor processor) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        String runDate = LocalDate.now().toString();
+        resetMetrics();
+        synchronized (this) {
+            pendingChunks.clear();
+            doneRanges.clear();
+            nextToCommit = 0;
+            checkpoint = loadCheckpoint(runDate);
+            resumedFrom = checkpoint;
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            long afterId = resumedFrom;
+            long sequence = 0;
+            while (true) {
+                List<Long> ids = userRepository.findRecommendationRecipientIdsAfter(afterId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) break;
+                long chunkSequence = sequence++;
+                long firstId = ids.get(0);
+                long lastId = ids.get(ids.size() - 1);
+                List<Long> pending = notDone(ids);
+                executor.execute(() -> runChunk(processor, chunkSequence, firstId, lastId, pending, runDate));
+                afterId = lastId;
+                if (ids.size() < chunkSize) break;
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            if (chunksFailed.get() == 0) {
+                saveCheckpoint(runDate, afterId, true);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        } finally {
+            elapsedNanos = System.nanoTime() - startedNanos;
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+        return true;
+    }
+
+    public Map<String, Object> getStatus() {
+        long elapsed = running.get() ? System.nanoTime() - startedNanos : elapsedNanos;
+        long users = usersProcessed.get();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("resumedFromUserId", resumedFrom);
+        synchronized (this) {
+            status.put("checkpointUserId", checkpoint);
+        }
+        status.put("usersProcessed", users);
+        status.put("chunksCompleted", chunksCompleted.get());
+        status.put("chunksFailed", chunksFailed.get());
+        status.put("notificationsWritten", notificationsWritten.get());
+        status.put("elapsedMs", elapsed / 1_000_000);
+        status.put("usersPerSecond", elapsed == 0 ? 0.0 : users * 1_000_000_000.0 / elapsed);
+        return status;
+    }
+
+    // userIds are the chunk's ids not already finished by an earlier attempt today, possibly none
+    private void runChunk(ChunkProcessor processor, long sequence, long firstId, long lastId,
+                          List<Long> userIds, String runDate) {
+        boolean ok = false;
+        try {
+            if (!userIds.isEmpty()) {
+                notificationsWritten.addAndGet(processor.process(userIds));
+                usersProcessed.addAndGet(userIds.size());
+            }
+            chunksCompleted.incrementAndGet();
+            ok = true;
+        } catch (Exception e) {
+            chunksFailed.incrementAndGet();
+            System.err.println("Error generating recommendations for users " + firstId + ".."
+                    + lastId + ": " + e.getMessage());
+        }
+        advanceCheckpoint(sequence, firstId, lastId, ok, runDate);
+    }
+
+    // The checkpoint only moves over an unbroken run of successful chunks; later successes are kept as ranges
+    private synchronized void advanceCheckpoint(long sequence, long firstUserId, long lastUserId, boolean ok, String runDate) {
+        pendingChunks.put(sequence, new long[]{lastUserId, ok ? 1 : 0});
+        long before = checkpoint;
+        while (!pendingChunks.isEmpty() && pendingChunks.firstKey() == nextToCommit && pendingChunks.firstEntry().getValue()[1] == 1) {
+            checkpoint = pendingChunks.pollFirstEntry().getValue()[0];
+            nextToCommit++;
+        }
+        boolean rangeAdded = ok && lastUserId > checkpoint;
+        if (rangeAdded) {
+            addDoneRange(firstUserId, lastUserId);
+        }
+        doneRanges.values().removeIf(last -> last <= checkpoint);
+        if (checkpoint != before || rangeAdded) {
+            saveCheckpoint(runDate, checkpoint, false);
+        }
+    }
+
+    // Ranges are kept disjoint, so the floor entry alone decides whether an id is done
+    private void addDoneRange(long first, long last) {
+        Map.Entry<Long, Long> before = doneRanges.floorEntry(first);
+        if (before != null && before.getValue() >= first - 1) {
+            first = before.getKey();
+            last = Math.max(last, before.getValue());
+        }
+        Map.Entry<Long, Long> next;
+        while ((next = doneRanges.ceilingEntry(first)) != null && next.getKey() <= last + 1) {
+            last = Math.max(last, next.getValue());
+            doneRanges.remove(next.getKey());
+        }
+        doneRanges.put(first, last);
+    }
+
+    // Ids of the page not inside a range finished earlier today
+    private synchronized List<Long> notDone(List<Long> ids) {
+        if (doneRanges.isEmpty()) {
+            return ids;
+        }
+        List<Long> pending = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Map.Entry<Long, Long> range = doneRanges.floorEntry(id);
+            if (range == null || id > range.getValue()) {
+                pending.add(id);
+            }
+        }
+        return pending;
+    }
+
+    private void resetMetrics() {
+        usersProcessed.set(0);
+        chunksCompleted.set(0);
+        chunksFailed.set(0);
+        notificationsWritten.set(0);
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        startedNanos = System.nanoTime();
+    }
+
+    // Resume point for today's run, or 0 when there is none or it already completed
+    private long loadCheckpoint(String runDate) {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            props.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading recommendation job checkpoint: " + e.getMessage());
+            return 0;
+        }
+        if (!runDate.equals(props.getProperty("runDate")) || Boolean.parseBoolean(props.getProperty("completed"))) {
+            return 0;
+        }
+        for (String range : props.getProperty("doneRanges", "").split(",")) {
+            int dash = range.indexOf('-');
+            if (dash > 0) {
+                addDoneRange(Long.parseLong(range.substring(0, dash)), Long.parseLong(range.substring(dash + 1)));
+            }
+        }
+        return Long.parseLong(props.getProperty("checkpoint", "0"));
+    }
+
+    private synchronized void saveCheckpoint(String runDate, long userId, boolean completed) {
+        Properties props = new Properties();
+        props.setProperty("runDate", runDate);
+        props.setProperty("checkpoint", Long.toString(userId));
+        props.setProperty("completed", Boolean.toString(completed));
+        StringJoiner ranges = new StringJoiner(",");
+        if (!completed) {
+            doneRanges.forEach((first, last) -> ranges.add(first + "-" + last));
+        }
+        props.setProperty("doneRanges", ranges.toString());
+        try {
+            Path parent = checkpointFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                props.store(out, "Recommendation job checkpoint");
+            }
+            Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error writing recommendation job checkpoint: " + e.getMessage());
+        }
+    }
+}
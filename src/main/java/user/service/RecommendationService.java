@@ -1,9 +1,12 @@
 package user.service;
 
 import java.util.List;
+import java.util.Map;
 
 public interface RecommendationService {
     void generateRecommendationsForUser(String userEmail);
     void generateRecommendationsForAllUsers();
     List<Long> getRecommendedArticleIds(String userEmail, int limit);
+    // Progress, throughput and checkpoint of the current or last generation run
+    Map<String, Object> getGenerationStatus();
 } 
\ No newline at end of file
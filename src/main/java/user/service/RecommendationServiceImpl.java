@@ -1,13 +1,19 @@
 package user.service;
 
-import user.entity.Article;
 import user.entity.User;
+import com.medium_clone.user.dto.ArticleSummary;
+import com.medium_clone.user.entity.ArticleEngagement;
+import user.repository.ArticleEngagementRepository;
 import user.repository.ArticleRepository;
 import user.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import java.util.List;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -15,12 +21,33 @@ public class RecommendationServiceImpl implements RecommendationService {
     private final ArticleRepository articleRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final ArticleEngagementRepository engagementRepository;
+    private final ArticleSimilarityIndex similarityIndex;
+    private final ArticleTrendingEngine trendingEngine;
+    private final RecommendationBatchJob batchJob;
+    private final TransactionTemplate transactionTemplate;
+    private final int recentEngagements;
+
+    private static final int NOTIFICATIONS_PER_USER = 3;
+    private static final String REASON = "Based on your interests";
 
     @Autowired
-    public RecommendationServiceImpl(ArticleRepository articleRepository, UserRepository userRepository, NotificationService notificationService) {
+    public RecommendationServiceImpl(ArticleRepository articleRepository, UserRepository userRepository, NotificationService notificationService,
+                                     ArticleEngagementRepository engagementRepository,
+                                     ArticleSimilarityIndex similarityIndex,
+                                     ArticleTrendingEngine trendingEngine,
+                                     RecommendationBatchJob batchJob,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.recommendations.recent-engagements:50}") int recentEngagements) {
         this.articleRepository = articleRepository;
         this.userRepository = userRepository;
         this.notificationService = notificationService;
+        this.engagementRepository = engagementRepository;
+        this.similarityIndex = similarityIndex;
+        this.trendingEngine = trendingEngine;
+        this.batchJob = batchJob;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recentEngagements = recentEngagements;
     }
 
     @Override
@@ -28,55 +55,106 @@ public class RecommendationServiceImpl implements RecommendationService {
     public void generateRecommendationsForUser(String userEmail) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
-        List<Long> recommendedArticleIds = getRecommendedArticleIds(userEmail, 3);
-        
-        for (Long articleId : recommendedArticleIds) {
-            Article article = articleRepository.findById(articleId)
-                    .orElseThrow(() -> new IllegalArgumentException("Article not found"));
-            notificationService.notifyRecommendation(user, article, "Based on your interests");
-        }
+        if (!user.isReceiveRecommendationNotifications()) return;
+        generateForUsers(List.of(user.getId()));
     }
 
     @Override
-    @Transactional
     public void generateRecommendationsForAllUsers() {
-        List<User> users = userRepository.findAll();
-        for (User user : users) {
-            try {
-                generateRecommendationsForUser(user.getEmail());
-            } catch (Exception e) {
-                // Log error but continue with other users
-                System.err.println("Error generating recommendations for user: " + user.getEmail() + " - " + e.getMessage());
-            }
+        // Chunks of users in parallel, each in its own short transaction
+        if (!batchJob.run(userIds -> transactionTemplate.execute(status -> generateForUsers(userIds)))) {
+            System.err.println("Recommendation generation is already running");
         }
     }
 
+    @Override
+    public Map<String, Object> getGenerationStatus() {
+        return batchJob.getStatus();
+    }
+
+    // Recommend for each user, then load titles and write all notifications in one batch
+    private int generateForUsers(List<Long> userIds) {
+        Map<Long, List<Long>> recommendations = new LinkedHashMap<>();
+        Set<Long> articleIds = new HashSet<>();
+        for (Long userId : userIds) {
+            List<Long> ids = recommendFor(userId, NOTIFICATIONS_PER_USER);
+            recommendations.put(userId, ids);
+            articleIds.addAll(ids);
+        }
+        if (articleIds.isEmpty()) {
+            return 0;
+        }
+        Map<Long, String> titles = articleRepository.findSummariesByIdIn(articleIds).stream()
+                .collect(Collectors.toMap(ArticleSummary::getId, ArticleSummary::getTitle));
+        List<NotificationService.RecommendationNotice> notices = new ArrayList<>();
+        recommendations.forEach((userId, ids) -> {
+            for (Long articleId : ids) {
+                String title = titles.get(articleId);
+                if (title != null) {
+                    notices.add(new NotificationService.RecommendationNotice(userId, articleId, title, REASON));
+                }
+            }
+        });
+        return notificationService.notifyRecommendations(notices);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Long> getRecommendedArticleIds(String userEmail, int limit) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
-        // Get articles from followed authors
-        List<String> followedUsernames = user.getFollowing().stream()
-                .map(User::getUsername)
-                .collect(Collectors.toList());
-        
-        List<Article> recommendedArticles = articleRepository.findByAuthorUsernameInAndPublishedTrueOrderByPublishedAtDesc(followedUsernames);
-        
-        // If not enough articles from followed authors, add trending articles
-        if (recommendedArticles.size() < limit) {
-            List<Article> trendingArticles = articleRepository.findByPublishedTrueOrderByViewCountDesc();
-            recommendedArticles.addAll(trendingArticles.stream()
-                    .filter(article -> !recommendedArticles.contains(article))
-                    .limit(limit - recommendedArticles.size())
-                    .collect(Collectors.toList()));
+        return recommendFor(user.getId(), limit);
+    }
+
+    private List<Long> recommendFor(Long userId, int limit) {
+        // Everything the user engaged with is excluded; the most recent engagements drive the scores.
+        // An article has at most one row per engagement type, so this many rows cover the recent articles
+        Set<Long> engaged = new HashSet<>(engagementRepository.findEngagedArticleIds(userId));
+        LongDoubleMap recent = new LongDoubleMap();
+        int recentRows = recentEngagements * ArticleEngagement.EngagementType.values().length;
+        for (Object[] row : engagementRepository.findUserEngagements(userId, PageRequest.of(0, recentRows))) {
+            Long articleId = (Long) row[0];
+            if (recent.size() < recentEngagements || recent.containsKey(articleId)) {
+                recent.add(articleId, ArticleSimilarityIndex.weightOf((ArticleEngagement.EngagementType) row[1]));
+            }
+        }
+
+        // Over-fetch so articles unpublished since the last build can be dropped
+        LinkedHashSet<Long> recommended = new LinkedHashSet<>();
+        List<Long> candidates = similarityIndex.recommend(recent, engaged, limit * 2);
+        if (!candidates.isEmpty()) {
+            Set<Long> published = articleRepository.findPublishedEntriesByIdIn(candidates).stream()
+                    .map(row -> (Long) row[0])
+                    .collect(Collectors.toSet());
+            candidates.stream().filter(published::contains).limit(limit).forEach(recommended::add);
+        }
+
+        // Not enough signal yet (new user or new articles): fill with followed authors, then trending
+        if (recommended.size() < limit) {
+            List<Long> following = userRepository.findFollowingIds(userId);
+            if (!following.isEmpty()) {
+                addUnseen(recommended, articleRepository.findTimelineEntries(following, PageRequest.of(0, limit * 2)).stream()
+                        .map(row -> (Long) row[0])
+                        .collect(Collectors.toList()), engaged, limit);
+            }
+        }
+        if (recommended.size() < limit) {
+            List<Long> trending = trendingEngine.size() > 0
+                    ? trendingEngine.top(0, limit * 2)
+                    : articleRepository.findTrendingFirstSlice(PageRequest.of(0, limit * 2)).getContent().stream()
+                            .map(ArticleSummary::getId)
+                            .collect(Collectors.toList());
+            addUnseen(recommended, trending, engaged, limit);
+        }
+        return new ArrayList<>(recommended);
+    }
+
+    private static void addUnseen(Set<Long> recommended, List<Long> candidates, Set<Long> engaged, int limit) {
+        for (Long id : candidates) {
+            if (recommended.size() >= limit) return;
+            if (!engaged.contains(id)) {
+                recommended.add(id);
+            }
         }
-        
-        return recommendedArticles.stream()
-                .limit(limit)
-                .map(Article::getId)
-                .collect(Collectors.toList());
     }
 } 
\ No newline at end of file
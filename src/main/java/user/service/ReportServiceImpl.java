@@ -11,6 +11,7 @@ import user.repository.UserRepository;
 import user.repository.ArticleRepository;
 import user.repository.CommentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
@@ -23,14 +24,17 @@ public class ReportServiceImpl implements ReportService {
     private final UserRepository userRepository;
     private final ArticleRepository articleRepository;
     private final CommentRepository commentRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public ReportServiceImpl(ReportRepository reportRepository, UserRepository userRepository, 
-                           ArticleRepository articleRepository, CommentRepository commentRepository) {
+                           ArticleRepository articleRepository, CommentRepository commentRepository,
+                           ApplicationEventPublisher eventPublisher) {
         this.reportRepository = reportRepository;
         this.userRepository = userRepository;
         this.articleRepository = articleRepository;
         this.commentRepository = commentRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -163,8 +167,10 @@ public class ReportServiceImpl implements ReportService {
                     .orElseThrow(() -> new IllegalArgumentException("Article not found"));
             
             if ("remove".equals(action)) {
+                boolean wasPublished = article.isPublished();
                 article.setPublished(false);
                 articleRepository.save(article);
+                eventPublisher.publishEvent(ArticleChangedEvent.saved(article, wasPublished));
             }
         } else if (report.getContentType() == Report.ContentType.COMMENT) {
             Comment comment = commentRepository.findById(report.getReportedContentId())
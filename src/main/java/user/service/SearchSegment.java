@@ -0,0 +1,340 @@
+package user.service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Immutable on-disk segment of the article search index, read through a
+ * memory-mapped FileChannel.
+ *
+ * Layout (big-endian):
+ *   header   magic, version, generation, docCount, termCount,
+ *            docTableOffset, termDataOffset, termIndexOffset
+ *   postings per term: count, then (docId, weightedTf, positionCount, positions...)
+ *   doc table: (docId, length, published, publishedAt, author, tags...)
+ *   term data: (termLength, termBytes, postingsOffset, docFreq), sorted by term
+ *   term index: int offset of every term data entry, for binary search
+ *
+ * A segment is mapped as a single buffer with int positions, so a file may not
+ * exceed MAX_SIZE (2 GB). Flushed segments are bounded by the buffer size, and
+ * ArticleSearchIndex stops merging segments before they reach max-segment-mb.
+ */
+public final class SearchSegment {
+
+    private static final int MAGIC = 0x4D435349; // "MCSI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 8 + 8 + 8;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    // Largest file one MappedByteBuffer can cover
+    public static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    private final Path file;
+    private final long generation;
+    private final MappedByteBuffer buffer;
+    private final int termCount;
+    private final long termIndexOffset;
+    private final List<DocMeta> docs;
+
+    /**
+     * Positions of one term in one document, with field-boosted term frequency
+     */
+    public static final class Posting {
+        int[] positions = new int[4];
+        int size;
+        float weightedTf;
+
+        public Posting() {
+        }
+
+        Posting(int[] positions, float weightedTf) {
+            this.positions = positions;
+            this.size = positions.length;
+            this.weightedTf = weightedTf;
+        }
+
+        void add(int position, float boost) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+            weightedTf += boost;
+        }
+
+        int[] positions() {
+            return size == positions.length ? positions : Arrays.copyOf(positions, size);
+        }
+    }
+
+    /**
+     * Per-document metadata used for filtering and length normalisation
+     */
+    public record DocMeta(Long id, String authorUsername, boolean published, LocalDateTime publishedAt,
+                          int length, Set<String> tags) {
+    }
+
+    /**
+     * Receives postings for a looked-up term
+     */
+    @FunctionalInterface
+    public interface PostingVisitor {
+        void visit(String term, int docFreq, long docId, float weightedTf, int[] positions);
+    }
+
+    private SearchSegment(Path file, long generation, MappedByteBuffer buffer, int termCount,
+                          long termIndexOffset, List<DocMeta> docs) {
+        this.file = file;
+        this.generation = generation;
+        this.buffer = buffer;
+        this.termCount = termCount;
+        this.termIndexOffset = termIndexOffset;
+        this.docs = docs;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    public List<DocMeta> docs() {
+        return docs;
+    }
+
+    public int docCount() {
+        return docs.size();
+    }
+
+    public long sizeBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Map a segment file; only the doc table is decoded, postings stay on disk
+     */
+    public static SearchSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > MAX_SIZE) {
+                throw new IOException("Search segment larger than 2 GB: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a search segment: " + file);
+            }
+            long generation = buffer.getLong(8);
+            int docCount = buffer.getInt(16);
+            int termCount = buffer.getInt(20);
+            long docTableOffset = buffer.getLong(24);
+            long termIndexOffset = buffer.getLong(40);
+
+            ByteBuffer in = buffer.duplicate();
+            in.position((int) docTableOffset);
+            List<DocMeta> docs = new ArrayList<>(docCount);
+            for (int i = 0; i < docCount; i++) {
+                long id = in.getLong();
+                int length = in.getInt();
+                boolean published = in.get() == 1;
+                long publishedAt = in.getLong();
+                String author = readString(in);
+                int tagCount = in.getShort();
+                Set<String> tags = new HashSet<>(tagCount * 2);
+                for (int t = 0; t < tagCount; t++) {
+                    tags.add(readString(in));
+                }
+                docs.add(new DocMeta(id, author, published,
+                        publishedAt == NO_DATE ? null : LocalDateTime.ofEpochSecond(publishedAt, 0, ZoneOffset.UTC),
+                        length, tags));
+            }
+            return new SearchSegment(file, generation, buffer, termCount, termIndexOffset,
+                    Collections.unmodifiableList(docs));
+        }
+    }
+
+    /**
+     * Write postings and doc metadata as a new segment file (via a temp file and atomic rename)
+     */
+    public static SearchSegment write(Path file, long generation,
+                                      SortedMap<String, ? extends Map<Long, Posting>> postings,
+                                      Collection<DocMeta> docs) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long docTableOffset;
+        long termDataOffset;
+        long termIndexOffset;
+        try (CountingOutputStream counter = new CountingOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16));
+             DataOutputStream out = new DataOutputStream(counter)) {
+            out.write(new byte[HEADER_SIZE]);
+
+            long[] postingsOffsets = new long[postings.size()];
+            int[] docFreqs = new int[postings.size()];
+            int t = 0;
+            for (Map<Long, Posting> termPostings : postings.values()) {
+                postingsOffsets[t] = counter.count;
+                docFreqs[t++] = termPostings.size();
+                out.writeInt(termPostings.size());
+                for (Map.Entry<Long, Posting> e : termPostings.entrySet()) {
+                    Posting posting = e.getValue();
+                    out.writeLong(e.getKey());
+                    out.writeFloat(posting.weightedTf);
+                    out.writeInt(posting.size);
+                    for (int i = 0; i < posting.size; i++) {
+                        out.writeInt(posting.positions[i]);
+                    }
+                }
+            }
+
+            docTableOffset = counter.count;
+            for (DocMeta doc : docs) {
+                out.writeLong(doc.id());
+                out.writeInt(doc.length());
+                out.writeByte(doc.published() ? 1 : 0);
+                out.writeLong(doc.publishedAt() != null ? doc.publishedAt().toEpochSecond(ZoneOffset.UTC) : NO_DATE);
+                writeString(out, doc.authorUsername());
+                out.writeShort(doc.tags().size());
+                for (String tag : doc.tags()) {
+                    writeString(out, tag);
+                }
+            }
+
+            termDataOffset = counter.count;
+            long[] termOffsets = new long[postings.size()];
+            t = 0;
+            for (String term : postings.keySet()) {
+                termOffsets[t] = counter.count;
+                writeString(out, term);
+                out.writeLong(postingsOffsets[t]);
+                out.writeInt(docFreqs[t]);
+                t++;
+            }
+
+            termIndexOffset = counter.count;
+            for (long offset : termOffsets) {
+                out.writeInt((int) offset);
+            }
+            out.flush();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(generation)
+                .putInt(docs.size()).putInt(postings.size())
+                .putLong(docTableOffset).putLong(termDataOffset).putLong(termIndexOffset)
+                .flip();
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(tmp, file, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+        return open(file);
+    }
+
+    /**
+     * Visit postings of a term, or of every term starting with it when prefix is set
+     */
+    public void visit(String term, boolean prefix, PostingVisitor visitor) {
+        int index = findTerm(term);
+        if (!prefix) {
+            if (index >= 0) visitTermAt(index, visitor);
+            return;
+        }
+        for (int i = index >= 0 ? index : -index - 1; i < termCount; i++) {
+            if (!termAt(i).startsWith(term)) break;
+            visitTermAt(i, visitor);
+        }
+    }
+
+    /**
+     * Visit every posting in term order (used when merging segments)
+     */
+    public void visitAll(PostingVisitor visitor) {
+        for (int i = 0; i < termCount; i++) {
+            visitTermAt(i, visitor);
+        }
+    }
+
+    private int findTerm(String term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = termAt(mid).compareTo(term);
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+
+    private String termAt(int index) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(buffer.getInt((int) termIndexOffset + index * 4));
+        return readString(in);
+    }
+
+    private void visitTermAt(int index, PostingVisitor visitor) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(buffer.getInt((int) termIndexOffset + index * 4));
+        String term = readString(in);
+        long postingsOffset = in.getLong();
+        int docFreq = in.getInt();
+
+        in.position((int) postingsOffset);
+        int count = in.getInt();
+        for (int d = 0; d < count; d++) {
+            long docId = in.getLong();
+            float tf = in.getFloat();
+            int[] positions = new int[in.getInt()];
+            for (int p = 0; p < positions.length; p++) {
+                positions[p] = in.getInt();
+            }
+            visitor.visit(term, docFreq, docId, tf, positions);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 0xFFFF);
+        // Cut before a UTF-8 continuation byte so the stored prefix still decodes
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        out.writeShort(length);
+        out.write(bytes, 0, length);
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package user.service;
+
+import user.repository.ArticleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Unique article slugs.
+ * Candidates (base, base-1, base-2, ...) are checked a batch at a time with one
+ * exact-match query per batch, and the first free one is picked in memory,
+ * instead of probing the candidates one query at a time or reading every slug
+ * that merely starts with the base. Two writers can still pick the
+ * same slug concurrently; the unique index on articles.slug rejects the second,
+ * and its write is rerun in a fresh transaction that sees the first one's slug.
+ */
+@Component
+public class SlugAllocator {
+
+    // Name of the unique constraint on Article.slug
+    public static final String SLUG_CONSTRAINT = "uk_articles_slug";
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int CANDIDATE_BATCH = 32;
+
+    private final ArticleRepository articleRepository;
+    private final TransactionTemplate transaction;
+
+    @Autowired
+    public SlugAllocator(ArticleRepository articleRepository, PlatformTransactionManager transactionManager) {
+        this.articleRepository = articleRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * First free slug of base, base-1, base-2, ...
+     * An article's current slug is kept when it is the base, or when it was
+     * allocated from this same base (currentBaseSlug, the base of the article's
+     * previous title), so editing "intro-2" without changing its title does not
+     * move it to a new URL, while retitling "Java 2024" (java-2024) to "Java" does.
+     */
+    public String allocate(String baseSlug, String currentSlug, String currentBaseSlug) {
+        if (currentSlug != null && (currentSlug.equals(baseSlug)
+                || (baseSlug.equals(currentBaseSlug) && isNumbered(currentSlug, baseSlug)))) {
+            return currentSlug;
+        }
+        for (int from = 0; ; from += CANDIDATE_BATCH) {
+            List<String> candidates = new ArrayList<>(CANDIDATE_BATCH);
+            for (int n = from; n < from + CANDIDATE_BATCH; n++) {
+                candidates.add(n == 0 ? baseSlug : baseSlug + "-" + n);
+            }
+            Set<String> taken = new HashSet<>(articleRepository.findSlugsIn(candidates));
+            for (String candidate : candidates) {
+                if (!taken.contains(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+    }
+
+    /**
+     * Run a write that assigns a slug in its own transaction, rerunning it when
+     * another writer committed the same slug first. Inside an existing
+     * transaction the write runs once, as a failed flush already dooms it.
+     */
+    public <T> T withRetry(Supplier<T> write) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return write.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> write.get());
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_ATTEMPTS || !isSlugConflict(e)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // base-<digits>
+    private static boolean isNumbered(String slug, String baseSlug) {
+        int suffix = baseSlug.length() + 1;
+        if (slug.length() <= suffix || !slug.startsWith(baseSlug + "-")) {
+            return false;
+        }
+        for (int i = suffix; i < slug.length(); i++) {
+            if (!Character.isDigit(slug.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSlugConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(SLUG_CONSTRAINT);
+    }
+}
@@ -0,0 +1,212 @@
+package user.service;
+
+import com.medium_clone.user.dto.TagResponse;
+import com.medium_clone.user.entity.Tag;
+import user.repository.TagRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix trie over tag names for autocomplete. Every node caches the top-K
+ * tags below it by usage count, so a lookup is a walk down the prefix plus a
+ * copy of at most K entries. Built from the tags table at startup and updated
+ * from TagUsageEvent; an update only recomputes the caches on the path of the
+ * changed tag, merging the (already ranked) caches of each node's children.
+ */
+@Component
+public class TagAutocompleteTrie {
+
+    private static final Comparator<TagEntry> BY_USAGE = Comparator
+            .comparingLong((TagEntry entry) -> entry.usageCount).reversed()
+            .thenComparing(entry -> entry.name);
+
+    private final TagRepository tagRepository;
+    private final int topK;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node();
+
+    @Autowired
+    public TagAutocompleteTrie(TagRepository tagRepository,
+                               @Value("${app.tags.autocomplete.top-k:10}") int topK) {
+        this.tagRepository = tagRepository;
+        this.topK = topK;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Node fresh = new Node();
+        for (Tag tag : tagRepository.findAll()) {
+            Node node = fresh;
+            for (char c : key(tag.getName()).toCharArray()) {
+                node = node.childOrCreate(c);
+            }
+            node.entry = new TagEntry(tag.getId(), tag.getName(), tag.getUsageCount() != null ? tag.getUsageCount() : 0L,
+                    tag.getLastUsedAt());
+        }
+        computeTopRecursively(fresh);
+        lock.writeLock().lock();
+        try {
+            root = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTagUsage(TagUsageEvent event) {
+        for (TagUsageEvent.TagUsage usage : event.usages()) {
+            update(usage.tagId(), usage.name(), usage.usageCount(), usage.usedAt());
+        }
+    }
+
+    /**
+     * Insert a tag or change its usage count
+     */
+    public void update(Long tagId, String name, long usageCount, LocalDateTime lastUsedAt) {
+        String key = key(name);
+        lock.writeLock().lock();
+        try {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = root;
+            for (int i = 0; i < key.length(); i++) {
+                path[i + 1] = path[i].childOrCreate(key.charAt(i));
+            }
+            path[key.length()].entry = new TagEntry(tagId, name, usageCount, lastUsedAt);
+            for (int i = key.length(); i >= 0; i--) {
+                computeTop(path[i]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to K tags starting with the prefix (case-insensitive), most used first
+     */
+    public List<TagResponse> complete(String prefix) {
+        String key = key(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return new ArrayList<>();
+            }
+            List<TagResponse> result = new ArrayList<>(node.topSize);
+            for (int i = 0; i < node.topSize; i++) {
+                TagEntry entry = node.top[i];
+                result.add(TagResponse.builder()
+                        .id(entry.id)
+                        .name(entry.name)
+                        .usageCount(entry.usageCount)
+                        .lastUsedAt(entry.lastUsedAt)
+                        .build());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void computeTopRecursively(Node node) {
+        for (int i = 0; i < node.childCount; i++) {
+            computeTopRecursively(node.children[i]);
+        }
+        computeTop(node);
+    }
+
+    // A node's top-K is the best K of its own tag and its children's top-K lists
+    private void computeTop(Node node) {
+        PriorityQueue<TagEntry> best = new PriorityQueue<>(topK + 1, BY_USAGE.reversed());
+        if (node.entry != null) {
+            best.add(node.entry);
+        }
+        for (int c = 0; c < node.childCount; c++) {
+            Node child = node.children[c];
+            for (int i = 0; i < child.topSize; i++) {
+                best.add(child.top[i]);
+                if (best.size() > topK) {
+                    best.poll();
+                }
+            }
+        }
+        if (node.top == null || node.top.length != topK) {
+            node.top = new TagEntry[topK];
+        }
+        node.topSize = best.size();
+        for (int i = node.topSize - 1; i >= 0; i--) {
+            node.top[i] = best.poll();
+        }
+    }
+
+    private static String key(String name) {
+        return name == null ? "" : name.trim().toLowerCase();
+    }
+
+    private static final class TagEntry {
+        private final Long id;
+        private final String name;
+        private final long usageCount;
+        private final LocalDateTime lastUsedAt;
+
+        private TagEntry(Long id, String name, long usageCount, LocalDateTime lastUsedAt) {
+            this.id = id;
+            this.name = name;
+            this.usageCount = usageCount;
+            this.lastUsedAt = lastUsedAt;
+        }
+    }
+
+    /**
+     * Children are kept in a sorted char array, which is compact for the small
+     * fan-out of tag names and searched with a binary search
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+        private TagEntry entry;
+        private TagEntry[] top;
+        private int topSize;
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, 0, childCount, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node childOrCreate(char c) {
+            int index = Arrays.binarySearch(keys, 0, childCount, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            index = -index - 1;
+            if (childCount == keys.length) {
+                int capacity = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, index, keys, index + 1, childCount - index);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            Node node = new Node();
+            keys[index] = c;
+            children[index] = node;
+            childCount++;
+            return node;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package user.service;
+
+import user.repository.ArticleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Tag -> compressed bitmap of published articles, for tag and multi-tag queries.
+ * Bitmaps hold ordinals rather than article ids: ordinals are handed out in
+ * publishedAt order, so walking an intersection from the highest ordinal down
+ * yields articles newest first without sorting. An article published with an
+ * older date than the newest one (e.g. restored) marks the ordinals for
+ * renumbering, which happens before the next query.
+ * Kept current from ArticleChangedEvent, which every article write path
+ * publishes after updating its tags.
+ */
+@Component
+public class TagBitmapIndex {
+
+    private final ArticleRepository articleRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, CompactBitmap> bitmaps = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private long[] idsByOrdinal = new long[1024];
+    private int nextOrdinal;
+    private Entry newest;
+    private boolean reorderNeeded;
+
+    // Events committed while a rebuild is reading are buffered and replayed after the swap
+    private final Object startupMonitor = new Object();
+    private final List<ArticleChangedEvent> pendingEvents = new ArrayList<>();
+    private boolean started;
+
+    @Autowired
+    public TagBitmapIndex(ArticleRepository articleRepository) {
+        this.articleRepository = articleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        synchronized (startupMonitor) {
+            started = false;
+        }
+        Map<Long, Set<String>> tagsById = new HashMap<>();
+        for (Object[] row : articleRepository.findPublishedArticleTags()) {
+            tagsById.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add(normalize((String) row[1]));
+        }
+        lock.writeLock().lock();
+        try {
+            clear();
+            // Rows arrive ordered by publishedAt, id so ordinals follow that order
+            for (Object[] row : articleRepository.findPublishedOrdering()) {
+                Long id = (Long) row[0];
+                append(new Entry(id, (LocalDateTime) row[1], tagsById.getOrDefault(id, Set.of())));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        synchronized (startupMonitor) {
+            // Events committed during the load may be newer than what it read; replay them in order
+            for (ArticleChangedEvent event : pendingEvents) {
+                apply(event);
+            }
+            pendingEvents.clear();
+            started = true;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        synchronized (startupMonitor) {
+            if (!started) {
+                pendingEvents.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    private void apply(ArticleChangedEvent event) {
+        ArticleChangedEvent.ArticleSnapshot article = event.article();
+        if (event.isDeleted() || !article.published()) {
+            remove(article.id());
+        } else {
+            put(article.id(), article.publishedAt(), article.tags());
+        }
+    }
+
+    public void put(Long articleId, LocalDateTime publishedAt, Set<String> tags) {
+        Set<String> normalized = new HashSet<>();
+        if (tags != null) {
+            tags.forEach(tag -> normalized.add(normalize(tag)));
+        }
+        lock.writeLock().lock();
+        try {
+            Entry existing = entries.get(articleId);
+            if (existing != null && Objects.equals(existing.publishedAt, publishedAt)) {
+                // Same position: only the tag membership changes
+                for (String tag : existing.tags) {
+                    if (!normalized.contains(tag)) clearBit(tag, existing.ordinal);
+                }
+                for (String tag : normalized) {
+                    if (!existing.tags.contains(tag)) bitmaps.computeIfAbsent(tag, t -> new CompactBitmap()).add(existing.ordinal);
+                }
+                existing.tags = normalized;
+                return;
+            }
+            if (existing != null) {
+                removeEntry(existing);
+            }
+            Entry entry = new Entry(articleId, publishedAt, normalized);
+            if (newest != null && entry.compareTo(newest) < 0) {
+                reorderNeeded = true;
+            }
+            append(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long articleId) {
+        lock.writeLock().lock();
+        try {
+            Entry existing = entries.get(articleId);
+            if (existing != null) {
+                removeEntry(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Published article ids carrying all (matchAll) or any of the tags, newest first
+     */
+    public Page<Long> find(Set<String> tags, boolean matchAll, Pageable pageable) {
+        if (tags == null || tags.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        if (needsReorder()) {
+            lock.writeLock().lock();
+            try {
+                if (reorderNeeded) renumber();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            List<CompactBitmap> selected = new ArrayList<>(tags.size());
+            for (String tag : tags) {
+                CompactBitmap bitmap = bitmaps.get(normalize(tag));
+                if (bitmap == null) {
+                    if (matchAll) return new PageImpl<>(List.of(), pageable, 0);
+                    continue;
+                }
+                selected.add(bitmap);
+            }
+            CompactBitmap result = selected.size() == 1 ? selected.get(0)
+                    : matchAll ? CompactBitmap.and(selected) : CompactBitmap.or(selected);
+
+            long offset = pageable.getOffset();
+            int limit = pageable.getPageSize();
+            List<Long> ids = new ArrayList<>(limit);
+            long[] skipped = {0};
+            result.forEachDescending(ordinal -> {
+                if (skipped[0] < offset) {
+                    skipped[0]++;
+                    return true;
+                }
+                ids.add(idsByOrdinal[ordinal]);
+                return ids.size() < limit;
+            });
+            return new PageImpl<>(ids, pageable, result.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean needsReorder() {
+        lock.readLock().lock();
+        try {
+            return reorderNeeded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Reassign dense ordinals in publishedAt order; also drops holes left by removals
+    private void renumber() {
+        List<Entry> ordered = new ArrayList<>(entries.values());
+        ordered.sort(Entry::compareTo);
+        clear();
+        ordered.forEach(this::append);
+    }
+
+    private void append(Entry entry) {
+        if (nextOrdinal == idsByOrdinal.length) {
+            if (entries.size() < nextOrdinal / 2) {
+                // More than half the ordinals are holes; compact instead of growing
+                renumber();
+                if (nextOrdinal < idsByOrdinal.length) {
+                    append(entry);
+                    return;
+                }
+            }
+            idsByOrdinal = Arrays.copyOf(idsByOrdinal, idsByOrdinal.length * 2);
+        }
+        entry.ordinal = nextOrdinal++;
+        idsByOrdinal[entry.ordinal] = entry.id;
+        entries.put(entry.id, entry);
+        for (String tag : entry.tags) {
+            bitmaps.computeIfAbsent(tag, t -> new CompactBitmap()).add(entry.ordinal);
+        }
+        if (newest == null || entry.compareTo(newest) > 0) {
+            newest = entry;
+        }
+    }
+
+    private void removeEntry(Entry entry) {
+        entries.remove(entry.id);
+        for (String tag : entry.tags) {
+            clearBit(tag, entry.ordinal);
+        }
+        if (entry == newest) {
+            // Only a removal of the newest entry can make the remaining order look stale
+            newest = entries.values().stream().max(Entry::compareTo).orElse(null);
+        }
+    }
+
+    private void clearBit(String tag, int ordinal) {
+        CompactBitmap bitmap = bitmaps.get(tag);
+        if (bitmap == null) return;
+        bitmap.remove(ordinal);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(tag);
+        }
+    }
+
+    private void clear() {
+        bitmaps.clear();
+        entries.clear();
+        nextOrdinal = 0;
+        newest = null;
+        reorderNeeded = false;
+    }
+
+    private static String normalize(String tag) {
+        return tag.trim().toLowerCase();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final Long id;
+        private final LocalDateTime publishedAt;
+        private Set<String> tags;
+        private int ordinal;
+
+        private Entry(Long id, LocalDateTime publishedAt, Set<String> tags) {
+            this.id = id;
+            this.publishedAt = publishedAt;
+            this.tags = tags;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byDate = Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())
+                    .compare(publishedAt, other.publishedAt);
+            return byDate != 0 ? byDate : id.compareTo(other.id);
+        }
+    }
+}
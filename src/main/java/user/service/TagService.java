@@ -8,5 +8,5 @@ public interface TagService {
     List<TagResponse> autocompleteTags(String query);
     List<TagResponse> getTrendingTags(int limit);
     List<ArticleResponse> getArticlesByTag(String tag, int page, int size);
-    void updateTagsForArticle(Long articleId, java.util.Set<String> tags);
+    void updateTagsForArticle(Long articleId, java.util.Set<String> previousTags, java.util.Set<String> tags);
 } 
\ No newline at end of file
@@ -2,97 +2,156 @@ package user.service;
 
 import com.medium_clone.user.dto.TagResponse;
 import com.medium_clone.user.dto.ArticleResponse;
-import com.medium_clone.user.entity.Article;
 import com.medium_clone.user.entity.Tag;
-import user.repository.ArticleRepository;
 import user.repository.TagRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class TagServiceImpl implements TagService {
+
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO tags (name, usage_count, last_used_at) VALUES (?, 0, ?)";
+    private static final String INCREMENT_SQL =
+            "UPDATE tags SET usage_count = usage_count + 1, last_used_at = ? WHERE name = ?";
+    private static final String DECREMENT_SQL =
+            "UPDATE tags SET usage_count = usage_count - 1 WHERE name = ? AND usage_count > 0";
+
     private final TagRepository tagRepository;
-    private final ArticleRepository articleRepository;
+    private final TagBitmapIndex tagIndex;
+    private final ArticleSummaryLoader summaryLoader;
+    private final TagAutocompleteTrie autocompleteTrie;
+    private final TrendingTagsEngine trendingTags;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate insertTransaction;
 
     @Autowired
-    public TagServiceImpl(TagRepository tagRepository, ArticleRepository articleRepository) {
+    public TagServiceImpl(TagRepository tagRepository, TagBitmapIndex tagIndex, ArticleSummaryLoader summaryLoader,
+                          TagAutocompleteTrie autocompleteTrie, TrendingTagsEngine trendingTags,
+                          ApplicationEventPublisher eventPublisher, JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager) {
         this.tagRepository = tagRepository;
-        this.articleRepository = articleRepository;
+        this.tagIndex = tagIndex;
+        this.summaryLoader = summaryLoader;
+        this.autocompleteTrie = autocompleteTrie;
+        this.trendingTags = trendingTags;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertTransaction = new TransactionTemplate(transactionManager);
+        this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<TagResponse> autocompleteTags(String query) {
-        return tagRepository.findTop10ByNameStartingWithIgnoreCaseOrderByUsageCountDesc(query)
-                .stream().map(this::toResponse).collect(Collectors.toList());
+        // Served from the in-memory trie; no query per keystroke
+        return autocompleteTrie.complete(query);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<TagResponse> getTrendingTags(int limit) {
-        return tagRepository.findTrendingTags(PageRequest.of(0, limit))
-                .stream().map(this::toResponse).collect(Collectors.toList());
+        // Ranked by time-decayed usage, maintained in memory
+        return trendingTags.top(limit);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ArticleResponse> getArticlesByTag(String tag, int page, int size) {
-        // Find articles with the given tag (case-insensitive)
-        Set<String> tags = new HashSet<>();
-        tags.add(tag.toLowerCase());
-        return articleRepository.findByMultipleTags(tags, 1L, PageRequest.of(page, size))
-                .stream().map(this::toArticleResponse).collect(Collectors.toList());
+        // Find articles with the given tag (case-insensitive), newest first
+        List<Long> ids = tagIndex.find(Set.of(tag), true, PageRequest.of(page, size)).getContent();
+        return summaryLoader.loadInOrder(ids);
     }
 
+    /**
+     * Set-based tag sync: only tags added to or dropped from the article
+     * change usage counts. Missing tags are created in one batch, counts are
+     * adjusted with one batched UPDATE per direction, and the touched rows are
+     * read back in one IN query for the usage event.
+     */
     @Override
     @Transactional
-    public void updateTagsForArticle(Long articleId, Set<String> tags) {
-        if (tags == null) return;
-        Set<String> normalized = tags.stream().map(String::toLowerCase).map(String::trim).collect(Collectors.toSet());
-        for (String tagName : normalized) {
-            Tag tag = tagRepository.findByNameIgnoreCase(tagName).orElse(null);
-            if (tag == null) {
-                tag = Tag.builder()
-                        .name(tagName)
-                        .usageCount(1L)
-                        .lastUsedAt(LocalDateTime.now())
-                        .build();
-            } else {
-                tag.setUsageCount(tag.getUsageCount() + 1);
-                tag.setLastUsedAt(LocalDateTime.now());
-            }
-            tagRepository.save(tag);
+    public void updateTagsForArticle(Long articleId, Set<String> previousTags, Set<String> tags) {
+        Set<String> before = normalize(previousTags);
+        Set<String> after = normalize(tags);
+        Set<String> added = new HashSet<>(after);
+        added.removeAll(before);
+        Set<String> removed = new HashSet<>(before);
+        removed.removeAll(after);
+        if (added.isEmpty() && removed.isEmpty()) return;
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!added.isEmpty()) {
+            insertMissingTags(added, now);
+            Timestamp at = Timestamp.valueOf(now);
+            jdbcTemplate.batchUpdate(INCREMENT_SQL, added.stream()
+                    .map(name -> new Object[]{at, name})
+                    .collect(Collectors.toList()));
+        }
+        if (!removed.isEmpty()) {
+            jdbcTemplate.batchUpdate(DECREMENT_SQL, removed.stream()
+                    .map(name -> new Object[]{name})
+                    .collect(Collectors.toList()));
+        }
+
+        Set<String> touched = new HashSet<>(added);
+        touched.addAll(removed);
+        List<TagUsageEvent.TagUsage> usages = new ArrayList<>();
+        for (Tag tag : tagRepository.findByNameIn(touched)) {
+            long delta = added.contains(tag.getName()) ? 1L : -1L;
+            usages.add(new TagUsageEvent.TagUsage(tag.getId(), tag.getName(), tag.getUsageCount(), delta,
+                    delta > 0 ? now : tag.getLastUsedAt()));
         }
+        eventPublisher.publishEvent(new TagUsageEvent(usages));
     }
 
-    private TagResponse toResponse(Tag tag) {
-        return TagResponse.builder()
-                .id(tag.getId())
-                .name(tag.getName())
-                .usageCount(tag.getUsageCount())
-                .lastUsedAt(tag.getLastUsedAt())
-                .build();
+    /**
+     * Create tags that do not exist yet, with a zero count the caller then
+     * increments. Runs in its own short transaction so the rows are visible to
+     * concurrent writers at once; when another writer creates the same tag
+     * first, the unique constraint rejects the batch and the missing set is
+     * resolved again.
+     */
+    private void insertMissingTags(Set<String> names, LocalDateTime now) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                insertTransaction.executeWithoutResult(status -> {
+                    Set<String> missing = new HashSet<>(names);
+                    missing.removeAll(tagRepository.findExistingNames(names));
+                    if (missing.isEmpty()) return;
+                    Timestamp at = Timestamp.valueOf(now);
+                    jdbcTemplate.batchUpdate(INSERT_SQL, missing.stream()
+                            .map(name -> new Object[]{name, at})
+                            .collect(Collectors.toList()));
+                });
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_INSERT_ATTEMPTS) throw e;
+            }
+        }
     }
 
-    private ArticleResponse toArticleResponse(Article article) {
-        // Minimal mapping for recommendations; expand as needed
-        return ArticleResponse.builder()
-                .id(article.getId())
-                .title(article.getTitle())
-                .summary(article.getSummary())
-                .tags(article.getTags())
-                .coverImageUrl(article.getCoverImageUrl())
-                .slug(article.getSlug())
-                .published(article.isPublished())
-                .authorUsername(article.getAuthor().getUsername())
-                .createdAt(article.getCreatedAt())
-                .publishedAt(article.getPublishedAt())
-                .build();
+    private static Set<String> normalize(Set<String> tags) {
+        if (tags == null) return Collections.emptySet();
+        return tags.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .map(String::toLowerCase)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
     }
 } 
\ No newline at end of file
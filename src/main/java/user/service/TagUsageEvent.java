@@ -0,0 +1,18 @@
+package user.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published by TagServiceImpl.updateTagsForArticle once tag rows are saved,
+ * so in-memory tag structures (autocomplete, trending) can follow usage.
+ */
+public record TagUsageEvent(List<TagUsage> usages) {
+
+    /**
+     * One tag touched by an article write: its new lifetime usage count and
+     * the change applied by this write (negative when a tag was dropped)
+     */
+    public record TagUsage(Long tagId, String name, long usageCount, long delta, LocalDateTime usedAt) {
+    }
+}
@@ -0,0 +1,246 @@
+package user.service;
+
+import com.medium_clone.user.dto.TagResponse;
+import com.medium_clone.user.entity.Tag;
+import user.repository.ArticleRepository;
+import user.repository.TagRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Streaming trending tags with exponentially decayed usage scores.
+ * Uses forward decay: each use adds 2^((t - landmark) / halfLife) to the tag's
+ * weight, so all weights decay at the same rate and their order only changes
+ * when a tag is used. The ranking set is therefore maintained incrementally and
+ * /api/tags/trending just reads its head. The landmark is moved forward before
+ * the weights grow too large, and tags whose decayed score becomes negligible
+ * are pruned.
+ *
+ * A use is a tag on a published article, counted once at its publish time:
+ * the tags each recent article contributed are remembered, so publishing, or
+ * adding a tag to a published article, only adds what is not counted yet, and
+ * dropping a tag, unpublishing or deleting takes back exactly what was added,
+ * decayed from the same publish time. Tag usage events only refresh the tag's
+ * lifetime count and last use.
+ */
+@Component
+public class TrendingTagsEngine {
+
+    private static final double MAX_EXPONENT = 60.0;
+    private static final double PRUNE_BELOW = 0.01;
+    private static final int SEED_HALF_LIVES = 8;
+
+    private final ArticleRepository articleRepository;
+    private final TagRepository tagRepository;
+    private final double halfLifeMillis;
+
+    private final Map<String, TagScore> scores = new HashMap<>();
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    private final TreeSet<TagScore> ranking = new TreeSet<>(Comparator
+            .comparingDouble((TagScore score) -> score.weight).reversed()
+            .thenComparing(score -> score.name));
+    private long landmarkMillis = System.currentTimeMillis();
+
+    @Autowired
+    public TrendingTagsEngine(ArticleRepository articleRepository,
+                              TagRepository tagRepository,
+                              @Value("${app.tags.trending.half-life-hours:24}") double halfLifeHours) {
+        this.articleRepository = articleRepository;
+        this.tagRepository = tagRepository;
+        this.halfLifeMillis = halfLifeHours * 3_600_000d;
+    }
+
+    /**
+     * Seed scores from recent publications, so trending survives a restart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void seed() {
+        long horizon = (long) (SEED_HALF_LIVES * halfLifeMillis);
+        LocalDateTime since = LocalDateTime.now().minus(Duration.ofMillis(horizon));
+        List<Object[]> publications = articleRepository.findTagPublicationsSince(since);
+        List<Tag> tags = tagRepository.findAll();
+        synchronized (this) {
+            for (Tag tag : tags) {
+                TagScore score = scoreFor(tag.getName());
+                score.id = tag.getId();
+                score.usageCount = tag.getUsageCount() != null ? tag.getUsageCount() : 0L;
+                score.lastUsedAt = tag.getLastUsedAt();
+            }
+            for (Object[] row : publications) {
+                long at = toMillis((LocalDateTime) row[2]);
+                Contribution contribution = contributions.computeIfAbsent((Long) row[0], id -> new Contribution(at));
+                if (contribution.tags.add(normalize((String) row[1]))) {
+                    record((String) row[1], 1.0, at);
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onTagUsage(TagUsageEvent event) {
+        for (TagUsageEvent.TagUsage usage : event.usages()) {
+            TagScore score = scoreFor(usage.name());
+            score.id = usage.tagId();
+            score.usageCount = usage.usageCount();
+            score.lastUsedAt = usage.usedAt();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onArticleChanged(ArticleChangedEvent event) {
+        ArticleChangedEvent.ArticleSnapshot article = event.article();
+        if (event.isDeleted() || !article.published()) {
+            // The snapshot no longer has the publish time, so take it from what was added
+            Contribution retracted = contributions.remove(article.id());
+            if (retracted != null) {
+                for (String tag : retracted.tags) {
+                    record(tag, -1.0, retracted.atMillis);
+                }
+            }
+            return;
+        }
+        // Scored once per tag and article: an article created published also sends a tag usage event
+        Contribution contribution = contributions.computeIfAbsent(article.id(),
+                id -> new Contribution(toMillis(article.publishedAt())));
+        Set<String> current = new HashSet<>();
+        article.tags().forEach(tag -> current.add(normalize(tag)));
+        Iterator<String> dropped = contribution.tags.iterator();
+        while (dropped.hasNext()) {
+            String tag = dropped.next();
+            if (!current.contains(tag)) {
+                dropped.remove();
+                record(tag, -1.0, contribution.atMillis);
+            }
+        }
+        for (String tag : article.tags()) {
+            if (contribution.tags.add(normalize(tag))) {
+                record(tag, 1.0, contribution.atMillis);
+            }
+        }
+    }
+
+    /**
+     * Tags with the highest decayed usage right now
+     */
+    public synchronized List<TagResponse> top(int limit) {
+        List<TagResponse> result = new ArrayList<>(limit);
+        for (TagScore score : ranking) {
+            if (result.size() >= limit || score.weight <= 0) break;
+            result.add(TagResponse.builder()
+                    .id(score.id)
+                    .name(score.name)
+                    .usageCount(score.usageCount)
+                    .lastUsedAt(score.lastUsedAt)
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Current decayed score of a tag; a use one half-life ago counts 0.5
+     */
+    public synchronized double scoreOf(String tag) {
+        TagScore score = scores.get(normalize(tag));
+        return score == null ? 0.0 : score.weight * decayFactor(System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${app.tags.trending.prune-interval-ms:600000}")
+    public synchronized void prune() {
+        long now = System.currentTimeMillis();
+        // Past the seed horizon an article's contribution is negligible and never looked up again
+        contributions.values().removeIf(contribution -> now - contribution.atMillis > SEED_HALF_LIVES * halfLifeMillis);
+        double factor = decayFactor(now);
+        Iterator<TagScore> it = scores.values().iterator();
+        while (it.hasNext()) {
+            TagScore score = it.next();
+            if (score.weight * factor < PRUNE_BELOW) {
+                ranking.remove(score);
+                it.remove();
+            }
+        }
+    }
+
+    private void record(String tag, double amount, long atMillis) {
+        if (amount == 0) return;
+        double exponent = (atMillis - landmarkMillis) / halfLifeMillis;
+        if (exponent > MAX_EXPONENT) {
+            moveLandmark(atMillis);
+            exponent = 0;
+        }
+        TagScore score = scoreFor(tag);
+        ranking.remove(score);
+        // Removals subtract at the original time, so they cancel exactly; the clamp only absorbs rounding
+        score.weight = Math.max(0, score.weight + amount * Math.pow(2, exponent));
+        ranking.add(score);
+    }
+
+    // Rescale every weight to a new landmark; relative order is unchanged
+    private void moveLandmark(long newLandmarkMillis) {
+        double factor = Math.pow(2, (landmarkMillis - newLandmarkMillis) / halfLifeMillis);
+        ranking.clear();
+        for (TagScore score : scores.values()) {
+            score.weight *= factor;
+            ranking.add(score);
+        }
+        landmarkMillis = newLandmarkMillis;
+    }
+
+    private double decayFactor(long nowMillis) {
+        return Math.pow(2, (landmarkMillis - nowMillis) / halfLifeMillis);
+    }
+
+    private TagScore scoreFor(String tag) {
+        String name = normalize(tag);
+        TagScore score = scores.get(name);
+        if (score == null) {
+            score = new TagScore(name);
+            scores.put(name, score);
+            ranking.add(score);
+        }
+        return score;
+    }
+
+    private static String normalize(String tag) {
+        return tag.trim().toLowerCase();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? System.currentTimeMillis()
+                : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Tags an article is counted under, at its publish time
+    private static final class Contribution {
+        private final long atMillis;
+        private final Set<String> tags = new HashSet<>();
+
+        private Contribution(long atMillis) {
+            this.atMillis = atMillis;
+        }
+    }
+
+    private static final class TagScore {
+        private final String name;
+        private double weight;
+        private Long id;
+        private long usageCount;
+        private LocalDateTime lastUsedAt;
+
+        private TagScore(String name) {
+            this.name = name;
+        }
+    }
+}
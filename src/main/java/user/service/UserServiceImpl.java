@@ -25,13 +25,16 @@ public class UserServiceImpl implements UserService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final NotificationService notificationService;
+    private final HomeTimelineService homeTimeline;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil, NotificationService notificationService) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil, NotificationService notificationService,
+                           HomeTimelineService homeTimeline) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
         this.notificationService = notificationService;
+        this.homeTimeline = homeTimeline;
     }
 
     @Override
@@ -178,6 +181,7 @@ public class UserServiceImpl implements UserService {
 
         follower.getFollowing().add(toFollow);
         userRepository.save(follower);
+        homeTimeline.invalidate(follower.getId());
         notificationService.notifyFollow(toFollow, follower);
     }
 
@@ -192,6 +196,7 @@ public class UserServiceImpl implements UserService {
 
         follower.getFollowing().remove(toUnfollow);
         userRepository.save(follower);
+        homeTimeline.invalidate(follower.getId());
     }
 
     @Override
@@ -0,0 +1,465 @@
+package user.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Streaming implementations behind ArticleUtils.calculateReadTime and
+ * ArticleUtils.extractSummary.
+ *
+ * Read time is a character-level state machine: words, image markers, code
+ * fences and header markers are counted as the characters go by, with the
+ * exact counting rules of the original split and indexOf based version.
+ *
+ * The summary reproduces the original chain of seven replaceAll calls and the
+ * sentence split without regexes or intermediate strings. Each replacement is
+ * a lazy stage that pulls characters from the stage before it only as far as
+ * its next match needs, and the sentence collector stops pulling as soon as
+ * the summary is complete. A stage only keeps the characters between its read
+ * position and its furthest lookahead, so memory is bounded by the summary
+ * plus the distance to the nearest closing delimiter, not by the article.
+ */
+final class ArticleTextScanner {
+
+    // Average reading speed (words per minute)
+    private static final int WORDS_PER_MINUTE = 200;
+
+    // Additional time for images, code blocks, etc.
+    private static final int IMAGE_READ_TIME = 12; // seconds per image
+    private static final int CODE_BLOCK_READ_TIME = 30; // seconds per code block
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private ArticleTextScanner() {
+    }
+
+    static int readTime(CharSequence content) {
+        ReadTimeCounter counter = new ReadTimeCounter();
+        for (int i = 0, n = content.length(); i < n; i++) {
+            counter.accept(content.charAt(i));
+        }
+        return counter.result();
+    }
+
+    static int readTime(Reader content) throws IOException {
+        ReadTimeCounter counter = new ReadTimeCounter();
+        char[] chunk = new char[READ_BUFFER_SIZE];
+        int read;
+        while ((read = content.read(chunk)) != -1) {
+            for (int i = 0; i < read; i++) {
+                counter.accept(chunk[i]);
+            }
+        }
+        return counter.result();
+    }
+
+    static String summary(CharSequence content, int maxLength) {
+        return collectSentences(plainText(new CharSequenceText(content)), maxLength);
+    }
+
+    static String summary(Reader content, int maxLength) throws IOException {
+        try {
+            return collectSentences(plainText(new ReaderText(content)), maxLength);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Counts for the read time estimate. Words are runs of regex \s separated
+     * characters, and leading whitespace counts as one extra (empty) word as it
+     * did with split. "```" is counted without overlap, and a newline followed
+     * by k hashes counts as min(k, 3) header markers, as the three "\n#",
+     * "\n##" and "\n###" scans did.
+     */
+    private static final class ReadTimeCounter {
+        private boolean started;
+        private boolean leadingWhitespace;
+        private boolean nonBlank;
+        private boolean inWord;
+        private int words;
+        private char previous;
+        private int images;
+        private int backticks;
+        private int fences;
+        private int hashes = -1; // Hashes since the last newline, -1 when not right after one
+        private int headers;
+
+        private void accept(char c) {
+            boolean whitespace = isRegexWhitespace(c);
+            if (!started) {
+                started = true;
+                leadingWhitespace = whitespace;
+            }
+            if (c > ' ') {
+                nonBlank = true;
+            }
+            if (whitespace) {
+                inWord = false;
+            } else if (!inWord) {
+                inWord = true;
+                words++;
+            }
+            if (previous == '!' && c == '[') {
+                images++;
+            }
+            if (c == '`') {
+                backticks++;
+            } else {
+                fences += backticks / 3;
+                backticks = 0;
+            }
+            if (c == '#' && hashes >= 0) {
+                hashes++;
+            } else {
+                headers += Math.min(Math.max(hashes, 0), 3);
+                hashes = c == '\n' ? 0 : -1;
+            }
+            previous = c;
+        }
+
+        private int result() {
+            if (!nonBlank) {
+                return 1;
+            }
+            int wordCount = words + (leadingWhitespace ? 1 : 0);
+            int codeBlocks = (fences + backticks / 3) / 2;
+            int headerCount = headers + Math.min(Math.max(hashes, 0), 3);
+
+            int baseTimeMinutes = Math.max(1, wordCount / WORDS_PER_MINUTE);
+            int additionalSeconds = (images * IMAGE_READ_TIME) +
+                                    (codeBlocks * CODE_BLOCK_READ_TIME) +
+                                    (headerCount * 3);
+            return Math.max(1, baseTimeMinutes + (additionalSeconds / 60));
+        }
+    }
+
+    // Same stages, in the same order, as the original replaceAll chain
+    private static Text plainText(Text source) {
+        Text text = new BoldStage(source);                 // \*\*([^*]+)\*\*  -> $1
+        text = new DelimitedStage(text, '*');              // \*([^*]+)\*      -> $1
+        text = new DelimitedStage(text, '`');              // `([^`]+)`        -> $1
+        text = new LinkStage(text);                        // \[([^\]]+)\]\([^)]+\) -> $1
+        text = new ImageStage(text);                       // !\[([^\]]*)\]\([^)]+\) -> ""
+        text = new LeadingHeaderStage(text);               // ^#+\s*           -> ""
+        return new FenceStage(text);                       // ```[\s\S]*?```   -> ""
+    }
+
+    /**
+     * Sentences are the pieces between runs of '.', '!' and '?', trimmed as by
+     * String.trim. They are joined with ". " while the running length check of
+     * the original passes; the first piece that does not fit ends the summary.
+     */
+    private static String collectSentences(Text text, int maxLength) {
+        StringBuilder summary = new StringBuilder();
+        int i = 0;
+        while (text.has(i)) {
+            int first = -1;
+            int last = -1;
+            boolean fits = true;
+            for (; text.has(i) && !isSentenceEnd(text.at(i)); i++) {
+                if (text.at(i) > ' ') {
+                    if (first < 0) first = i;
+                    last = i;
+                    // A piece only grows, so once it is too long it can never fit
+                    if (summary.length() + (last - first + 1) + 1 > maxLength) {
+                        fits = false;
+                        break;
+                    }
+                }
+            }
+            if (!fits) break;
+            if (first >= 0) {
+                if (summary.length() > 0) {
+                    summary.append(". ");
+                }
+                for (int k = first; k <= last; k++) {
+                    summary.append(text.at(k));
+                }
+            }
+            while (text.has(i) && isSentenceEnd(text.at(i))) i++;
+            text.release(i);
+        }
+        if (summary.length() > 0) {
+            summary.append('.');
+        }
+        return summary.toString();
+    }
+
+    private static boolean isSentenceEnd(char c) {
+        return c == '.' || c == '!' || c == '?';
+    }
+
+    // The characters matched by \s without UNICODE_CHARACTER_CLASS
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Forward-only character source addressed by absolute index. has(i) pulls
+     * input until index i exists or the text ends; characters before the last
+     * released index may be dropped.
+     */
+    private abstract static class Text {
+
+        abstract boolean has(int i);
+
+        abstract char at(int i);
+
+        void release(int before) {
+        }
+
+        int indexOf(char c, int from) {
+            for (int i = from; has(i); i++) {
+                if (at(i) == c) return i;
+            }
+            return -1;
+        }
+
+        boolean startsWith(String prefix, int from) {
+            for (int k = 0; k < prefix.length(); k++) {
+                if (!has(from + k) || at(from + k) != prefix.charAt(k)) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class CharSequenceText extends Text {
+        private final CharSequence content;
+
+        private CharSequenceText(CharSequence content) {
+            this.content = content;
+        }
+
+        @Override
+        boolean has(int i) {
+            return i < content.length();
+        }
+
+        @Override
+        char at(int i) {
+            return content.charAt(i);
+        }
+    }
+
+    /**
+     * Text held in a sliding window: chars [base, end) live in buffer
+     */
+    private abstract static class BufferedText extends Text {
+        private char[] buffer = new char[256];
+        private int base;
+        private int end;
+        private int released;
+        private boolean finished;
+
+        // Append at least one character, advance past a removed match, or finish
+        abstract void produce();
+
+        @Override
+        final boolean has(int i) {
+            while (end <= i && !finished) {
+                produce();
+            }
+            return i < end;
+        }
+
+        @Override
+        final char at(int i) {
+            return buffer[i - base];
+        }
+
+        @Override
+        final void release(int before) {
+            released = Math.max(released, before);
+        }
+
+        final void finish() {
+            finished = true;
+        }
+
+        final void append(char c) {
+            if (end - base == buffer.length) {
+                makeRoom(1);
+            }
+            buffer[end++ - base] = c;
+        }
+
+        final void append(char[] chars, int offset, int length) {
+            if (end - base + length > buffer.length) {
+                makeRoom(length);
+            }
+            System.arraycopy(chars, offset, buffer, end - base, length);
+            end += length;
+        }
+
+        // Drop released characters first; grow only when the live window itself is full
+        private void makeRoom(int needed) {
+            int drop = Math.min(released, end) - base;
+            int live = end - base - drop;
+            char[] target = live + needed > buffer.length ? new char[Math.max(buffer.length * 2, live + needed)] : buffer;
+            System.arraycopy(buffer, drop, target, 0, live);
+            buffer = target;
+            base += drop;
+        }
+    }
+
+    private static final class ReaderText extends BufferedText {
+        private final Reader reader;
+        private final char[] chunk = new char[READ_BUFFER_SIZE];
+
+        private ReaderText(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        void produce() {
+            try {
+                int read = reader.read(chunk);
+                if (read == -1) {
+                    finish();
+                } else {
+                    append(chunk, 0, read);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * One replaceAll pass: at each position of the input, either a match is
+     * replaced and skipped, or the character is copied through
+     */
+    private abstract static class ReplaceStage extends BufferedText {
+        final Text input;
+        private int position;
+
+        ReplaceStage(Text input) {
+            this.input = input;
+        }
+
+        // If a match starts at p, append its replacement and return where it ends, else -1
+        abstract int match(int p);
+
+        @Override
+        final void produce() {
+            if (!input.has(position)) {
+                finish();
+                return;
+            }
+            int matchEnd = match(position);
+            if (matchEnd < 0) {
+                append(input.at(position++));
+            } else {
+                position = matchEnd;
+            }
+            input.release(position);
+        }
+
+        final void copy(int from, int to) {
+            for (int i = from; i < to; i++) {
+                append(input.at(i));
+            }
+        }
+    }
+
+    private static final class BoldStage extends ReplaceStage {
+        private BoldStage(Text input) {
+            super(input);
+        }
+
+        @Override
+        int match(int p) {
+            if (input.at(p) != '*' || !input.has(p + 1) || input.at(p + 1) != '*') return -1;
+            int close = input.indexOf('*', p + 2);
+            if (close <= p + 2 || !input.has(close + 1) || input.at(close + 1) != '*') return -1;
+            copy(p + 2, close);
+            return close + 2;
+        }
+    }
+
+    // A delimiter, at least one other character, and the delimiter again
+    private static final class DelimitedStage extends ReplaceStage {
+        private final char delimiter;
+
+        private DelimitedStage(Text input, char delimiter) {
+            super(input);
+            this.delimiter = delimiter;
+        }
+
+        @Override
+        int match(int p) {
+            if (input.at(p) != delimiter) return -1;
+            int close = input.indexOf(delimiter, p + 1);
+            if (close <= p + 1) return -1;
+            copy(p + 1, close);
+            return close + 1;
+        }
+    }
+
+    private static final class LinkStage extends ReplaceStage {
+        private LinkStage(Text input) {
+            super(input);
+        }
+
+        @Override
+        int match(int p) {
+            if (input.at(p) != '[') return -1;
+            int close = input.indexOf(']', p + 1);
+            if (close <= p + 1 || !input.has(close + 1) || input.at(close + 1) != '(') return -1;
+            int urlEnd = input.indexOf(')', close + 2);
+            if (urlEnd <= close + 2) return -1;
+            copy(p + 1, close);
+            return urlEnd + 1;
+        }
+    }
+
+    private static final class ImageStage extends ReplaceStage {
+        private ImageStage(Text input) {
+            super(input);
+        }
+
+        @Override
+        int match(int p) {
+            if (input.at(p) != '!' || !input.has(p + 1) || input.at(p + 1) != '[') return -1;
+            int close = input.indexOf(']', p + 2);
+            if (close < 0 || !input.has(close + 1) || input.at(close + 1) != '(') return -1;
+            int urlEnd = input.indexOf(')', close + 2);
+            if (urlEnd <= close + 2) return -1;
+            return urlEnd + 1;
+        }
+    }
+
+    // Without MULTILINE, ^ only matches at the very start of the text
+    private static final class LeadingHeaderStage extends ReplaceStage {
+        private LeadingHeaderStage(Text input) {
+            super(input);
+        }
+
+        @Override
+        int match(int p) {
+            if (p != 0 || input.at(0) != '#') return -1;
+            int end = 1;
+            while (input.has(end) && input.at(end) == '#') end++;
+            while (input.has(end) && isRegexWhitespace(input.at(end))) end++;
+            return end;
+        }
+    }
+
+    private static final class FenceStage extends ReplaceStage {
+        private FenceStage(Text input) {
+            super(input);
+        }
+
+        @Override
+        int match(int p) {
+            if (!input.startsWith("```", p)) return -1;
+            for (int close = input.indexOf('`', p + 3); close >= 0; close = input.indexOf('`', close + 1)) {
+                if (input.startsWith("```", close)) {
+                    return close + 3;
+                }
+            }
+            return -1;
+        }
+    }
+}
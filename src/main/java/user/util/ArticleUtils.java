@@ -2,7 +2,13 @@ package user.util;
 
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.Normalizer;
+import java.util.HexFormat;
 import java.util.regex.Pattern;
 
 @Component
@@ -11,13 +17,6 @@ public class ArticleUtils {
     private static final Pattern NONLATIN = Pattern.compile("[^\\w-]");
     private static final Pattern WHITESPACE = Pattern.compile("[\\s]");
     private static final Pattern EDGESDHASHES = Pattern.compile("(^-|-$)");
-    
-    // Average reading speed (words per minute)
-    private static final int WORDS_PER_MINUTE = 200;
-    
-    // Additional time for images, code blocks, etc.
-    private static final int IMAGE_READ_TIME = 12; // seconds per image
-    private static final int CODE_BLOCK_READ_TIME = 30; // seconds per code block
 
     /**
      * Generate a URL-friendly slug from a title
@@ -58,34 +57,24 @@ public class ArticleUtils {
      * - Headers and formatting
      */
     public static int calculateReadTime(String content) {
-        if (content == null || content.trim().isEmpty()) {
+        return calculateReadTime((CharSequence) content);
+    }
+
+    /**
+     * Same as calculateReadTime(String), in one pass over the characters without copying them
+     */
+    public static int calculateReadTime(CharSequence content) {
+        if (content == null) {
             return 1;
         }
+        return ArticleTextScanner.readTime(content);
+    }
 
-        // Count words
-        String[] words = content.split("\\s+");
-        int wordCount = words.length;
-        
-        // Calculate base reading time
-        int baseTimeMinutes = Math.max(1, wordCount / WORDS_PER_MINUTE);
-        
-        // Count images (markdown image syntax: ![alt](url))
-        int imageCount = countOccurrences(content, "![");
-        
-        // Count code blocks (markdown code blocks: ```)
-        int codeBlockCount = countOccurrences(content, "```") / 2; // Each code block has opening and closing ```
-        
-        // Count headers (markdown headers: # ## ###)
-        int headerCount = countOccurrences(content, "\n#") + countOccurrences(content, "\n##") + countOccurrences(content, "\n###");
-        
-        // Calculate additional time
-        int additionalSeconds = (imageCount * IMAGE_READ_TIME) + 
-                               (codeBlockCount * CODE_BLOCK_READ_TIME) + 
-                               (headerCount * 3); // 3 seconds per header for processing
-        
-        int totalMinutes = baseTimeMinutes + (additionalSeconds / 60);
-        
-        return Math.max(1, totalMinutes);
+    /**
+     * Same as calculateReadTime(String), streamed from a reader in fixed-size chunks
+     */
+    public static int calculateReadTime(Reader content) throws IOException {
+        return ArticleTextScanner.readTime(content);
     }
 
     /**
@@ -113,43 +102,24 @@ public class ArticleUtils {
      * Extract a summary from content (first few sentences)
      */
     public static String extractSummary(String content, int maxLength) {
-        if (content == null || content.trim().isEmpty()) {
+        return extractSummary((CharSequence) content, maxLength);
+    }
+
+    /**
+     * Same as extractSummary(String, int); reads only as much content as the summary needs
+     */
+    public static String extractSummary(CharSequence content, int maxLength) {
+        if (content == null) {
             return "";
         }
+        return ArticleTextScanner.summary(content, maxLength);
+    }
 
-        // Remove markdown formatting
-        String plainText = content.replaceAll("\\*\\*([^*]+)\\*\\*", "$1") // Bold
-                                 .replaceAll("\\*([^*]+)\\*", "$1") // Italic
-                                 .replaceAll("`([^`]+)`", "$1") // Inline code
-                                 .replaceAll("\\[([^\\]]+)\\]\\([^)]+\\)", "$1") // Links
-                                 .replaceAll("!\\[([^\\]]*)\\]\\([^)]+\\)", "") // Images
-                                 .replaceAll("^#+\\s*", "") // Headers
-                                 .replaceAll("```[\\s\\S]*?```", ""); // Code blocks
-
-        // Find the first few sentences
-        String[] sentences = plainText.split("[.!?]+");
-        StringBuilder summary = new StringBuilder();
-        
-        for (String sentence : sentences) {
-            sentence = sentence.trim();
-            if (sentence.length() > 0) {
-                if (summary.length() + sentence.length() + 1 <= maxLength) {
-                    if (summary.length() > 0) {
-                        summary.append(". ");
-                    }
-                    summary.append(sentence);
-                } else {
-                    break;
-                }
-            }
-        }
-        
-        String result = summary.toString();
-        if (result.length() > 0 && !result.endsWith(".")) {
-            result += ".";
-        }
-        
-        return result;
+    /**
+     * Same as extractSummary(String, int), streamed from a reader
+     */
+    public static String extractSummary(Reader content, int maxLength) throws IOException {
+        return ArticleTextScanner.summary(content, maxLength);
     }
 
     /**
@@ -189,28 +159,6 @@ public class ArticleUtils {
         return slug.matches("^[a-z0-9]+(-[a-z0-9]+)*$");
     }
 
-    /**
-     * Count occurrences of a substring in a string
-     */
-    private static int countOccurrences(String text, String substring) {
-        if (text == null || substring == null) {
-            return 0;
-        }
-        
-        int count = 0;
-        int lastIndex = 0;
-        
-        while (lastIndex != -1) {
-            lastIndex = text.indexOf(substring, lastIndex);
-            if (lastIndex != -1) {
-                count++;
-                lastIndex += substring.length();
-            }
-        }
-        
-        return count;
-    }
-
     /**
      * Format view count for display (e.g., 1000 -> 1K, 1500000 -> 1.5M)
      */
@@ -224,6 +172,18 @@ public class ArticleUtils {
         }
     }
 
+    /**
+     * SHA-256 of the content as lower-case hex, identifying the exact text a rendering was made from
+     */
+    public static String contentHash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((content != null ? content : "").getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     /**
      * Calculate engagement rate based on views and other metrics
      */
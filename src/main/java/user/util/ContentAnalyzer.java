@@ -0,0 +1,145 @@
+package user.util;
+
+import com.medium_clone.user.entity.ContentMetrics;
+
+/**
+ * Single-pass markdown scanner producing all structure metrics of a text.
+ * The content is walked once, line by line: the start of each line decides
+ * whether it is blank, a code fence, a header or a list item, and the rest of
+ * the line is scanned character by character for words, syllables, sentence
+ * ends, images, links and emphasis markers. Nothing is split or copied; the
+ * only allocation is the result.
+ */
+public final class ContentAnalyzer {
+
+    private ContentAnalyzer() {
+    }
+
+    public static ContentMetrics analyze(String content) {
+        int words = 0, sentences = 0, syllables = 0, paragraphs = 0, headers = 0;
+        int images = 0, codeBlocks = 0, links = 0, lists = 0, emphasisMarkers = 0;
+        boolean tableOfContents = false;
+        boolean inCode = false, inWord = false, previousVowel = false, openSentence = false, afterBlank = true;
+
+        int length = content == null ? 0 : content.length();
+        int i = 0;
+        while (i < length) {
+            int lineEnd = content.indexOf('\n', i);
+            if (lineEnd < 0) lineEnd = length;
+            while (i < lineEnd && isBlank(content.charAt(i))) i++;
+            inWord = false;
+            previousVowel = false;
+
+            if (i == lineEnd) {
+                // Blank lines separate paragraphs, except inside a code block
+                afterBlank |= !inCode;
+                i = lineEnd + 1;
+                continue;
+            }
+            if (afterBlank) paragraphs++;
+            afterBlank = false;
+
+            if (content.startsWith("```", i)) {
+                if (!inCode) codeBlocks++;
+                inCode = !inCode;
+                i = lineEnd + 1;
+                continue;
+            }
+            boolean header = false;
+            if (!inCode) {
+                char first = content.charAt(i);
+                if (first == '#') {
+                    int marker = i;
+                    while (marker < lineEnd && content.charAt(marker) == '#') marker++;
+                    if (marker - i <= 6 && (marker == lineEnd || content.charAt(marker) == ' ')) {
+                        header = true;
+                        headers++;
+                        int text = marker;
+                        while (text < lineEnd && content.charAt(text) == ' ') text++;
+                        tableOfContents |= content.regionMatches(true, text, "Table of Contents", 0, 17)
+                                || content.regionMatches(true, text, "Contents", 0, 8);
+                        i = marker;
+                    }
+                } else if ((first == '-' || first == '*' || first == '+') && i + 1 < lineEnd && content.charAt(i + 1) == ' ') {
+                    lists++;
+                    i += 2;
+                } else if (first >= '0' && first <= '9') {
+                    int marker = i;
+                    while (marker < lineEnd && content.charAt(marker) >= '0' && content.charAt(marker) <= '9') marker++;
+                    if (marker + 1 < lineEnd && (content.charAt(marker) == '.' || content.charAt(marker) == ')')
+                            && content.charAt(marker + 1) == ' ') {
+                        lists++;
+                        i = marker + 2;
+                    }
+                }
+            }
+
+            for (; i < lineEnd; i++) {
+                char c = content.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    inWord = false;
+                    previousVowel = false;
+                    continue;
+                }
+                if (!inWord) {
+                    words++;
+                    inWord = true;
+                }
+                boolean vowel = isVowel(Character.toLowerCase(c));
+                if (vowel && !previousVowel) syllables++;
+                previousVowel = vowel;
+
+                if (c == '!' && i + 1 < lineEnd && content.charAt(i + 1) == '[') {
+                    if (!inCode) images++;
+                    continue;
+                }
+                if (c == '.' || c == '!' || c == '?') {
+                    if (openSentence) sentences++;
+                    openSentence = false;
+                } else if (Character.isLetterOrDigit(c)) {
+                    openSentence = true;
+                }
+                if (inCode) continue;
+                if (c == ']' && content.startsWith("(http", i + 1)) {
+                    links++;
+                } else if ((c == '*' || c == '_') && (i == 0 || content.charAt(i - 1) != c)) {
+                    // First character of a marker run; underscores inside words (snake_case) are not markup
+                    int end = i;
+                    while (end < lineEnd && content.charAt(end) == c) end++;
+                    boolean wordBefore = i > 0 && Character.isLetterOrDigit(content.charAt(i - 1));
+                    boolean wordAfter = end < lineEnd && Character.isLetterOrDigit(content.charAt(end));
+                    if (c == '*' || !(wordBefore && wordAfter)) emphasisMarkers++;
+                }
+            }
+            if (header && openSentence) {
+                // A header ends its sentence even without punctuation
+                sentences++;
+                openSentence = false;
+            }
+            i = lineEnd + 1;
+        }
+        if (openSentence) sentences++;
+
+        return ContentMetrics.builder()
+                .wordCount(words)
+                .sentenceCount(sentences)
+                .syllableCount(syllables)
+                .paragraphCount(paragraphs)
+                .headerCount(headers)
+                .imageCount(images)
+                .codeBlockCount(codeBlocks)
+                .linkCount(links)
+                .listCount(lists)
+                .formattingCount(emphasisMarkers / 2)
+                .hasTableOfContents(tableOfContents)
+                .build();
+    }
+
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u' || c == 'y';
+    }
+}
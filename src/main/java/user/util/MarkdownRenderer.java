@@ -0,0 +1,351 @@
+package user.util;
+
+import java.util.*;
+
+/**
+ * Markdown to sanitized HTML, collecting the table of contents in the same pass.
+ * Supports ATX headings, paragraphs, fenced code, block quotes, flat bullet and
+ * numbered lists, horizontal rules, and inline code, links, images, strong and
+ * emphasis. Every heading gets a unique id derived from its text, which is also
+ * recorded as a table of contents entry.
+ *
+ * Sanitizing is by construction: raw HTML in the source is escaped, never
+ * passed through, and link and image URLs are only emitted when they are
+ * http(s), mailto or relative; any other URL is dropped and its text kept.
+ */
+public final class MarkdownRenderer {
+
+    public record Heading(int level, String title, String anchor) {
+    }
+
+    public record Rendered(String html, List<Heading> headings) {
+    }
+
+    private final StringBuilder html = new StringBuilder();
+    private final List<Heading> headings = new ArrayList<>();
+    private final Map<String, Integer> anchors = new HashMap<>(); // Anchors in use, to the last suffix tried for each
+
+    private MarkdownRenderer() {
+    }
+
+    public static Rendered render(String markdown) {
+        MarkdownRenderer renderer = new MarkdownRenderer();
+        String[] lines = (markdown == null ? "" : markdown).split("\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = lines[i].replace("\r", "");
+        }
+        renderer.blocks(lines, 0, lines.length);
+        return new Rendered(renderer.html.toString(), renderer.headings);
+    }
+
+    private void blocks(String[] lines, int from, int to) {
+        int i = from;
+        while (i < to) {
+            String line = lines[i].strip();
+            if (line.isEmpty()) {
+                i++;
+            } else if (line.startsWith("```")) {
+                i = codeBlock(lines, i, to);
+            } else if (headingLevel(line) > 0) {
+                heading(line);
+                i++;
+            } else if (isRule(line)) {
+                html.append("<hr>\n");
+                i++;
+            } else if (line.startsWith(">")) {
+                i = blockQuote(lines, i, to);
+            } else if (listMarkerEnd(line) > 0) {
+                i = list(lines, i, to);
+            } else {
+                i = paragraph(lines, i, to);
+            }
+        }
+    }
+
+    private int codeBlock(String[] lines, int start, int to) {
+        String language = lines[start].strip().substring(3).strip();
+        html.append("<pre><code");
+        if (!language.isEmpty() && language.chars().allMatch(c -> Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '_')) {
+            html.append(" class=\"language-").append(language).append('"');
+        }
+        html.append('>');
+        int i = start + 1;
+        for (; i < to && !lines[i].strip().startsWith("```"); i++) {
+            escape(lines[i], 0, lines[i].length(), html);
+            html.append('\n');
+        }
+        html.append("</code></pre>\n");
+        return i < to ? i + 1 : i; // An unclosed fence runs to the end
+    }
+
+    private void heading(String line) {
+        int level = headingLevel(line);
+        int end = line.length();
+        // Optional closing hashes: "## Title ##"
+        while (end > level && line.charAt(end - 1) == '#') end--;
+        if (end < line.length() && end > level && line.charAt(end - 1) != ' ') end = line.length();
+        String text = line.substring(level, end).strip();
+
+        StringBuilder title = new StringBuilder();
+        int contentStart = html.length();
+        inline(text, 0, text.length(), html, title);
+        String inner = html.substring(contentStart);
+        html.setLength(contentStart);
+
+        String anchor = uniqueAnchor(title.toString());
+        html.append("<h").append(level).append(" id=\"").append(anchor).append("\">")
+                .append(inner).append("</h").append(level).append(">\n");
+        headings.add(new Heading(level, title.toString(), anchor));
+    }
+
+    private int blockQuote(String[] lines, int start, int to) {
+        int end = start;
+        while (end < to && lines[end].strip().startsWith(">")) end++;
+        String[] inner = new String[end - start];
+        for (int i = start; i < end; i++) {
+            String line = lines[i].strip().substring(1);
+            inner[i - start] = line.startsWith(" ") ? line.substring(1) : line;
+        }
+        html.append("<blockquote>\n");
+        blocks(inner, 0, inner.length);
+        html.append("</blockquote>\n");
+        return end;
+    }
+
+    private int list(String[] lines, int start, int to) {
+        boolean ordered = Character.isDigit(lines[start].strip().charAt(0));
+        html.append(ordered ? "<ol>\n" : "<ul>\n");
+        int i = start;
+        while (i < to) {
+            String line = lines[i].strip();
+            int markerEnd = listMarkerEnd(line);
+            if (markerEnd < 0 || Character.isDigit(line.charAt(0)) != ordered) break;
+            StringBuilder item = new StringBuilder(line.substring(markerEnd));
+            i++;
+            // Continuation lines belong to the item until a blank line or another block starts
+            while (i < to && !lines[i].strip().isEmpty() && !startsBlock(lines[i].strip())) {
+                item.append('\n').append(lines[i].strip());
+                i++;
+            }
+            html.append("<li>");
+            inline(item.toString(), 0, item.length(), html, null);
+            html.append("</li>\n");
+            // Blank lines between items of the same list do not end it
+            int next = i;
+            while (next < to && lines[next].strip().isEmpty()) next++;
+            if (next < to && listMarkerEnd(lines[next].strip()) > 0) i = next;
+        }
+        html.append(ordered ? "</ol>\n" : "</ul>\n");
+        return i;
+    }
+
+    private int paragraph(String[] lines, int start, int to) {
+        StringBuilder text = new StringBuilder(lines[start].strip());
+        int i = start + 1;
+        while (i < to && !lines[i].strip().isEmpty() && !startsBlock(lines[i].strip())) {
+            text.append('\n').append(lines[i].strip());
+            i++;
+        }
+        html.append("<p>");
+        inline(text.toString(), 0, text.length(), html, null);
+        html.append("</p>\n");
+        return i;
+    }
+
+    /**
+     * Inline markup of text[from, to) as HTML into out, and as plain text into plain when given
+     */
+    private void inline(String text, int from, int to, StringBuilder out, StringBuilder plain) {
+        int i = from;
+        while (i < to) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < to && isAsciiPunctuation(text.charAt(i + 1))) {
+                literal(text.charAt(i + 1), out, plain);
+                i += 2;
+                continue;
+            }
+            if (c == '`') {
+                int close = text.indexOf('`', i + 1);
+                if (close > i + 1 && close < to) {
+                    out.append("<code>");
+                    escape(text, i + 1, close, out);
+                    out.append("</code>");
+                    if (plain != null) plain.append(text, i + 1, close);
+                    i = close + 1;
+                    continue;
+                }
+            }
+            if (c == '!' && i + 1 < to && text.charAt(i + 1) == '[') {
+                int[] link = link(text, i + 1, to);
+                if (link != null) {
+                    String url = safeUrl(text.substring(link[2], link[3]));
+                    if (url != null) {
+                        out.append("<img src=\"");
+                        escape(url, 0, url.length(), out);
+                        out.append("\" alt=\"");
+                        escape(text, link[0], link[1], out);
+                        out.append("\">");
+                    }
+                    i = link[4];
+                    continue;
+                }
+            }
+            if (c == '[') {
+                int[] link = link(text, i, to);
+                if (link != null) {
+                    String url = safeUrl(text.substring(link[2], link[3]));
+                    if (url != null) {
+                        out.append("<a href=\"");
+                        escape(url, 0, url.length(), out);
+                        out.append("\" rel=\"nofollow noopener\">");
+                        inline(text, link[0], link[1], out, plain);
+                        out.append("</a>");
+                    } else {
+                        inline(text, link[0], link[1], out, plain);
+                    }
+                    i = link[4];
+                    continue;
+                }
+            }
+            if (c == '*' || c == '_') {
+                boolean wordBefore = i > from && Character.isLetterOrDigit(text.charAt(i - 1));
+                if (i + 1 < to && text.charAt(i + 1) == c) {
+                    int close = text.indexOf(new String(new char[]{c, c}), i + 2);
+                    if (close > i + 2 && close + 2 <= to && (c == '*' || !wordBefore)) {
+                        out.append("<strong>");
+                        inline(text, i + 2, close, out, plain);
+                        out.append("</strong>");
+                        i = close + 2;
+                        continue;
+                    }
+                } else {
+                    int close = text.indexOf(c, i + 1);
+                    boolean wordAfterClose = close + 1 < to && Character.isLetterOrDigit(text.charAt(close + 1));
+                    if (close > i + 1 && close < to && (c == '*' || (!wordBefore && !wordAfterClose))) {
+                        out.append("<em>");
+                        inline(text, i + 1, close, out, plain);
+                        out.append("</em>");
+                        i = close + 1;
+                        continue;
+                    }
+                }
+            }
+            literal(c, out, plain);
+            i++;
+        }
+    }
+
+    // [label](url "title"): label start/end, url start/end and the index after ')', or null
+    private static int[] link(String text, int open, int to) {
+        int labelEnd = text.indexOf(']', open + 1);
+        if (labelEnd < 0 || labelEnd + 1 >= to || text.charAt(labelEnd + 1) != '(') return null;
+        int close = text.indexOf(')', labelEnd + 2);
+        if (close < 0 || close >= to) return null;
+        int urlStart = labelEnd + 2;
+        while (urlStart < close && text.charAt(urlStart) == ' ') urlStart++;
+        int urlEnd = urlStart;
+        while (urlEnd < close && text.charAt(urlEnd) != ' ') urlEnd++;
+        if (urlEnd == urlStart) return null;
+        return new int[]{open + 1, labelEnd, urlStart, urlEnd, close + 1};
+    }
+
+    // The URL when it is http(s), mailto or relative; null for any other scheme such as javascript:
+    private static String safeUrl(String url) {
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c <= ' ' || c == '\\') return null;
+            if (c == '/' || c == '?' || c == '#') return url;
+            if (c == ':') {
+                String scheme = url.substring(0, i).toLowerCase(Locale.ROOT);
+                return scheme.equals("http") || scheme.equals("https") || scheme.equals("mailto") ? url : null;
+            }
+        }
+        return url;
+    }
+
+    private String uniqueAnchor(String title) {
+        StringBuilder anchor = new StringBuilder();
+        for (int i = 0; i < title.length(); i++) {
+            char c = Character.toLowerCase(title.charAt(i));
+            if (c < 128 && Character.isLetterOrDigit(c)) {
+                anchor.append(c);
+            } else if ((c == ' ' || c == '-' || c == '_') && anchor.length() > 0 && anchor.charAt(anchor.length() - 1) != '-') {
+                anchor.append('-');
+            }
+        }
+        while (anchor.length() > 0 && anchor.charAt(anchor.length() - 1) == '-') anchor.setLength(anchor.length() - 1);
+        String base = anchor.length() > 0 ? anchor.toString() : "section";
+        // Repeated titles get -1, -2, ...; skipping suffixes another heading already took as its own id
+        String unique = base;
+        int suffix = anchors.getOrDefault(base, 0);
+        while (anchors.containsKey(unique)) {
+            unique = base + "-" + ++suffix;
+        }
+        anchors.put(base, suffix);
+        anchors.put(unique, 0);
+        return unique;
+    }
+
+    private static boolean startsBlock(String line) {
+        return line.startsWith("```") || line.startsWith(">") || headingLevel(line) > 0 || isRule(line) || listMarkerEnd(line) > 0;
+    }
+
+    private static int headingLevel(String line) {
+        int level = 0;
+        while (level < line.length() && line.charAt(level) == '#') level++;
+        if (level == 0 || level > 6) return 0;
+        return level == line.length() || line.charAt(level) == ' ' ? level : 0;
+    }
+
+    // Three or more of the same '-', '*' or '_', optionally spaced
+    private static boolean isRule(String line) {
+        char marker = line.charAt(0);
+        if (marker != '-' && marker != '*' && marker != '_') return false;
+        int count = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == marker) count++;
+            else if (c != ' ') return false;
+        }
+        return count >= 3;
+    }
+
+    // Index after "- ", "* ", "+ ", "1. " or "1) ", or -1
+    private static int listMarkerEnd(String line) {
+        if (line.length() >= 2 && (line.charAt(0) == '-' || line.charAt(0) == '*' || line.charAt(0) == '+') && line.charAt(1) == ' ') {
+            return 2;
+        }
+        int i = 0;
+        while (i < line.length() && i < 9 && Character.isDigit(line.charAt(i))) i++;
+        if (i > 0 && i + 1 < line.length() && (line.charAt(i) == '.' || line.charAt(i) == ')') && line.charAt(i + 1) == ' ') {
+            return i + 2;
+        }
+        return -1;
+    }
+
+    private static boolean isAsciiPunctuation(char c) {
+        return c < 128 && !Character.isLetterOrDigit(c) && c > ' ';
+    }
+
+    private static void literal(char c, StringBuilder out, StringBuilder plain) {
+        escape(c, out);
+        if (plain != null) plain.append(c);
+    }
+
+    private static void escape(String text, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            escape(text.charAt(i), out);
+        }
+    }
+
+    private static void escape(char c, StringBuilder out) {
+        switch (c) {
+            case '&' -> out.append("&amp;");
+            case '<' -> out.append("&lt;");
+            case '>' -> out.append("&gt;");
+            case '"' -> out.append("&quot;");
+            case '\'' -> out.append("&#39;");
+            default -> out.append(c);
+        }
+    }
+}
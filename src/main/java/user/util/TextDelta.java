@@ -0,0 +1,174 @@
+package user.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deflated copy/insert deltas between two texts.
+ * The target is written as a sequence of COPY (range of the base) and INSERT
+ * (literal characters) operations. Matches are found rsync-style: the base is
+ * indexed by the hash of each aligned block of BLOCK characters, the target is
+ * scanned with a rolling hash, and every hit is extended in both directions as
+ * far as the texts agree. Scattered edits and moved paragraphs both cost only
+ * the changed characters. A delta against the empty base is just the deflated
+ * text, which is how full copies (keyframes) are stored.
+ *
+ * Characters are written as varints, so ASCII takes one byte and any string,
+ * even one with unpaired surrogates, round-trips exactly.
+ */
+public final class TextDelta {
+
+    private static final int BLOCK = 16;
+    private static final int PRIME = 31;
+    private static final int COPY = 0;
+    private static final int INSERT = 1;
+
+    private TextDelta() {
+    }
+
+    /**
+     * A delta with how much of the target it copied from the base; the rest was inserted
+     */
+    public record Diff(byte[] delta, int copiedChars, int insertedChars) {
+
+        // Base characters the target did not reuse; approximate when the target repeats parts of the base
+        public int removedChars(String base) {
+            return Math.max(0, base.length() - copiedChars);
+        }
+    }
+
+    /**
+     * Full copy of a text, to be applied to the empty base
+     */
+    public static byte[] keyframe(String text) {
+        return encode("", text);
+    }
+
+    public static byte[] encode(String base, String target) {
+        return diff(base, target).delta();
+    }
+
+    public static Diff diff(String base, String target) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int copied = 0;
+        try (OutputStream out = new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_COMPRESSION), 8192)) {
+            int baseLength = base.length();
+            int targetLength = target.length();
+            Map<Integer, Integer> blocks = new HashMap<>();
+            for (int offset = 0; offset + BLOCK <= baseLength; offset += BLOCK) {
+                blocks.putIfAbsent(hash(base, offset), offset);
+            }
+
+            int power = 1; // PRIME^(BLOCK-1), to roll the first character out
+            for (int k = 1; k < BLOCK; k++) power *= PRIME;
+
+            int pending = 0; // Start of characters not yet written
+            int i = 0;
+            int h = targetLength >= BLOCK ? hash(target, 0) : 0;
+            while (i + BLOCK <= targetLength) {
+                Integer offset = blocks.get(h);
+                if (offset != null && target.regionMatches(i, base, offset, BLOCK)) {
+                    int start = i, baseStart = offset;
+                    while (start > pending && baseStart > 0 && target.charAt(start - 1) == base.charAt(baseStart - 1)) {
+                        start--;
+                        baseStart--;
+                    }
+                    int end = i + BLOCK, baseEnd = offset + BLOCK;
+                    while (end < targetLength && baseEnd < baseLength && target.charAt(end) == base.charAt(baseEnd)) {
+                        end++;
+                        baseEnd++;
+                    }
+                    insert(out, target, pending, start);
+                    out.write(COPY);
+                    writeVarint(out, baseStart);
+                    writeVarint(out, end - start);
+                    copied += end - start;
+                    i = pending = end;
+                    if (i + BLOCK <= targetLength) h = hash(target, i);
+                    continue;
+                }
+                if (i + BLOCK < targetLength) {
+                    h = (h - target.charAt(i) * power) * PRIME + target.charAt(i + BLOCK);
+                }
+                i++;
+            }
+            insert(out, target, pending, targetLength);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Diff(bytes.toByteArray(), copied, target.length() - copied);
+    }
+
+    public static String apply(String base, byte[] delta) {
+        StringBuilder target = new StringBuilder();
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(delta), new Inflater(), 8192)) {
+            int op;
+            while ((op = in.read()) >= 0) {
+                if (op == COPY) {
+                    int offset = readVarint(in);
+                    int length = readVarint(in);
+                    if (offset + length > base.length()) {
+                        throw new IllegalArgumentException("Delta does not match its base text");
+                    }
+                    target.append(base, offset, offset + length);
+                } else if (op == INSERT) {
+                    for (int n = readVarint(in); n > 0; n--) {
+                        target.append((char) readVarint(in));
+                    }
+                } else {
+                    throw new IllegalArgumentException("Corrupt delta");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return target.toString();
+    }
+
+    private static void insert(OutputStream out, String text, int from, int to) throws IOException {
+        if (from == to) return;
+        out.write(INSERT);
+        writeVarint(out, to - from);
+        for (int i = from; i < to; i++) {
+            writeVarint(out, text.charAt(i));
+        }
+    }
+
+    private static int hash(String text, int offset) {
+        int h = 0;
+        for (int k = 0; k < BLOCK; k++) {
+            h = h * PRIME + text.charAt(offset + k);
+        }
+        return h;
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("Truncated delta");
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Corrupt delta");
+    }
+}
@@ -5,10 +5,12 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.test.web.servlet.MockMvc;
 import user.service.ArticleService;
 import user.dto.CreateArticleRequest;
 import user.dto.ArticleResponse;
+import com.medium_clone.user.dto.ArticleVersionSummary;
 import java.util.List;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -73,17 +75,17 @@ class ArticleControllerTest {
 
     @Test
     void shouldGetArticleVersions() throws Exception {
-        List<ArticleResponse> versions = List.of(
-            new ArticleResponse(),
-            new ArticleResponse()
+        List<ArticleVersionSummary> versions = List.of(
+            new ArticleVersionSummary(),
+            new ArticleVersionSummary()
         );
 
-        when(articleService.getArticleVersions(anyLong())).thenReturn(versions);
+        when(articleService.getArticleVersions(anyLong(), any())).thenReturn(new PageImpl<>(versions));
 
         mockMvc.perform(get("/api/articles/1/versions")
                 .header("Authorization", "Bearer test-token"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)));
+                .andExpect(jsonPath("$.content", hasSize(2)));
     }
 
     @Test
@@ -0,0 +1,128 @@
+package user.service;
+
+import com.medium_clone.user.dto.ArticleResponse;
+import com.medium_clone.user.dto.ArticleSliceResponse;
+import com.medium_clone.user.entity.Article;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import user.entity.User;
+import user.repository.ArticleRepository;
+import user.repository.ArticleVersionRepository;
+import user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Following nextCursor through the published list must visit every article
+ * exactly once, including legacy rows that were published without a date.
+ */
+@DataJpaTest
+class ArticleCursorPagingTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackages = {"com.medium_clone.user.entity", "user.entity"})
+    @EnableJpaRepositories(basePackageClasses = ArticleRepository.class)
+    static class TestConfig {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private ArticleServiceImpl articleService;
+    private ArticleDiscoveryServiceImpl discoveryService;
+    private final List<Long> dated = new ArrayList<>();
+    private final List<Long> undated = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User alice = entityManager.persist(User.builder().email("alice@example.com").username("alice")
+                .password("secret").build());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 7; i++) {
+            boolean hasDate = i % 2 == 0;
+            Article article = entityManager.persist(Article.builder()
+                    .title("Article " + i)
+                    .content("Content " + i)
+                    .slug("article-" + i)
+                    .tags(new HashSet<>())
+                    .published(true)
+                    .publishedAt(hasDate ? now.minusHours(i) : null)
+                    .author(alice)
+                    .build());
+            (hasDate ? dated : undated).add(article.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        ArticleViewCounter viewCounter = mock(ArticleViewCounter.class);
+        ArticleSummaryLoader summaryLoader = new ArticleSummaryLoader(articleRepository, viewCounter);
+        articleService = new ArticleServiceImpl(articleRepository, mock(ArticleVersionRepository.class),
+                userRepository, mock(TagService.class), viewCounter, mock(ClapAccumulator.class),
+                mock(EngagementStatsCache.class), mock(ArticleSearchIndex.class), mock(ApplicationEventPublisher.class),
+                summaryLoader, mock(SlugAllocator.class), mock(ArticleVersionStore.class));
+        discoveryService = new ArticleDiscoveryServiceImpl(articleRepository, userRepository, viewCounter,
+                mock(EngagementIngestionPipeline.class), mock(ClapAccumulator.class),
+                mock(EngagementStatsCache.class), mock(ArticleSearchIndex.class), summaryLoader,
+                mock(TagBitmapIndex.class), mock(ArticleTrendingEngine.class), mock(HomeTimelineService.class),
+                new FeedComposer());
+    }
+
+    @Test
+    void publishedListReachesUndatedRowsAndEnds() {
+        assertEquals(expectedOrder(), walk(cursor -> articleService.getPublishedArticles(cursor, PAGE_SIZE)));
+    }
+
+    @Test
+    void recentListReachesUndatedRowsAndEnds() {
+        assertEquals(expectedOrder(), walk(cursor -> discoveryService.getRecentArticles(cursor, PAGE_SIZE)));
+    }
+
+    // Dated rows newest first, then the undated ones by id
+    private List<Long> expectedOrder() {
+        List<Long> expected = new ArrayList<>(dated);
+        List<Long> tail = new ArrayList<>(undated);
+        tail.sort((a, b) -> Long.compare(b, a));
+        expected.addAll(tail);
+        return expected;
+    }
+
+    private List<Long> walk(Function<String, ArticleSliceResponse> pageOf) {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        for (int pages = 0; pages < 10; pages++) {
+            ArticleSliceResponse slice = pageOf.apply(cursor);
+            seen.addAll(slice.getContent().stream().map(ArticleResponse::getId).collect(Collectors.toList()));
+            cursor = slice.getNextCursor();
+            if (cursor == null) {
+                return seen;
+            }
+        }
+        return fail("cursor never reached the end: " + seen);
+    }
+}
@@ -0,0 +1,208 @@
+package user.service;
+
+import com.medium_clone.user.entity.Article;
+import com.medium_clone.user.entity.ArticleEngagement;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import user.entity.User;
+import user.repository.ArticleEngagementRepository;
+import user.repository.ArticleRepository;
+import user.repository.ArticleVersionRepository;
+import user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards the article list endpoints against N+1 selects: each one must run a
+ * fixed number of statements no matter how many articles the page holds.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ArticleListQueryCountTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackages = {"com.medium_clone.user.entity", "user.entity"})
+    @EnableJpaRepositories(basePackageClasses = ArticleRepository.class)
+    static class TestConfig {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ArticleSearchIndex searchIndex = mock(ArticleSearchIndex.class);
+
+    private ArticleServiceImpl articleService;
+    private ArticleDiscoveryServiceImpl discoveryService;
+    private TagBitmapIndex tagIndex;
+    private ArticleTrendingEngine trendingEngine;
+    private Statistics statistics;
+    private List<Long> articleIds;
+
+    @BeforeEach
+    void setUp() {
+        User alice = entityManager.persist(User.builder().email("alice@example.com").username("alice")
+                .password("secret").image("alice.png").build());
+        User bob = entityManager.persist(User.builder().email("bob@example.com").username("bob")
+                .password("secret").image("bob.png").build());
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 2 * PAGE_SIZE; i++) {
+            entityManager.persist(Article.builder()
+                    .title("Article " + i)
+                    .content("Long-form content " + i)
+                    .summary("Summary " + i)
+                    .slug("article-" + i)
+                    .tags(new HashSet<>(Set.of("java", "spring", "tag" + i)))
+                    .published(true)
+                    .publishedAt(now.minusHours(i))
+                    .viewCount(i * 10)
+                    .author(i % 2 == 0 ? alice : bob)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        articleIds = articleRepository.findAll().stream().map(Article::getId).collect(Collectors.toList());
+
+        tagIndex = new TagBitmapIndex(articleRepository);
+        tagIndex.rebuild();
+
+        trendingEngine = new ArticleTrendingEngine(mock(ArticleEngagementRepository.class), 12);
+
+        ArticleViewCounter viewCounter = mock(ArticleViewCounter.class);
+        ArticleSummaryLoader summaryLoader = new ArticleSummaryLoader(articleRepository, viewCounter);
+        articleService = new ArticleServiceImpl(articleRepository, mock(ArticleVersionRepository.class),
+                userRepository, mock(TagService.class), viewCounter, mock(ClapAccumulator.class),
+                mock(EngagementStatsCache.class), searchIndex, mock(ApplicationEventPublisher.class), summaryLoader,
+                mock(SlugAllocator.class), mock(ArticleVersionStore.class));
+        discoveryService = new ArticleDiscoveryServiceImpl(articleRepository, userRepository, viewCounter,
+                mock(EngagementIngestionPipeline.class), mock(ClapAccumulator.class),
+                mock(EngagementStatsCache.class), searchIndex, summaryLoader, tagIndex, trendingEngine, mock(HomeTimelineService.class),
+                new FeedComposer());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void publishedArticlesPage() {
+        // select, count, tags
+        assertStatements(3, () -> articleService.getPublishedArticles(PageRequest.of(0, PAGE_SIZE)));
+    }
+
+    @Test
+    void articlesByAuthorPage() {
+        assertStatements(3, () -> articleService.getArticlesByAuthor("alice", PageRequest.of(0, PAGE_SIZE)));
+    }
+
+    @Test
+    void articlesByTagPage() {
+        assertStatements(3, () -> articleService.getArticlesByTag("java", PageRequest.of(0, PAGE_SIZE)));
+    }
+
+    @Test
+    void publishedArticlesSlice() {
+        // select, tags; no count query
+        assertStatements(2, () -> articleService.getPublishedArticles(null, PAGE_SIZE));
+    }
+
+    @Test
+    void articlesByAuthorSlice() {
+        assertStatements(2, () -> articleService.getArticlesByAuthor("bob", null, PAGE_SIZE));
+    }
+
+    @Test
+    void searchResults() {
+        when(searchIndex.search(anyString(), any(), any(), any(), any(), anyBoolean(), any()))
+                .thenReturn(new PageImpl<>(articleIds.subList(0, PAGE_SIZE), PageRequest.of(0, PAGE_SIZE), articleIds.size()));
+        // summaries, tags
+        assertStatements(2, () -> articleService.searchArticles("content", PageRequest.of(0, PAGE_SIZE)));
+    }
+
+    @Test
+    void trendingPage() {
+        // No engagement recorded yet: falls back to lifetime views (select, count, tags)
+        assertStatements(3, () -> discoveryService.getTrendingArticles(0, PAGE_SIZE));
+    }
+
+    @Test
+    void trendingPageFromEngine() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Long id : articleIds) {
+            trendingEngine.record(id, ArticleEngagement.EngagementType.VIEW, 1, now);
+        }
+        // Ranking is in memory; then summaries, tags
+        assertStatements(2, () -> discoveryService.getTrendingArticles(0, PAGE_SIZE));
+        assertStatements(2, () -> discoveryService.getTrendingArticles("day", 0, PAGE_SIZE));
+    }
+
+    @Test
+    void trendingSlice() {
+        assertStatements(2, () -> discoveryService.getTrendingArticles(null, PAGE_SIZE));
+    }
+
+    @Test
+    void recentPage() {
+        assertStatements(3, () -> discoveryService.getRecentArticles(0, PAGE_SIZE));
+    }
+
+    @Test
+    void recentSlice() {
+        assertStatements(2, () -> discoveryService.getRecentArticles(null, PAGE_SIZE));
+    }
+
+    @Test
+    void searchByTags() {
+        // Matching ids come from the tag bitmaps; then summaries, tags
+        assertStatements(2, () -> discoveryService.searchByTags(Set.of("java", "spring"), 0, PAGE_SIZE));
+    }
+
+    @Test
+    void entityListQueriesFetchAuthorsAndBatchTags() {
+        // Author comes with the select (entity graph) and tags of the whole page load in one batch
+        assertStatements(3, () -> articleRepository.findByPublishedTrue(PageRequest.of(0, PAGE_SIZE))
+                .forEach(article -> {
+                    article.getAuthor().getUsername();
+                    article.getTags().size();
+                }));
+    }
+
+    private void assertStatements(long max, Runnable call) {
+        entityManager.clear();
+        statistics.clear();
+        call.run();
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= max, "expected at most " + max + " statements but got " + statements);
+    }
+}
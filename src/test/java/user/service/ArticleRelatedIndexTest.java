@@ -0,0 +1,119 @@
+package user.service;
+
+import com.medium_clone.user.entity.Article;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import user.entity.User;
+import user.repository.ArticleRepository;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Related lookups must rank by content, never return retracted articles, keep
+ * working across tombstone compaction and stay bounded for any limit.
+ */
+class ArticleRelatedIndexTest {
+
+    private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+    private final ArticleRelatedIndex index = new ArticleRelatedIndex(articleRepository,
+            mock(PlatformTransactionManager.class), 64, 16, 100, 64, 0.3, 0.1);
+
+    @Test
+    void ranksArticlesOnTheSameTopicFirst() {
+        index.onArticleChanged(saved(1L, "Kotlin coroutines in depth", "kotlin", 1L));
+        index.onArticleChanged(saved(2L, "Kotlin coroutines and flows", "kotlin", 2L));
+        index.onArticleChanged(saved(3L, "Growing tomatoes on a balcony", "gardening", 3L));
+
+        assertEquals(2L, index.related(1L, 2).get(0));
+    }
+
+    @Test
+    void retractedArticlesAreNeverReturned() {
+        index.onArticleChanged(saved(1L, "Kotlin coroutines in depth", "kotlin", 1L));
+        index.onArticleChanged(saved(2L, "Kotlin coroutines and flows", "kotlin", 2L));
+        index.onArticleChanged(saved(3L, "Kotlin coroutines for Android", "kotlin", 3L));
+
+        index.onArticleChanged(new ArticleChangedEvent(ArticleChangedEvent.ChangeType.SAVED,
+                snapshot(2L, "Kotlin coroutines and flows", "kotlin", 2L, false), true));
+        index.onArticleChanged(new ArticleChangedEvent(ArticleChangedEvent.ChangeType.DELETED,
+                snapshot(3L, "Kotlin coroutines for Android", "kotlin", 3L, true), true));
+
+        assertEquals(List.of(), index.related(1L, 10));
+        assertEquals(List.of(), index.related(2L, 10));
+    }
+
+    @Test
+    void compactionKeepsLiveArticles() {
+        for (long id = 1; id <= 200; id++) {
+            index.onArticleChanged(saved(id, "Topic " + (id % 5) + " notes", "topic" + (id % 5), id));
+        }
+        // Enough tombstones to trigger a compaction of the graph
+        for (long id = 2; id <= 200; id += 2) {
+            index.onArticleChanged(new ArticleChangedEvent(ArticleChangedEvent.ChangeType.DELETED,
+                    snapshot(id, "Topic " + (id % 5) + " notes", "topic" + (id % 5), id, true), true));
+        }
+        index.compactIfNeeded();
+
+        assertEquals(100, index.size());
+        List<Long> related = index.related(1L, 20);
+        assertFalse(related.isEmpty());
+        assertTrue(related.stream().allMatch(id -> id % 2 == 1 && id != 1L), related.toString());
+    }
+
+    @Test
+    void limitIsCapped() {
+        for (long id = 1; id <= 150; id++) {
+            index.onArticleChanged(saved(id, "Java records and sealed types " + id, "java", id));
+        }
+
+        assertEquals(100, index.related(1L, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void rebuildIndexesPublishedArticles() {
+        User author = User.builder().id(7L).username("alice").build();
+        List<Article> articles = List.of(
+                article(1L, "Rust ownership explained", "rust", author),
+                article(2L, "Rust ownership and borrowing", "rust", author),
+                article(3L, "Baking sourdough bread", "baking", author));
+        when(articleRepository.findByPublishedTrue(any(Pageable.class))).thenReturn(new PageImpl<>(articles));
+
+        index.rebuild();
+
+        assertEquals(3, index.size());
+        assertEquals(2L, index.related(1L, 1).get(0));
+    }
+
+    private static ArticleChangedEvent saved(Long id, String title, String tag, Long authorId) {
+        return new ArticleChangedEvent(ArticleChangedEvent.ChangeType.SAVED,
+                snapshot(id, title, tag, authorId, true), false);
+    }
+
+    private static ArticleChangedEvent.ArticleSnapshot snapshot(Long id, String title, String tag,
+                                                                Long authorId, boolean published) {
+        return new ArticleChangedEvent.ArticleSnapshot(id, title, null, title + " with examples",
+                Set.of(tag), authorId, "author" + authorId, published, null, null);
+    }
+
+    private static Article article(Long id, String title, String tag, User author) {
+        return Article.builder()
+                .id(id)
+                .title(title)
+                .content(title + " with examples")
+                .tags(new HashSet<>(Set.of(tag)))
+                .published(true)
+                .author(author)
+                .build();
+    }
+}
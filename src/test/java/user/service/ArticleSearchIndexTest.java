@@ -0,0 +1,132 @@
+package user.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import user.repository.ArticleRepository;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Segments, the deletes log and the manifest written by one index instance must
+ * restore the same searchable state when a new instance opens the directory.
+ */
+class ArticleSearchIndexTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    @TempDir
+    Path dir;
+
+    private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+
+    @Test
+    void reopenRestoresDocumentsAndDeletes() throws IOException {
+        ArticleSearchIndex index = open(10);
+        index.index(article(1L, "Kotlin coroutines", "alice", Set.of("kotlin"), T0.plusMinutes(1)));
+        index.index(article(2L, "Kotlin flows", "bob", Set.of("kotlin"), T0.plusMinutes(3)));
+        index.index(article(3L, "Kotlin channels", "alice", Set.of("kotlin"), T0.plusMinutes(2)));
+        index.flush();
+        index.remove(2L);
+        index.close();
+
+        ArticleSearchIndex reopened = open(10);
+        assertEquals(Set.of(1L, 3L), Set.copyOf(search(reopened, "kotlin", null, null)));
+        assertEquals(2, reopened.size());
+        // Catch-up starts at the newest flushed update, not at the time of the flush
+        verify(articleRepository).findChangedSince(anyLong(), any());
+        assertEquals(T0.plusMinutes(3).toString(), manifest().getProperty("checkpoint"));
+    }
+
+    @Test
+    void mergeDropsDeletedDocumentsAndCompactsDeletesLog() throws IOException {
+        ArticleSearchIndex index = open(2);
+        index.index(article(1L, "Rust ownership", "alice", Set.of("rust"), T0));
+        index.flush();
+        index.index(article(2L, "Rust lifetimes", "bob", Set.of("rust"), T0.plusMinutes(1)));
+        index.flush();
+        index.remove(1L);
+        assertEquals(16, Files.size(dir.resolve("deletes.log")));
+
+        index.maybeMerge();
+        assertEquals(0, Files.size(dir.resolve("deletes.log")));
+        index.close();
+
+        ArticleSearchIndex reopened = open(2);
+        assertEquals(List.of(2L), search(reopened, "rust", null, null));
+    }
+
+    @Test
+    void multiByteAuthorsAndTagsSurviveReopen() throws IOException {
+        ArticleSearchIndex index = open(10);
+        index.index(article(1L, "Café culture", "zoë", Set.of("café", "日本"), T0));
+        index.index(article(2L, "Café prices", "ann", Set.of("café"), T0));
+        index.close();
+
+        ArticleSearchIndex reopened = open(10);
+        assertEquals(List.of(1L), search(reopened, "café", "zoë", Set.of("日本")));
+    }
+
+    @Test
+    void eventsBeforeOpenAreAppliedAfterSegmentsLoad() throws IOException {
+        ArticleSearchIndex index = open(10);
+        index.index(article(1L, "Java records", "alice", Set.of("java"), T0));
+        index.index(article(2L, "Java streams", "bob", Set.of("java"), T0));
+        index.close();
+
+        ArticleSearchIndex reopened = create(10);
+        reopened.onArticleChanged(new ArticleChangedEvent(ArticleChangedEvent.ChangeType.SAVED,
+                article(3L, "Java modules", "carol", Set.of("java"), T0.plusMinutes(5)), false));
+        reopened.onArticleChanged(new ArticleChangedEvent(ArticleChangedEvent.ChangeType.DELETED,
+                article(2L, "Java streams", "bob", Set.of("java"), T0), true));
+        reopened.open();
+
+        assertEquals(Set.of(1L, 3L), Set.copyOf(search(reopened, "java", null, null)));
+    }
+
+    private ArticleSearchIndex open(int mergeFactor) throws IOException {
+        ArticleSearchIndex index = create(mergeFactor);
+        index.open();
+        return index;
+    }
+
+    private ArticleSearchIndex create(int mergeFactor) {
+        when(articleRepository.findSearchRowsAfter(anyLong(), any(Pageable.class))).thenReturn(List.of());
+        return new ArticleSearchIndex(articleRepository, mock(PlatformTransactionManager.class),
+                dir.toString(), 1000, mergeFactor, 1024);
+    }
+
+    private Properties manifest() throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(dir.resolve("manifest.properties"))) {
+            props.load(reader);
+        }
+        return props;
+    }
+
+    private static List<Long> search(ArticleSearchIndex index, String query, String author, Set<String> tags) {
+        return index.search(query, author, tags, null, null, true, PageRequest.of(0, 10)).getContent();
+    }
+
+    private static ArticleChangedEvent.ArticleSnapshot article(Long id, String title, String author,
+                                                               Set<String> tags, LocalDateTime updatedAt) {
+        return new ArticleChangedEvent.ArticleSnapshot(id, title, null, title + " in practice", tags,
+                id, author, true, updatedAt, updatedAt);
+    }
+}
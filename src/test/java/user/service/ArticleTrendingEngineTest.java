@@ -0,0 +1,132 @@
+package user.service;
+
+import com.medium_clone.user.entity.ArticleEngagement;
+import org.junit.jupiter.api.Test;
+import user.repository.ArticleEngagementRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Decayed scores must halve every half-life, and window totals must drop an
+ * engagement exactly when its bucket leaves the window.
+ */
+class ArticleTrendingEngineTest {
+
+    private static final double HALF_LIFE_HOURS = 12;
+    private static final double EPSILON = 1e-9;
+    private static final ArticleEngagement.EngagementType VIEW = ArticleEngagement.EngagementType.VIEW;
+
+    private final TestClock clock = new TestClock(Instant.parse("2024-05-01T10:00:00Z"));
+    private final ArticleTrendingEngine engine =
+            new ArticleTrendingEngine(mock(ArticleEngagementRepository.class), HALF_LIFE_HOURS, clock);
+
+    @Test
+    void scoreHalvesEveryHalfLife() {
+        engine.record(1L, VIEW, 1, now());
+        assertEquals(1.0, engine.scoreOf(1L), EPSILON);
+
+        clock.advance(Duration.ofHours(12));
+        assertEquals(0.5, engine.scoreOf(1L), EPSILON);
+
+        // A fresh view outranks an older one of the same weight
+        engine.record(2L, VIEW, 1, now());
+        assertEquals(List.of(2L, 1L), engine.top(0, 10));
+    }
+
+    @Test
+    void landmarkMoveKeepsScoresAndOrder() {
+        engine.record(1L, ArticleEngagement.EngagementType.SHARE, 1, now());
+        // Far enough ahead that the forward-decay exponent has to be renormalised
+        clock.advance(Duration.ofHours(12 * 61));
+        engine.record(2L, VIEW, 1, now());
+
+        assertEquals(1.0, engine.scoreOf(2L), EPSILON);
+        assertEquals(5.0, engine.scoreOf(1L) * Math.pow(2, 61), EPSILON);
+        assertEquals(List.of(2L, 1L), engine.top(0, 10));
+    }
+
+    @Test
+    void tickDropsNegligibleScores() {
+        engine.record(1L, VIEW, 1, now());
+        clock.advance(Duration.ofHours(12 * 7));
+        engine.record(2L, VIEW, 1, now());
+
+        engine.tick();
+
+        assertEquals(List.of(2L), engine.top(0, 10));
+    }
+
+    @Test
+    void hourWindowDropsEngagementOnceItsBucketExpires() {
+        engine.record(1L, VIEW, 1, now());
+        clock.advance(Duration.ofMinutes(30));
+        engine.record(2L, VIEW, 1, now());
+        assertEquals(List.of(1L, 2L), engine.top(ArticleTrendingEngine.Window.HOUR, 0, 10));
+
+        clock.advance(Duration.ofMinutes(31));
+        assertEquals(List.of(2L), engine.top(ArticleTrendingEngine.Window.HOUR, 0, 10));
+        assertEquals(2, engine.size(ArticleTrendingEngine.Window.DAY));
+
+        clock.advance(Duration.ofMinutes(30));
+        assertEquals(0, engine.size(ArticleTrendingEngine.Window.HOUR));
+    }
+
+    @Test
+    void reusedBucketStartsEmpty() {
+        engine.record(1L, VIEW, 3, now());
+        // Same ring slot one window later, without a read in between
+        clock.advance(Duration.ofHours(1));
+        engine.record(2L, VIEW, 1, now());
+
+        assertEquals(List.of(2L), engine.top(ArticleTrendingEngine.Window.HOUR, 0, 10));
+        assertEquals(List.of(1L, 2L), engine.top(ArticleTrendingEngine.Window.DAY, 0, 10));
+    }
+
+    @Test
+    void engagementOlderThanTheWindowIsIgnored() {
+        engine.record(1L, VIEW, 1, now().minusHours(2));
+
+        assertEquals(0, engine.size(ArticleTrendingEngine.Window.HOUR));
+        assertEquals(1, engine.size(ArticleTrendingEngine.Window.DAY));
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    private static final class TestClock extends Clock {
+        private Instant instant;
+
+        private TestClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
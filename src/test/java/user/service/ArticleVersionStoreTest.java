@@ -0,0 +1,159 @@
+package user.service;
+
+import com.medium_clone.user.entity.Article;
+import com.medium_clone.user.entity.ArticleVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import user.entity.User;
+import user.repository.ArticleRepository;
+import user.repository.ArticleVersionRepository;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stored versions must rebuild to the content they were saved with: repeated
+ * content points at the version that holds it, a keyframe starts every
+ * keyframe-interval versions, deleting a base re-keys what depends on it, and
+ * each version records its size and change against the one before.
+ */
+@DataJpaTest
+class ArticleVersionStoreTest {
+
+    private static final int KEYFRAME_INTERVAL = 3;
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackages = {"com.medium_clone.user.entity", "user.entity"})
+    @EnableJpaRepositories(basePackageClasses = ArticleRepository.class)
+    static class TestConfig {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ArticleVersionRepository versionRepository;
+
+    private ArticleVersionStore store;
+    private Article article;
+
+    @BeforeEach
+    void setUp() {
+        User alice = entityManager.persist(User.builder().email("alice@example.com").username("alice")
+                .password("secret").build());
+        article = entityManager.persist(Article.builder()
+                .title("Drafting")
+                .content("")
+                .slug("drafting")
+                .tags(new HashSet<>())
+                .author(alice)
+                .build());
+        store = new ArticleVersionStore(versionRepository, KEYFRAME_INTERVAL, 16);
+    }
+
+    @Test
+    void repeatedContentReferencesTheVersionHoldingIt() {
+        ArticleVersion first = save("Original text");
+        save("Edited text");
+        ArticleVersion restored = save("Original text");
+        ArticleVersion again = save("Original text");
+
+        // A restore stores no content of its own and points at the holder
+        assertNull(restored.getContentDelta());
+        assertEquals(first.getVersionNumber(), restored.getBaseVersionNumber());
+        // Matching a reference resolves to its holder, never to the reference
+        assertNull(again.getContentDelta());
+        assertEquals(first.getVersionNumber(), again.getBaseVersionNumber());
+
+        assertEquals("Original text", reload(restored));
+        assertEquals("Original text", reload(again));
+    }
+
+    @Test
+    void keyframeEveryIntervalVersions() {
+        for (int i = 1; i <= 3 * KEYFRAME_INTERVAL + 1; i++) {
+            ArticleVersion version = save("Paragraph one.\n\nEdit number " + i + " of the article.");
+            boolean keyframe = (i - 1) % KEYFRAME_INTERVAL == 0;
+
+            assertEquals(keyframe, version.getBaseVersionNumber() == null, "version " + i);
+            assertEquals((i - 1) % KEYFRAME_INTERVAL, version.getChainLength(), "version " + i);
+            assertNotNull(version.getContentDelta());
+        }
+        for (int i = 1; i <= 3 * KEYFRAME_INTERVAL + 1; i++) {
+            ArticleVersion version = versionRepository.findByArticleIdAndVersionNumber(article.getId(), i).orElseThrow();
+            assertEquals("Paragraph one.\n\nEdit number " + i + " of the article.", store.contentOf(version));
+        }
+    }
+
+    @Test
+    void deletingABaseTurnsItsDependentsIntoKeyframes() {
+        ArticleVersion base = save("First draft");
+        ArticleVersion delta = save("First draft, revised");
+        ArticleVersion reference = save("First draft");
+        ArticleVersion next = save("First draft, revised twice");
+
+        store.delete(base);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertFalse(versionRepository.findByArticleIdAndVersionNumber(article.getId(), base.getVersionNumber()).isPresent());
+        for (ArticleVersion dependent : new ArticleVersion[]{delta, reference}) {
+            ArticleVersion stored = versionRepository
+                    .findByArticleIdAndVersionNumber(article.getId(), dependent.getVersionNumber()).orElseThrow();
+            assertNull(stored.getBaseVersionNumber());
+            assertEquals(0, stored.getChainLength());
+        }
+        assertEquals("First draft, revised", reload(delta));
+        assertEquals("First draft", reload(reference));
+        // Further down the chain is untouched and still rebuilds through the new keyframe
+        assertEquals("First draft, revised twice", reload(next));
+        assertTrue(versionRepository.findByArticleIdAndBaseVersionNumber(article.getId(), base.getVersionNumber())
+                .isEmpty());
+    }
+
+    @Test
+    void recordsSizeAndChangeAgainstThePreviousVersion() {
+        String text = "The quick brown fox jumps over the lazy dog.";
+        assertStats(save(text), 44, 44, 0);
+        assertStats(save(text + " It was not amused."), 63, 19, 0);
+        // Back to the first text: stored as a reference, still measured against the previous version
+        assertStats(save(text), 44, 0, 19);
+
+        // A fresh store (e.g. after a restart) rebuilds the previous content instead
+        store = new ArticleVersionStore(versionRepository, KEYFRAME_INTERVAL, 16);
+        assertStats(save("The quick brown fox jumps over the lazy cat."), 44, 4, 4);
+    }
+
+    private static void assertStats(ArticleVersion version, int contentLength, int charsAdded, int charsRemoved) {
+        assertEquals(contentLength, version.getContentLength());
+        assertEquals(charsAdded, version.getCharsAdded());
+        assertEquals(charsRemoved, version.getCharsRemoved());
+    }
+
+    private ArticleVersion save(String content) {
+        article.setContent(content);
+        ArticleVersion version = store.save(article, "alice@example.com", "Edit");
+        entityManager.flush();
+        return version;
+    }
+
+    // Content rebuilt from freshly loaded rows rather than the instances save returned
+    private String reload(ArticleVersion version) {
+        entityManager.clear();
+        return store.contentOf(versionRepository
+                .findByArticleIdAndVersionNumber(article.getId(), version.getVersionNumber()).orElseThrow());
+    }
+}
@@ -0,0 +1,154 @@
+package user.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Each bitmap must match a TreeSet of the same values on both sides of the
+ * 4096-value switch between sparse and dense chunks, across several 16-bit
+ * chunks, and when a descending walk stops early.
+ */
+class CompactBitmapTest {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int CHUNK = 1 << 16;
+
+    @Test
+    void sparseChunkTurnsDenseAfterArrayMaxAndBack() {
+        CompactBitmap bitmap = new CompactBitmap();
+        NavigableSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < ARRAY_MAX; i++) {
+            bitmap.add(i * 3);
+            expected.add(i * 3);
+        }
+        assertMatches(expected, bitmap);
+
+        // One more value converts the chunk; a duplicate must not
+        bitmap.add(1);
+        bitmap.add(1);
+        expected.add(1);
+        assertMatches(expected, bitmap);
+
+        // Back to ARRAY_MAX values converts it again
+        bitmap.remove(0);
+        expected.remove(0);
+        assertMatches(expected, bitmap);
+        bitmap.add(0);
+        expected.add(0);
+        assertMatches(expected, bitmap);
+    }
+
+    @Test
+    void valuesAcrossChunksMatchATreeSet() {
+        CompactBitmap bitmap = new CompactBitmap();
+        NavigableSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 40_000; i++) {
+            // Chunk 0 gets dense, chunks 1 and 5 stay sparse, chunk 2 hovers around the switch
+            int value = switch (i % 4) {
+                case 0 -> random.nextInt(CHUNK);
+                case 1 -> CHUNK + random.nextInt(3_000);
+                case 2 -> 2 * CHUNK + random.nextInt(8_400);
+                default -> 5 * CHUNK - 1 + random.nextInt(2);
+            };
+            if (random.nextInt(5) == 0) {
+                bitmap.remove(value);
+                expected.remove(value);
+            } else {
+                bitmap.add(value);
+                expected.add(value);
+            }
+        }
+        assertMatches(expected, bitmap);
+        assertFalse(bitmap.contains(3 * CHUNK));
+    }
+
+    @Test
+    void removingTheLastValueOfAChunkDropsIt() {
+        CompactBitmap bitmap = new CompactBitmap();
+        bitmap.add(5);
+        bitmap.add(CHUNK + 5);
+        bitmap.remove(5);
+
+        assertEquals(List.of(CHUNK + 5), descending(bitmap));
+        bitmap.remove(CHUNK + 5);
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    void andAndOrAcrossTheSwitch() {
+        CompactBitmap evens = new CompactBitmap();
+        CompactBitmap multiplesOfThree = new CompactBitmap();
+        NavigableSet<Integer> both = new TreeSet<>();
+        NavigableSet<Integer> either = new TreeSet<>();
+        for (int value = 0; value < 3 * CHUNK; value++) {
+            boolean even = value % 2 == 0;
+            boolean third = value % 3 == 0;
+            if (even) evens.add(value);
+            if (third) multiplesOfThree.add(value);
+            if (even && third) both.add(value);
+            if (even || third) either.add(value);
+        }
+        // A full sparse chunk against a dense one, and two full sparse chunks whose union is dense
+        CompactBitmap low = new CompactBitmap();
+        CompactBitmap high = new CompactBitmap();
+        NavigableSet<Integer> lowAndEvens = new TreeSet<>();
+        NavigableSet<Integer> lowOrHigh = new TreeSet<>();
+        for (int value = CHUNK; value < CHUNK + ARRAY_MAX; value++) {
+            low.add(value);
+            high.add(value + ARRAY_MAX / 2);
+            if (value % 2 == 0) lowAndEvens.add(value);
+            lowOrHigh.add(value);
+            lowOrHigh.add(value + ARRAY_MAX / 2);
+        }
+
+        assertMatches(both, CompactBitmap.and(evens, multiplesOfThree));
+        assertMatches(either, CompactBitmap.or(evens, multiplesOfThree));
+        assertMatches(lowAndEvens, CompactBitmap.and(low, evens));
+        assertMatches(lowAndEvens, CompactBitmap.and(evens, low));
+        assertMatches(lowOrHigh, CompactBitmap.or(low, high));
+        assertMatches(both, CompactBitmap.and(List.of(evens, multiplesOfThree, CompactBitmap.or(evens, multiplesOfThree))));
+    }
+
+    @Test
+    void descendingWalkStopsWhenTheVisitorSaysSo() {
+        CompactBitmap bitmap = new CompactBitmap();
+        for (int value = 0; value < 2 * CHUNK; value += 7) {
+            bitmap.add(value);
+        }
+        bitmap.add(3 * CHUNK);
+
+        // Stop on the first value of the dense chunk below the single-value one
+        List<Integer> visited = new ArrayList<>();
+        bitmap.forEachDescending(value -> {
+            visited.add(value);
+            return value >= 2 * CHUNK;
+        });
+
+        int highestBelow = (2 * CHUNK - 1) / 7 * 7;
+        assertEquals(List.of(3 * CHUNK, highestBelow), visited);
+    }
+
+    private static void assertMatches(NavigableSet<Integer> expected, CompactBitmap bitmap) {
+        assertEquals(expected.size(), bitmap.cardinality());
+        assertEquals(new ArrayList<>(expected.descendingSet()), descending(bitmap));
+        for (int value : expected) {
+            assertTrue(bitmap.contains(value), "missing " + value);
+        }
+    }
+
+    private static List<Integer> descending(CompactBitmap bitmap) {
+        List<Integer> values = new ArrayList<>();
+        bitmap.forEachDescending(value -> values.add(value));
+        return values;
+    }
+}
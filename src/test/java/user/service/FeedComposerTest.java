@@ -0,0 +1,98 @@
+package user.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * The merged feed must interleave its sources newest first, emit an article
+ * offered by several sources once, and page by cursor without gaps or repeats.
+ */
+class FeedComposerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private final FeedComposer composer = new FeedComposer();
+
+    @Test
+    void interleavesSourcesNewestFirst() {
+        FeedComposer.FeedSource a = FeedComposer.fixed(List.of(entry(1L, 1), entry(3L, 3), entry(5L, 5)));
+        FeedComposer.FeedSource b = FeedComposer.fixed(List.of(entry(2L, 2), entry(4L, 4)));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(composer.merge(List.of(a, b), null, 10)));
+    }
+
+    @Test
+    void articleOfferedBySeveralSourcesIsEmittedOnce() {
+        FeedComposer.FeedSource a = FeedComposer.fixed(List.of(entry(1L, 1), entry(2L, 2), entry(3L, 3)));
+        FeedComposer.FeedSource b = FeedComposer.fixed(List.of(entry(2L, 2), entry(3L, 3), entry(4L, 4)));
+        FeedComposer.FeedSource c = FeedComposer.fixed(List.of(entry(3L, 3)));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(composer.merge(List.of(a, b, c), null, 10)));
+    }
+
+    @Test
+    void cursorWalkVisitsEveryArticleOnce() {
+        List<FeedComposer.FeedSource> sources = List.of(
+                FeedComposer.fixed(List.of(entry(1L, 1), entry(4L, 4), entry(6L, 6), entry(9L, 9))),
+                FeedComposer.fixed(List.of(entry(2L, 2), entry(4L, 4), entry(7L, 7), entry(8L, 8))),
+                FeedComposer.fixed(List.of(entry(3L, 3), entry(5L, 5), entry(6L, 6), entry(9L, 9))));
+
+        List<Long> seen = new ArrayList<>();
+        ArticleCursor cursor = null;
+        for (int pages = 0; pages < 20; pages++) {
+            List<HomeTimelineService.TimelineEntry> page = composer.merge(sources, cursor, 2);
+            seen.addAll(ids(page));
+            if (page.size() < 2) {
+                assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), seen);
+                return;
+            }
+            cursor = page.get(page.size() - 1).cursor();
+        }
+        fail("cursor never reached the end: " + seen);
+    }
+
+    @Test
+    void sourcesAreAskedForNoMoreThanThePageNeeds() {
+        List<Integer> requested = new ArrayList<>();
+        FeedComposer.FeedSource all = FeedComposer.fixed(List.of(
+                entry(1L, 1), entry(2L, 2), entry(3L, 3), entry(4L, 4), entry(5L, 5), entry(6L, 6)));
+        FeedComposer.FeedSource counting = (after, limit) -> {
+            requested.add(limit);
+            return all.next(after, limit);
+        };
+
+        List<HomeTimelineService.TimelineEntry> page = composer.merge(List.of(counting), entry(2L, 2).cursor(), 3);
+
+        assertEquals(List.of(3L, 4L, 5L), ids(page));
+        assertTrue(requested.stream().allMatch(limit -> limit <= 3), requested.toString());
+    }
+
+    @Test
+    void undatedEntriesComeLastAndEndTheFeed() {
+        FeedComposer.FeedSource a = FeedComposer.fixed(List.of(
+                new HomeTimelineService.TimelineEntry(7L, null), entry(1L, 1)));
+        FeedComposer.FeedSource b = FeedComposer.fixed(List.of(entry(2L, 2)));
+
+        List<HomeTimelineService.TimelineEntry> page = composer.merge(List.of(a, b), null, 10);
+
+        assertEquals(List.of(1L, 2L, 7L), ids(page));
+        assertEquals(List.of(), composer.merge(List.of(a, b), page.get(2).cursor(), 10));
+    }
+
+    // Article id n published n hours ago
+    private static HomeTimelineService.TimelineEntry entry(Long id, int hoursAgo) {
+        return new HomeTimelineService.TimelineEntry(id, NOW.minusHours(hoursAgo));
+    }
+
+    private static List<Long> ids(List<HomeTimelineService.TimelineEntry> entries) {
+        return entries.stream().map(HomeTimelineService.TimelineEntry::articleId).collect(Collectors.toList());
+    }
+}
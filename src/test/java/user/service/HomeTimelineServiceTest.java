@@ -0,0 +1,152 @@
+package user.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import user.repository.ArticleRepository;
+import user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Fan-out and pull paths of the home timeline must deliver every article once,
+ * drop retracted articles, and hand an author over cleanly when they become a
+ * celebrity.
+ */
+class HomeTimelineServiceTest {
+
+    private static final long READER = 1L;
+    private static final long AUTHOR = 2L;
+    private static final long CELEBRITY = 3L;
+    private static final long THRESHOLD = 100L;
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    // Published articles by author, as the database would return them
+    private final Map<Long, List<Object[]>> published = new HashMap<>();
+
+    private HomeTimelineService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new HomeTimelineService(articleRepository, userRepository, 500, 1000, THRESHOLD);
+        when(userRepository.findFollowingIds(READER)).thenReturn(List.of(AUTHOR, CELEBRITY));
+        when(userRepository.findFollowerIds(anyLong())).thenReturn(List.of(READER));
+        when(userRepository.countFollowers(AUTHOR)).thenReturn(1L);
+        when(userRepository.countFollowers(CELEBRITY)).thenReturn(THRESHOLD);
+        when(userRepository.findIdsWithFollowersAtLeast(anyCollection(), eq(THRESHOLD)))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                        .filter(id -> userRepository.countFollowers(id) >= THRESHOLD)
+                        .collect(Collectors.toList()));
+        when(articleRepository.findTimelineEntries(anyCollection(), any(Pageable.class)))
+                .thenAnswer(invocation -> entriesOf(invocation.getArgument(0), invocation.getArgument(1)));
+        when(articleRepository.findIdsByAuthorId(anyLong()))
+                .thenAnswer(invocation -> published.getOrDefault(invocation.<Long>getArgument(0), List.of()).stream()
+                        .map(row -> (Long) row[0])
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    void mergesPushedAndPulledEntriesWithoutDuplicates() {
+        publish(AUTHOR, 10L, 1);
+        publish(CELEBRITY, 20L, 2);
+        // The same article offered by both paths, e.g. pushed just before its author was promoted
+        publish(CELEBRITY, 10L, 1);
+
+        assertEquals(List.of(20L, 10L), read(10));
+    }
+
+    @Test
+    void promotionPurgesPushedEntriesOfTheAuthor() {
+        publish(AUTHOR, 10L, 1);
+        assertEquals(List.of(10L), read(10));
+
+        // The author crosses the threshold with their next article
+        when(userRepository.countFollowers(AUTHOR)).thenReturn(THRESHOLD);
+        publish(AUTHOR, 11L, 2);
+        service.onArticleChanged(event(AUTHOR, 11L, 2, true, false));
+
+        verify(articleRepository).findIdsByAuthorId(AUTHOR);
+        assertEquals(List.of(11L, 10L), read(10));
+        // Both articles now come from the pull, so retracting one from the database removes it
+        unpublish(AUTHOR, 10L);
+        assertEquals(List.of(11L), read(10));
+    }
+
+    @Test
+    void retractionOfPushedArticleRemovesIt() {
+        publish(AUTHOR, 10L, 1);
+        publish(AUTHOR, 11L, 2);
+        assertEquals(List.of(11L, 10L), read(10));
+
+        service.onArticleChanged(event(AUTHOR, 11L, 2, false, true));
+
+        assertEquals(List.of(10L), read(10));
+    }
+
+    @Test
+    void retractionByCelebrityRemovesEntryPushedBeforePromotion() {
+        publish(AUTHOR, 10L, 1);
+        assertEquals(List.of(10L), read(10));
+
+        // Promoted and retracting in one event: nothing of theirs may linger in the timeline
+        when(userRepository.countFollowers(AUTHOR)).thenReturn(THRESHOLD);
+        unpublish(AUTHOR, 10L);
+        service.onArticleChanged(event(AUTHOR, 10L, 1, false, true));
+
+        assertEquals(List.of(), read(10));
+    }
+
+    @Test
+    void demotionRebuildsTimelinesThatPulledTheAuthor() {
+        publish(CELEBRITY, 20L, 1);
+        assertEquals(List.of(20L), read(10));
+
+        when(userRepository.countFollowers(CELEBRITY)).thenReturn(1L);
+        publish(CELEBRITY, 21L, 2);
+        service.onArticleChanged(event(CELEBRITY, 21L, 2, true, false));
+
+        assertEquals(List.of(21L, 20L), read(10));
+        verify(userRepository, times(2)).findFollowingIds(READER);
+    }
+
+    private List<Long> read(int limit) {
+        return service.read(READER, null, limit).stream()
+                .map(HomeTimelineService.TimelineEntry::articleId)
+                .collect(Collectors.toList());
+    }
+
+    private void publish(long authorId, long articleId, int hour) {
+        published.computeIfAbsent(authorId, id -> new ArrayList<>())
+                .add(new Object[]{articleId, T0.plusHours(hour)});
+    }
+
+    private void unpublish(long authorId, long articleId) {
+        published.getOrDefault(authorId, new ArrayList<>()).removeIf(row -> row[0].equals(articleId));
+    }
+
+    private List<Object[]> entriesOf(Collection<Long> authorIds, Pageable pageable) {
+        return authorIds.stream()
+                .flatMap(id -> published.getOrDefault(id, List.of()).stream())
+                .sorted(Comparator.<Object[], LocalDateTime>comparing(row -> (LocalDateTime) row[1])
+                        .thenComparing(row -> (Long) row[0]).reversed())
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+    }
+
+    private static ArticleChangedEvent event(long authorId, long articleId, int hour,
+                                             boolean published, boolean previouslyPublished) {
+        ArticleChangedEvent.ArticleSnapshot snapshot = new ArticleChangedEvent.ArticleSnapshot(
+                articleId, "Article " + articleId, null, "", new HashSet<>(), authorId, "author" + authorId,
+                published, T0.plusHours(hour), T0.plusHours(hour));
+        return new ArticleChangedEvent(ArticleChangedEvent.ChangeType.SAVED, snapshot, previouslyPublished);
+    }
+}
@@ -0,0 +1,101 @@
+package user.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The primitive map must agree with a HashMap through resizes, keep colliding
+ * keys apart (including probes that wrap past the end of the table) and visit
+ * every entry exactly once.
+ */
+class LongDoubleMapTest {
+
+    @Test
+    void addAccumulatesAndPutOverwrites() {
+        LongDoubleMap map = new LongDoubleMap();
+        map.add(7L, 1.5);
+        map.add(7L, 2.0);
+        map.put(-3L, 4.0);
+        map.put(-3L, 5.0);
+
+        assertEquals(3.5, map.get(7L));
+        assertEquals(5.0, map.get(-3L));
+        assertEquals(0.0, map.get(8L));
+        assertFalse(map.containsKey(8L));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        LongDoubleMap map = new LongDoubleMap(1);
+        Map<Long, Double> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            long key = random.nextInt(2_000) - 1_000L;
+            map.add(key, i);
+            expected.merge(key, (double) i, Double::sum);
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> {
+            assertTrue(map.containsKey(key));
+            assertEquals(value, map.get(key));
+        });
+    }
+
+    @Test
+    void collidingKeysKeepTheirOwnValues() {
+        // Capacity 4: two keys that hash to the last slot, so the second probe wraps to slot 0
+        long first = keyInSlot(3, 4, 0);
+        long second = keyInSlot(3, 4, first + 1);
+        long third = keyInSlot(0, 4, 0);
+        LongDoubleMap map = new LongDoubleMap(2);
+
+        map.put(first, 1.0);
+        map.put(second, 2.0);
+        assertEquals(1.0, map.get(first));
+        assertEquals(2.0, map.get(second));
+        // Home slot of third is taken by the wrapped key; a lookup has to probe past it
+        assertFalse(map.containsKey(third));
+
+        map.add(second, 0.5);
+        map.put(third, 3.0); // Resizes, rehashing the colliding keys
+        assertEquals(1.0, map.get(first));
+        assertEquals(2.5, map.get(second));
+        assertEquals(3.0, map.get(third));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void forEachVisitsEveryEntryOnce() {
+        LongDoubleMap map = new LongDoubleMap();
+        for (long key = -50; key < 50; key++) {
+            map.put(key * 1_000_003L, key);
+        }
+
+        Map<Long, Double> visited = new HashMap<>();
+        map.forEach((key, value) -> assertNull(visited.put(key, value)));
+
+        assertEquals(100, visited.size());
+        for (long key = -50; key < 50; key++) {
+            assertEquals((double) key, visited.get(key * 1_000_003L));
+        }
+    }
+
+    // The first key from start on whose home slot in a table of capacity is slot
+    private static long keyInSlot(int slot, int capacity, long start) {
+        long key = start;
+        while ((LongDoubleMap.mix(key) & (capacity - 1)) != slot) {
+            key++;
+        }
+        return key;
+    }
+}
@@ -0,0 +1,72 @@
+package user.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import user.repository.UserRepository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A rerun on the same day must notify exactly the users a failed run missed,
+ * even when the failed chunk sits between chunks that succeeded.
+ */
+class RecommendationBatchJobTest {
+
+    private static final int CHUNK_SIZE = 2;
+    private static final List<Long> RECIPIENTS = LongStream.rangeClosed(1, 8).boxed().collect(Collectors.toList());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void resumeAfterFailedMiddleChunkSkipsLaterFinishedChunks() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findRecommendationRecipientIdsAfter(anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    long afterId = invocation.getArgument(0);
+                    Pageable pageable = invocation.getArgument(1);
+                    return RECIPIENTS.stream().filter(id -> id > afterId)
+                            .limit(pageable.getPageSize())
+                            .collect(Collectors.toList());
+                });
+        String checkpointFile = dir.resolve("job.properties").toString();
+
+        List<Long> firstRun = Collections.synchronizedList(new ArrayList<>());
+        RecommendationBatchJob job = new RecommendationBatchJob(userRepository, checkpointFile, CHUNK_SIZE, 1);
+        job.run(userIds -> {
+            if (userIds.contains(3L)) {
+                throw new IllegalStateException("boom");
+            }
+            firstRun.addAll(userIds);
+            return userIds.size();
+        });
+        // A full queue runs chunks on the reading thread, so they may finish out of order
+        Collections.sort(firstRun);
+        assertEquals(List.of(1L, 2L, 5L, 6L, 7L, 8L), firstRun);
+        assertEquals(2L, job.getStatus().get("checkpointUserId"));
+
+        // A fresh instance, as after a restart: only the failed chunk is left
+        List<Long> rerun = Collections.synchronizedList(new ArrayList<>());
+        RecommendationBatchJob resumed = new RecommendationBatchJob(userRepository, checkpointFile, CHUNK_SIZE, 1);
+        resumed.run(userIds -> {
+            rerun.addAll(userIds);
+            return userIds.size();
+        });
+        Collections.sort(rerun);
+        assertEquals(List.of(3L, 4L), rerun);
+        assertEquals(2L, resumed.getStatus().get("resumedFromUserId"));
+        assertEquals(0L, resumed.getStatus().get("chunksFailed"));
+    }
+}
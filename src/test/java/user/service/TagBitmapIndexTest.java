@@ -0,0 +1,95 @@
+package user.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import user.repository.ArticleRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tag queries must page newest first across ordinal chunks and across the
+ * switch between sparse and dense bitmaps, and a rebuild must keep changes
+ * committed while it was loading.
+ */
+class TagBitmapIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int ARTICLES = 70_000; // More ordinals than one 16-bit chunk holds
+
+    private final TagBitmapIndex index = new TagBitmapIndex(mock(ArticleRepository.class));
+
+    @Test
+    void pagesNewestFirstAcrossChunks() {
+        for (long id = 1; id <= ARTICLES; id++) {
+            index.put(id, START.plusMinutes(id), Set.of("java"));
+        }
+
+        // Ordinal 65536 (article 65537) starts the second chunk; this page straddles it
+        Page<Long> page = index.find(Set.of("Java"), true, PageRequest.of(446, 10));
+
+        assertEquals(ARTICLES, page.getTotalElements());
+        assertEquals(List.of(65_540L, 65_539L, 65_538L, 65_537L, 65_536L, 65_535L, 65_534L, 65_533L, 65_532L, 65_531L),
+                page.getContent());
+    }
+
+    @Test
+    void matchAllAndAnyAroundTheDenseSwitch() {
+        // "even" is dense in the first chunk, "fives" sparse; "edge" holds exactly 4096 articles
+        for (long id = 1; id <= 20_000; id++) {
+            Set<String> tags = id % 2 == 0 ? (id % 5 == 0 ? Set.of("even", "fives") : Set.of("even"))
+                    : (id % 5 == 0 ? Set.of("fives") : Set.of());
+            index.put(id, START.plusMinutes(id), id <= 4_096 ? union(tags, "edge") : tags);
+        }
+
+        assertEquals(List.of(20_000L, 19_990L, 19_980L),
+                index.find(Set.of("even", "fives"), true, PageRequest.of(0, 3)).getContent());
+        assertEquals(2_000, index.find(Set.of("even", "fives"), true, PageRequest.of(0, 3)).getTotalElements());
+        assertEquals(12_000, index.find(Set.of("even", "fives"), false, PageRequest.of(0, 3)).getTotalElements());
+        assertEquals(List.of(4_096L, 4_095L), index.find(Set.of("edge"), true, PageRequest.of(0, 2)).getContent());
+
+        // Adding one more article to "edge" and taking another away crosses the switch both ways
+        index.put(4_097L, START.plusMinutes(4_097), union(Set.of("fives"), "edge"));
+        assertEquals(4_097, index.find(Set.of("edge"), true, PageRequest.of(0, 1)).getTotalElements());
+        index.remove(1L);
+        Page<Long> oldest = index.find(Set.of("edge"), true, PageRequest.of(4_095, 1));
+        assertEquals(4_096, oldest.getTotalElements());
+        assertEquals(List.of(2L), oldest.getContent());
+    }
+
+    @Test
+    void eventsCommittedDuringRebuildSurviveTheSwap() {
+        ArticleRepository articleRepository = mock(ArticleRepository.class);
+        TagBitmapIndex rebuilt = new TagBitmapIndex(articleRepository);
+        when(articleRepository.findPublishedArticleTags()).thenReturn(List.<Object[]>of(new Object[]{1L, "java"}));
+        // Article 2 is published after the tag rows were read but before the ordering query
+        when(articleRepository.findPublishedOrdering()).thenAnswer(invocation -> {
+            rebuilt.onArticleChanged(published(2L, START.plusMinutes(2), "Java"));
+            return List.<Object[]>of(new Object[]{1L, START.plusMinutes(1)});
+        });
+
+        rebuilt.onArticleChanged(published(3L, START.plusMinutes(3), "java"));
+        rebuilt.rebuild();
+
+        assertEquals(List.of(3L, 2L, 1L), rebuilt.find(Set.of("java"), true, PageRequest.of(0, 10)).getContent());
+    }
+
+    private static ArticleChangedEvent published(Long id, LocalDateTime publishedAt, String tag) {
+        return new ArticleChangedEvent(ArticleChangedEvent.ChangeType.SAVED,
+                new ArticleChangedEvent.ArticleSnapshot(id, "Title " + id, null, "", Set.of(tag), 1L, "alice",
+                        true, publishedAt, publishedAt), false);
+    }
+
+    private static Set<String> union(Set<String> tags, String tag) {
+        Set<String> all = new HashSet<>(tags);
+        all.add(tag);
+        return all;
+    }
+}
@@ -0,0 +1,80 @@
+package user.service;
+
+import org.junit.jupiter.api.Test;
+import user.repository.ArticleRepository;
+import user.repository.TagRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Each tag of a published article must count once, decayed from its publish
+ * time, and taking it back must remove exactly that contribution.
+ */
+class TrendingTagsEngineTest {
+
+    private static final double HALF_LIFE_HOURS = 24;
+    private static final double EPSILON = 1e-3;
+
+    private final TrendingTagsEngine engine = new TrendingTagsEngine(
+            mock(ArticleRepository.class), mock(TagRepository.class), HALF_LIFE_HOURS);
+
+    @Test
+    void articleCreatedPublishedCountsOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        engine.onTagUsage(new TagUsageEvent(List.of(new TagUsageEvent.TagUsage(1L, "java", 1, 1, now))));
+        engine.onArticleChanged(saved(1L, Set.of("Java"), true, now, false));
+        // A later edit that keeps the tag adds nothing
+        engine.onArticleChanged(saved(1L, Set.of("java"), true, now, true));
+
+        assertEquals(1.0, engine.scoreOf("java"), EPSILON);
+    }
+
+    @Test
+    void droppedTagRemovesItsDecayedContribution() {
+        LocalDateTime dayAgo = LocalDateTime.now().minusHours((long) HALF_LIFE_HOURS);
+        engine.onArticleChanged(saved(1L, Set.of("java", "jvm"), true, dayAgo, false));
+        engine.onArticleChanged(saved(2L, Set.of("java"), true, LocalDateTime.now(), false));
+        assertEquals(1.5, engine.scoreOf("java"), EPSILON);
+
+        engine.onArticleChanged(saved(1L, Set.of("jvm"), true, dayAgo, true));
+
+        assertEquals(1.0, engine.scoreOf("java"), EPSILON);
+        assertEquals(0.5, engine.scoreOf("jvm"), EPSILON);
+    }
+
+    @Test
+    void unpublishAndDeleteTakeBackTheirTags() {
+        LocalDateTime dayAgo = LocalDateTime.now().minusHours((long) HALF_LIFE_HOURS);
+        engine.onArticleChanged(saved(1L, Set.of("java"), true, dayAgo, false));
+        engine.onArticleChanged(saved(2L, Set.of("java"), true, LocalDateTime.now(), false));
+
+        // Unpublishing clears publishedAt; the original publish time still applies
+        engine.onArticleChanged(saved(1L, Set.of("java"), false, null, true));
+        assertEquals(1.0, engine.scoreOf("java"), EPSILON);
+
+        engine.onArticleChanged(new ArticleChangedEvent(ArticleChangedEvent.ChangeType.DELETED,
+                snapshot(2L, Set.of("java"), true, LocalDateTime.now()), true));
+        assertEquals(0.0, engine.scoreOf("java"), EPSILON);
+
+        // Republishing counts again, at the new publish time
+        engine.onArticleChanged(saved(1L, Set.of("java"), true, LocalDateTime.now(), false));
+        assertEquals(1.0, engine.scoreOf("java"), EPSILON);
+    }
+
+    private static ArticleChangedEvent saved(Long id, Set<String> tags, boolean published,
+                                             LocalDateTime publishedAt, boolean previouslyPublished) {
+        return new ArticleChangedEvent(ArticleChangedEvent.ChangeType.SAVED,
+                snapshot(id, tags, published, publishedAt), previouslyPublished);
+    }
+
+    private static ArticleChangedEvent.ArticleSnapshot snapshot(Long id, Set<String> tags, boolean published,
+                                                                LocalDateTime publishedAt) {
+        return new ArticleChangedEvent.ArticleSnapshot(id, "Article " + id, null, "", tags, 1L, "author",
+                published, publishedAt, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,71 @@
+package user.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Before/after benchmark of read time and summary extraction: the legacy
+ * split and replaceAll code against the streaming ArticleTextScanner, on
+ * generated markdown articles of different sizes. Run with main; the GC
+ * profiler reports gc.alloc.rate.norm, the bytes allocated per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArticleUtilsBenchmark {
+
+    @Param({"500", "5000", "100000"})
+    public int words;
+
+    private String content;
+
+    @Setup
+    public void setUp() {
+        StringBuilder article = new StringBuilder("# Generated article\n\n");
+        for (int i = 1; i <= words; i++) {
+            article.append(i % 9 == 0 ? "**word**" : i % 13 == 0 ? "[link](http://example.com)" : "word");
+            article.append(i % 12 == 0 ? ". " : " ");
+            if (i % 150 == 0) article.append("\n\n## Section ").append(i).append("\n\n");
+            if (i % 400 == 0) article.append("![figure](http://example.com/f.png)\n");
+            if (i % 700 == 0) article.append("```java\nint value = ").append(i).append(";\n```\n");
+        }
+        content = article.toString();
+    }
+
+    @Benchmark
+    public int readTimeLegacy() {
+        return LegacyArticleText.calculateReadTime(content);
+    }
+
+    @Benchmark
+    public int readTimeStreaming() {
+        return ArticleUtils.calculateReadTime(content);
+    }
+
+    @Benchmark
+    public String summaryLegacy() {
+        return LegacyArticleText.extractSummary(content, 200);
+    }
+
+    @Benchmark
+    public String summaryStreaming() {
+        return ArticleUtils.extractSummary(content, 200);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ArticleUtilsBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,59 @@
+package user.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The streaming read time and summary must give exactly what the split and
+ * replaceAll versions gave, for strings and readers alike.
+ */
+class ArticleUtilsTest {
+
+    private static final String[] FRAGMENTS = {
+            "**", "*", "`", "```", "[", "]", "(", ")", "![", "](http", "\n#", "\n##", "\n###", "# ",
+            ". ", "! ", "? ", "word ", "  ", "\n\n", "\t", "\r", "_", "-", "x", "\u000B", "\u0001"
+    };
+
+    @Test
+    void matchesLegacyOnMarkdown() throws IOException {
+        String content = "# Title\n\nSome **bold** and *italic* text with `code`. A [link](http://example.com)!\n"
+                + "![image](http://example.com/a.png)\n\n## Section\n```java\nint x = 1;\n```\nDone? Yes.";
+        for (int maxLength : new int[]{0, 10, 40, 200}) {
+            assertSame(content, maxLength);
+        }
+    }
+
+    @Test
+    void matchesLegacyOnRandomFragments() throws IOException {
+        Random random = new Random(42);
+        for (int run = 0; run < 20_000; run++) {
+            StringBuilder content = new StringBuilder();
+            for (int i = random.nextInt(60); i > 0; i--) {
+                content.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            assertSame(content.toString(), random.nextInt(80));
+        }
+    }
+
+    @Test
+    void blankAndNullContent() {
+        assertEquals(1, ArticleUtils.calculateReadTime((String) null));
+        assertEquals(1, ArticleUtils.calculateReadTime(" \n\t"));
+        assertEquals("", ArticleUtils.extractSummary((String) null, 200));
+        assertEquals("", ArticleUtils.extractSummary(" \n\t", 200));
+    }
+
+    private static void assertSame(String content, int maxLength) throws IOException {
+        String expectedSummary = LegacyArticleText.extractSummary(content, maxLength);
+        int expectedReadTime = LegacyArticleText.calculateReadTime(content);
+        assertEquals(expectedSummary, ArticleUtils.extractSummary(content, maxLength), content);
+        assertEquals(expectedSummary, ArticleUtils.extractSummary(new StringReader(content), maxLength), content);
+        assertEquals(expectedReadTime, ArticleUtils.calculateReadTime(content), content);
+        assertEquals(expectedReadTime, ArticleUtils.calculateReadTime(new StringReader(content)), content);
+    }
+}
@@ -0,0 +1,91 @@
+package user.util;
+
+import com.medium_clone.user.entity.ContentMetrics;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Each metric of the single-pass scanner on small markdown samples, including
+ * the constructs that must not count inside code blocks or words.
+ */
+class ContentAnalyzerTest {
+
+    @Test
+    void emptyContentHasNoMetrics() {
+        for (String content : new String[]{null, "", "  \n\t\n"}) {
+            ContentMetrics metrics = ContentAnalyzer.analyze(content);
+            assertEquals(0, metrics.getWordCount());
+            assertEquals(0, metrics.getSentenceCount());
+            assertEquals(0, metrics.getParagraphCount());
+            assertFalse(metrics.getHasTableOfContents());
+        }
+    }
+
+    @Test
+    void countsWordsSentencesAndSyllables() {
+        ContentMetrics metrics = ContentAnalyzer.analyze("The cat sat. Did it run? Yes!");
+
+        assertEquals(7, metrics.getWordCount());
+        assertEquals(3, metrics.getSentenceCount());
+        // One vowel group per word; a run of vowels such as "Ye" is one syllable
+        assertEquals(7, metrics.getSyllableCount());
+        assertEquals(1, metrics.getParagraphCount());
+    }
+
+    @Test
+    void headerEndsItsSentence() {
+        ContentMetrics metrics = ContentAnalyzer.analyze("# Title\nBody text without a full stop");
+
+        assertEquals(2, metrics.getSentenceCount());
+        assertEquals(1, metrics.getHeaderCount());
+    }
+
+    @Test
+    void codeBlockHidesMarkupAndKeepsItsParagraph() {
+        String content = "First paragraph.\n\n"
+                + "```\n"
+                + "# not a header\n"
+                + "\n"
+                + "- not a list ![not](/an/image.png) [nor](http://a.link) **bold**\n"
+                + "```\n\n"
+                + "Last paragraph.";
+        ContentMetrics metrics = ContentAnalyzer.analyze(content);
+
+        assertEquals(1, metrics.getCodeBlockCount());
+        assertEquals(3, metrics.getParagraphCount());
+        assertEquals(0, metrics.getHeaderCount());
+        assertEquals(0, metrics.getListCount());
+        assertEquals(0, metrics.getImageCount());
+        assertEquals(0, metrics.getLinkCount());
+        assertEquals(0, metrics.getFormattingCount());
+    }
+
+    @Test
+    void headersListsAndTableOfContents() {
+        String content = "# Table of Contents\n"
+                + "## Intro\n"
+                + "####### seven hashes\n"
+                + "#hashtag\n"
+                + "- one\n* two\n+ three\n1. four\n2) five\n3.five";
+        ContentMetrics metrics = ContentAnalyzer.analyze(content);
+
+        assertEquals(2, metrics.getHeaderCount());
+        assertEquals(5, metrics.getListCount());
+        assertTrue(metrics.getHasTableOfContents());
+    }
+
+    @Test
+    void linksImagesAndEmphasis() {
+        String content = "See [docs](http://a.io) and [local](/x), ![logo](/l.png).\n"
+                + "**bold** *it* __under__ _em_ snake_case_name";
+        ContentMetrics metrics = ContentAnalyzer.analyze(content);
+
+        assertEquals(1, metrics.getLinkCount());
+        assertEquals(1, metrics.getImageCount());
+        // Eight marker runs make four emphasised spans; underscores inside a word are not markup
+        assertEquals(4, metrics.getFormattingCount());
+    }
+}
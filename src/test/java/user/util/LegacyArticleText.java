@@ -0,0 +1,73 @@
+package user.util;
+
+/**
+ * The split and replaceAll based read time and summary code that
+ * ArticleTextScanner replaced, kept as the reference for equivalence tests
+ * and as the baseline of ArticleUtilsBenchmark.
+ */
+final class LegacyArticleText {
+
+    private LegacyArticleText() {
+    }
+
+    static int calculateReadTime(String content) {
+        if (content == null || content.trim().isEmpty()) {
+            return 1;
+        }
+
+        int wordCount = content.split("\\s+").length;
+        int baseTimeMinutes = Math.max(1, wordCount / 200);
+        int imageCount = countOccurrences(content, "![");
+        int codeBlockCount = countOccurrences(content, "```") / 2;
+        int headerCount = countOccurrences(content, "\n#") + countOccurrences(content, "\n##") + countOccurrences(content, "\n###");
+        int additionalSeconds = (imageCount * 12) + (codeBlockCount * 30) + (headerCount * 3);
+
+        return Math.max(1, baseTimeMinutes + (additionalSeconds / 60));
+    }
+
+    static String extractSummary(String content, int maxLength) {
+        if (content == null || content.trim().isEmpty()) {
+            return "";
+        }
+
+        String plainText = content.replaceAll("\\*\\*([^*]+)\\*\\*", "$1")
+                                 .replaceAll("\\*([^*]+)\\*", "$1")
+                                 .replaceAll("`([^`]+)`", "$1")
+                                 .replaceAll("\\[([^\\]]+)\\]\\([^)]+\\)", "$1")
+                                 .replaceAll("!\\[([^\\]]*)\\]\\([^)]+\\)", "")
+                                 .replaceAll("^#+\\s*", "")
+                                 .replaceAll("```[\\s\\S]*?```", "");
+
+        String[] sentences = plainText.split("[.!?]+");
+        StringBuilder summary = new StringBuilder();
+        for (String sentence : sentences) {
+            sentence = sentence.trim();
+            if (sentence.length() > 0) {
+                if (summary.length() + sentence.length() + 1 <= maxLength) {
+                    if (summary.length() > 0) {
+                        summary.append(". ");
+                    }
+                    summary.append(sentence);
+                } else {
+                    break;
+                }
+            }
+        }
+
+        String result = summary.toString();
+        if (result.length() > 0 && !result.endsWith(".")) {
+            result += ".";
+        }
+        return result;
+    }
+
+    private static int countOccurrences(String text, String substring) {
+        int count = 0;
+        int lastIndex = 0;
+        while ((lastIndex = text.indexOf(substring, lastIndex)) != -1) {
+            count++;
+            lastIndex += substring.length();
+        }
+        return count;
+    }
+}
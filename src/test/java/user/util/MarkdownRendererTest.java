@@ -0,0 +1,48 @@
+package user.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rendered HTML is served as-is, so nothing from the source may reach it unescaped.
+ */
+class MarkdownRendererTest {
+
+    @Test
+    void escapesRawHtml() {
+        String html = MarkdownRenderer.render("<script>alert(1)</script>\n\n<img src=x onerror=alert(1)>").html();
+        assertFalse(html.contains("<script"));
+        assertFalse(html.contains("<img"));
+        assertTrue(html.contains("&lt;script&gt;"));
+    }
+
+    @Test
+    void dropsUnsafeUrls() {
+        String html = MarkdownRenderer.render("[a](javascript:alert(1)) [b](JavaScript:x) ![c](data:text/html,x) [d](java\tscript:x)").html();
+        assertFalse(html.contains("href"));
+        assertFalse(html.contains("src"));
+    }
+
+    @Test
+    void keepsSafeUrls() {
+        String html = MarkdownRenderer.render("[a](https://example.com/?q=\"x\") [b](/tags/java) [c](mailto:me@example.com)").html();
+        assertTrue(html.contains("<a href=\"https://example.com/?q=&quot;x&quot;\" rel=\"nofollow noopener\">a</a>"));
+        assertTrue(html.contains("<a href=\"/tags/java\" rel=\"nofollow noopener\">b</a>"));
+        assertTrue(html.contains("<a href=\"mailto:me@example.com\" rel=\"nofollow noopener\">c</a>"));
+    }
+
+    @Test
+    void collectsUniqueHeadingAnchors() {
+        MarkdownRenderer.Rendered rendered = MarkdownRenderer.render("# Intro\n## Intro 1\n## *Intro*\n```\n# not a heading\n```");
+        assertEquals(List.of(
+                new MarkdownRenderer.Heading(1, "Intro", "intro"),
+                new MarkdownRenderer.Heading(2, "Intro 1", "intro-1"),
+                new MarkdownRenderer.Heading(2, "Intro", "intro-2")), rendered.headings());
+        assertTrue(rendered.html().contains("<h2 id=\"intro-2\"><em>Intro</em></h2>"));
+    }
+}
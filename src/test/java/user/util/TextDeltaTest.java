@@ -0,0 +1,58 @@
+package user.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Version content is only ever stored as deltas, so every edit must round-trip exactly.
+ */
+class TextDeltaTest {
+
+    private static final String ALPHABET = "abc de\n#.é中😀\ud800";
+
+    @Test
+    void roundTripsRandomEdits() {
+        Random random = new Random(7);
+        for (int run = 0; run < 20_000; run++) {
+            String base = randomText(random, random.nextInt(300));
+            StringBuilder target = new StringBuilder(base);
+            for (int edits = random.nextInt(5); edits > 0 && target.length() > 0; edits--) {
+                int position = random.nextInt(target.length());
+                switch (random.nextInt(3)) {
+                    case 0 -> target.insert(position, randomText(random, random.nextInt(10)));
+                    case 1 -> target.delete(position, Math.min(target.length(), position + random.nextInt(20)));
+                    default -> target.append(target, 0, Math.min(target.length(), 40));
+                }
+            }
+            assertEquals(target.toString(), TextDelta.apply(base, TextDelta.encode(base, target.toString())));
+            assertEquals(base, TextDelta.apply("", TextDelta.keyframe(base)));
+        }
+    }
+
+    @Test
+    void smallEditOfLargeTextGivesSmallDelta() {
+        Random random = new Random(1);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            text.append("word").append(random.nextInt(5000)).append(i % 15 == 0 ? ".\n\n" : " ");
+        }
+        String base = text.toString();
+        String edited = base.substring(0, 50_000) + " A new sentence. " + base.substring(50_010);
+
+        byte[] delta = TextDelta.encode(base, edited);
+        assertTrue(delta.length < 100, "delta of " + delta.length + " bytes");
+        assertEquals(edited, TextDelta.apply(base, delta));
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}